@@ -0,0 +1,52 @@
+#!/bin/sh
+# Time from process start to the first successful request, averaged over several runs.
+#
+#   scripts/startup-benchmark.sh [-n runs] [-u url] -- <start command>
+#
+#   scripts/startup-benchmark.sh -- java -jar target/javaFinal-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh -n 10 -- docker run --rm -p 8080:8080 --network javafinal_inventory-network javafinal-app
+#
+# The start command must stay in the foreground; it is stopped after every run.
+
+RUNS=5
+URL=http://localhost:8080/api/categories
+TIMEOUT_SECONDS=120
+
+while [ $# -gt 0 ]; do
+    case "$1" in
+        -n) RUNS=$2; shift 2 ;;
+        -u) URL=$2; shift 2 ;;
+        --) shift; break ;;
+        *) break ;;
+    esac
+done
+if [ $# -eq 0 ]; then
+    sed -n '2,9p' "$0"
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    "$@" > /tmp/startup-benchmark.log 2>&1 &
+    pid=$!
+    deadline=$((start + TIMEOUT_SECONDS * 1000))
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" = "200" ]; do
+        if [ "$(now_ms)" -gt "$deadline" ] || ! kill -0 "$pid" 2>/dev/null; then
+            echo "run $run: no response from $URL, see /tmp/startup-benchmark.log" >&2
+            kill "$pid" 2>/dev/null
+            exit 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(($(now_ms) - start))
+    echo "run $run: first request after ${elapsed} ms"
+    total=$((total + elapsed))
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+done
+echo "average: $((total / RUNS)) ms over $RUNS runs"
@@ -1,8 +1,11 @@
 package com.medipol.javaFinal;
 
+import com.medipol.javaFinal.util.GenericRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.lang.NonNull;
@@ -10,6 +13,8 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.web.filter.CommonsRequestLoggingFilter;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableJpaRepositories(repositoryBaseClass = GenericRepositoryImpl.class)
 public class JavaFinalApplication {
 
 	public static void main(String[] args) {
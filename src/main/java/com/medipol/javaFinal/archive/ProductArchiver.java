@@ -0,0 +1,152 @@
+package com.medipol.javaFinal.archive;
+
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves inactive products from the products table to {@code products_archive}: products in a disabled
+ * category and products whose quantity has been 0 for a number of days. Reads of the products table,
+ * its indexes and the caches then only cover the products that can still be sold.
+ * <p>
+ * A run starts on the cron schedule, meant for an off-peak window, and walks the table in id order,
+ * one batch per transaction with a pause in between, until no product qualifies or the maximum
+ * duration is used up; the next run starts over at the lowest id. Rows a writer holds locked are left
+ * for the next run, so instances running at the same time do not wait for each other. Runs take a
+ * thread of their own, the application's scheduler only starts them.
+ * <p>
+ * Each batch publishes a change event, listeners see the archived products as deleted. A product gets
+ * back into the table when its quantity is set above 0, and all products of a category when it is
+ * enabled again; deleting a product removes it from either table. A quantity still held by the
+ * write-behind buffer moves its product back when it is flushed. {@code app.product-archive.archived}
+ * counts archived products and {@code app.product-archive.run} times the runs.
+ */
+public class ProductArchiver implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductArchiver.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int outOfStockDays;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration maxDuration;
+    private final Counter archived;
+    private final Timer runTime;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param outOfStockDays days a product must have had quantity 0 before it is archived
+     * @param batchSize products moved per statement and transaction
+     * @param batchPause pause between two batches, leaves room for other writers
+     * @param maxDuration time after which a run stops, the end of the off-peak window
+     */
+    public ProductArchiver(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                           int outOfStockDays, int batchSize, Duration batchPause, Duration maxDuration) {
+        this.productRepository = productRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.outOfStockDays = outOfStockDays;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.maxDuration = maxDuration;
+        this.archived = Counter.builder("app.product-archive.archived")
+                .description("Products moved to the archive")
+                .register(meterRegistry);
+        this.runTime = Timer.builder("app.product-archive.run")
+                .description("Time of one archival run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a run on the archive thread, a run lasts up to the maximum duration
+     */
+    @Scheduled(cron = "${app.product-archive.cron:0 0 3 * * *}")
+    public void run() {
+        if (!runner.isShutdown()) {
+            runner.execute(this::archive);
+        }
+    }
+
+    /**
+     * Interrupts a running archival between two batches
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        runner.shutdownNow();
+        runner.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Archive in batches until no product qualifies or the maximum duration is used up
+     * @return number of archived products, 0 if a run is already going on
+     */
+    public long archive() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        long deadline = started + maxDuration.toNanos();
+        LocalDateTime outOfStockBefore = LocalDateTime.now().minusDays(outOfStockDays);
+        long afterId = 0;
+        long total = 0;
+        try {
+            while (true) {
+                long cursor = afterId;
+                List<Long> ids = transaction.execute(status -> {
+                    List<Long> batch = productRepository.archiveBatch(cursor, outOfStockBefore, batchSize);
+                    if (!batch.isEmpty()) {
+                        eventPublisher.publishEvent(ProductChangedEvent.of(batch));
+                    }
+                    return batch;
+                });
+                if (ids == null || ids.isEmpty()) {
+                    break;
+                }
+                total += ids.size();
+                archived.increment(ids.size());
+                afterId = ids.get(ids.size() - 1);
+                if (System.nanoTime() - deadline >= 0) {
+                    logger.info("Archival stopped at product {} after {}, the next run continues", afterId, maxDuration);
+                    break;
+                }
+                Thread.sleep(batchPause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Archival failed after product {}, the next run retries", afterId, e);
+        } finally {
+            running.set(false);
+            runTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (total > 0) {
+            logger.info("Archived {} products in {} ms", total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,337 @@
+package com.medipol.javaFinal.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over product and category names. Every word of a name starts a key, so
+ * "key" finds "Wireless Keyboard". Keys are sorted and a trie is laid over them in flat arrays;
+ * a trie node stands for the range of keys sharing its prefix and holds the best suggestions of
+ * that range, computed once at build time. Prefixes shared by at most {@link #LEAF_SIZE} keys get
+ * no node, their few keys are scanned instead.
+ * <p>
+ * A lookup walks one node per prefix character and either copies a precomputed list or scans at
+ * most a leaf worth of keys, independent of the number of names.
+ */
+public final class SuggestionIndex {
+
+    public enum Type {
+        PRODUCT, CATEGORY
+    }
+
+    /**
+     * A name that can be suggested
+     * @param id id of the category, or of the product if it is the only one with this name
+     * @param weight higher weights are suggested first
+     */
+    public record Entry(Type type, String text, Long id, long weight) {
+    }
+
+    /** Largest key range scanned at lookup instead of getting its own node */
+    static final int LEAF_SIZE = 32;
+    /** Words of a name that start a key, later words are only found through the earlier ones */
+    static final int MAX_WORDS = 8;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Comparator<Entry> RANK = Comparator.comparingLong(Entry::weight).reversed()
+            .thenComparing(Entry::text);
+
+    /** Entries in rank order, so a lower index is a better suggestion */
+    private final Entry[] entries;
+    private final String[] normalized;
+    /** Sorted keys, each the entry index in the high and the start of the key in its text in the low half */
+    private final long[] keys;
+    private final int topK;
+
+    // trie, children of a node are stored next to each other sorted by label
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[] rangeStart;
+    private final int[] rangeEnd;
+    private final int[] topStart;
+    private final int[] topLength;
+    private final int[] top;
+
+    private SuggestionIndex(Entry[] entries, Builder builder) {
+        this.entries = entries;
+        this.normalized = builder.normalized;
+        this.keys = builder.keys;
+        this.topK = builder.topK;
+        this.labels = Arrays.copyOf(builder.labels, builder.nodes);
+        this.firstChild = Arrays.copyOf(builder.firstChild, builder.nodes);
+        this.childCount = Arrays.copyOf(builder.childCount, builder.nodes);
+        this.rangeStart = Arrays.copyOf(builder.rangeStart, builder.nodes);
+        this.rangeEnd = Arrays.copyOf(builder.rangeEnd, builder.nodes);
+        this.topStart = Arrays.copyOf(builder.topStart, builder.nodes);
+        this.topLength = Arrays.copyOf(builder.topLength, builder.nodes);
+        this.top = Arrays.copyOf(builder.top, builder.topUsed);
+    }
+
+    /**
+     * @param entries names to suggest, entries with a blank text are skipped
+     * @param topK suggestions kept per prefix, the largest limit a lookup can ask for
+     */
+    public static SuggestionIndex build(List<Entry> entries, int topK) {
+        Entry[] ranked = entries.stream()
+                .filter(entry -> entry.text() != null && !entry.text().isBlank())
+                .sorted(RANK)
+                .toArray(Entry[]::new);
+        String[] normalized = new String[ranked.length];
+        List<Long> keyList = new ArrayList<>();
+        for (int i = 0; i < ranked.length; i++) {
+            String text = normalize(ranked[i].text());
+            normalized[i] = text;
+            int words = 0;
+            for (int start = 0; start < text.length() && words < MAX_WORDS; start++) {
+                if (start == 0 || text.charAt(start - 1) == ' ') {
+                    keyList.add(key(i, start));
+                    words++;
+                }
+            }
+        }
+        long[] keys = keyList.stream()
+                .sorted((a, b) -> compare(normalized, a, b))
+                .mapToLong(Long::longValue)
+                .toArray();
+        Builder builder = new Builder(normalized, keys, topK);
+        builder.build(builder.allocate('\0', 0, keys.length), 0);
+        return new SuggestionIndex(ranked, builder);
+    }
+
+    /**
+     * @param prefix typed text, matched case-insensitively against the start of any word of a name
+     * @param limit maximum number of suggestions, at most the top-K of the index
+     * @return best suggestions first
+     */
+    public List<Entry> suggest(String prefix, int limit) {
+        String query = normalize(prefix);
+        int count = Math.min(limit, topK);
+        int node = 0;
+        for (int depth = 0; depth < query.length(); depth++) {
+            int child = child(node, query.charAt(depth));
+            if (child < 0) {
+                return scan(node, query, count);
+            }
+            node = child;
+        }
+        List<Entry> suggestions = new ArrayList<>(Math.min(count, topLength[node]));
+        for (int i = 0; i < topLength[node] && i < count; i++) {
+            suggestions.add(entries[top[topStart[node] + i]]);
+        }
+        return suggestions;
+    }
+
+    /**
+     * @return number of names in the index
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    static String normalize(String text) {
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private int child(int node, char label) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < label) {
+                low = middle + 1;
+            } else if (labels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The query left the trie at this node, so the keys matching it are few
+     */
+    private List<Entry> scan(int node, String query, int count) {
+        int low = rangeStart[node];
+        int high = rangeEnd[node];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(keys[middle], query) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = low; i < rangeEnd[node] && startsWith(keys[i], query); i++) {
+            candidates.add(entry(keys[i]));
+        }
+        return Arrays.stream(best(candidates, count)).mapToObj(index -> entries[index]).toList();
+    }
+
+    /**
+     * @return the lowest distinct entry indices, which are the best ranked entries
+     */
+    private static int[] best(List<Integer> candidates, int count) {
+        return candidates.stream().mapToInt(Integer::intValue).sorted().distinct().limit(count).toArray();
+    }
+
+    private boolean startsWith(long key, String prefix) {
+        return normalized[entry(key)].startsWith(prefix, offset(key));
+    }
+
+    private int compare(long key, String text) {
+        String keyText = normalized[entry(key)];
+        int offset = offset(key);
+        int length = Math.min(keyText.length() - offset, text.length());
+        for (int i = 0; i < length; i++) {
+            int difference = keyText.charAt(offset + i) - text.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return (keyText.length() - offset) - text.length();
+    }
+
+    private static int compare(String[] normalized, long a, long b) {
+        String first = normalized[entry(a)];
+        String second = normalized[entry(b)];
+        int firstOffset = offset(a);
+        int secondOffset = offset(b);
+        int length = Math.min(first.length() - firstOffset, second.length() - secondOffset);
+        for (int i = 0; i < length; i++) {
+            int difference = first.charAt(firstOffset + i) - second.charAt(secondOffset + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        int difference = (first.length() - firstOffset) - (second.length() - secondOffset);
+        return difference != 0 ? difference : Integer.compare(entry(a), entry(b));
+    }
+
+    private static long key(int entry, int offset) {
+        return (long) entry << 32 | offset;
+    }
+
+    private static int entry(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int offset(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Lays the trie over the sorted keys, into growable node arrays
+     */
+    private static final class Builder {
+
+        final String[] normalized;
+        final long[] keys;
+        final int topK;
+        int nodes;
+        char[] labels = new char[16];
+        int[] firstChild = new int[16];
+        int[] childCount = new int[16];
+        int[] rangeStart = new int[16];
+        int[] rangeEnd = new int[16];
+        int[] topStart = new int[16];
+        int[] topLength = new int[16];
+        int[] top = new int[64];
+        int topUsed;
+
+        Builder(String[] normalized, long[] keys, int topK) {
+            this.normalized = normalized;
+            this.keys = keys;
+            this.topK = topK;
+        }
+
+        /**
+         * Create the children of a node and compute its suggestions, children first
+         */
+        void build(int node, int depth) {
+            int start = rangeStart[node];
+            int end = rangeEnd[node];
+            int position = start;
+            // keys ending here sort before the longer ones
+            while (position < end && length(keys[position]) == depth) {
+                position++;
+            }
+            List<Integer> candidates = new ArrayList<>();
+            for (int i = start; i < position; i++) {
+                candidates.add(entry(keys[i]));
+            }
+
+            List<int[]> groups = new ArrayList<>();
+            while (position < end) {
+                char label = charAt(keys[position], depth);
+                int groupEnd = position + 1;
+                while (groupEnd < end && charAt(keys[groupEnd], depth) == label) {
+                    groupEnd++;
+                }
+                if (groupEnd - position > LEAF_SIZE) {
+                    groups.add(new int[]{position, groupEnd});
+                } else {
+                    for (int i = position; i < groupEnd; i++) {
+                        candidates.add(entry(keys[i]));
+                    }
+                }
+                position = groupEnd;
+            }
+
+            int first = nodes;
+            for (int[] group : groups) {
+                allocate(charAt(keys[group[0]], depth), group[0], group[1]);
+            }
+            firstChild[node] = first;
+            childCount[node] = groups.size();
+            for (int child = first; child < first + groups.size(); child++) {
+                build(child, depth + 1);
+                for (int i = 0; i < topLength[child]; i++) {
+                    candidates.add(top[topStart[child] + i]);
+                }
+            }
+            setTop(node, best(candidates, topK));
+        }
+
+        private int length(long key) {
+            return normalized[entry(key)].length() - offset(key);
+        }
+
+        private char charAt(long key, int index) {
+            return normalized[entry(key)].charAt(offset(key) + index);
+        }
+
+        int allocate(char label, int start, int end) {
+            if (nodes == labels.length) {
+                int capacity = nodes * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                firstChild = Arrays.copyOf(firstChild, capacity);
+                childCount = Arrays.copyOf(childCount, capacity);
+                rangeStart = Arrays.copyOf(rangeStart, capacity);
+                rangeEnd = Arrays.copyOf(rangeEnd, capacity);
+                topStart = Arrays.copyOf(topStart, capacity);
+                topLength = Arrays.copyOf(topLength, capacity);
+            }
+            labels[nodes] = label;
+            rangeStart[nodes] = start;
+            rangeEnd[nodes] = end;
+            return nodes++;
+        }
+
+        void setTop(int node, int[] best) {
+            if (topUsed + best.length > top.length) {
+                top = Arrays.copyOf(top, Math.max(top.length * 2, topUsed + best.length));
+            }
+            System.arraycopy(best, 0, top, topUsed, best.length);
+            topStart[node] = topUsed;
+            topLength[node] = best.length;
+            topUsed += best.length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.medipol.javaFinal.bloom;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over 64-bit keys. Keys can only be added, a filter that holds too many removed keys
+ * is replaced by a new one built from the table. Adds and lookups are safe from any thread without
+ * locking, a key is visible to lookups once {@link #add(long)} returned.
+ * <p>
+ * Bit positions use double hashing of one mixed 64-bit hash, strings are reduced to such a key
+ * by {@link #key(CharSequence)} first.
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray(Math.toIntExact((bits + 63) >>> 6));
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Size a filter for the given number of keys
+     * @param expectedKeys keys the filter should hold at the given rate
+     * @param falsePositiveRate chance that a key never added is reported as present, once the filter holds
+     *                          the expected keys
+     */
+    public static BloomFilter create(long expectedKeys, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long keys = Math.max(1, expectedKeys);
+        long bits = Math.max(64, (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        int hashes = Math.max(1, (int) Math.round((double) bits / keys * LN2));
+        return new BloomFilter(bits, hashes);
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters, mixed again when the key is added or looked up
+     */
+    public static long key(CharSequence value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public void add(long key) {
+        long hash = mix(key);
+        long step = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    bitsSet.incrementAndGet();
+                    break;
+                }
+                current = witness;
+            }
+        }
+    }
+
+    /**
+     * @return false if the key was never added, true if it was or on a false positive
+     */
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        long step = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(hash + i * step, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False positive rate at the current fill, the chance that all bits of an absent key are set
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.get() / bits, hashes);
+    }
+
+    public long bitSize() {
+        return bits;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    /**
+     * Murmur3 finalizer, spreads sequential ids over all bits
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,295 @@
+package com.medipol.javaFinal.bloom;
+
+import com.medipol.javaFinal.event.CategoryChangedEvent;
+import com.medipol.javaFinal.event.InvalidationsLostEvent;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers lookups of product ids and category names that certainly do not exist without a query,
+ * from Bloom filters over the ids and names in the tables.
+ * <p>
+ * Keys are added when a row is inserted, as soon as Hibernate writes it and again after commit, and
+ * for every change event, which also covers native writes. Inserts of other instances arrive as remote
+ * events only through the cache invalidation bus, which must be enabled when several instances share
+ * the database; when it may have lost messages the filters are rebuilt. Deleted and renamed-away keys
+ * stay in the filters and only cost a query, until the periodic rebuild replaces each filter by one
+ * loaded from the table on the primary. Rows written with plain SQL outside the application are not
+ * seen before the next rebuild. Until the first build every key may exist.
+ * <p>
+ * Per filter, {@code app.negative-lookup.lookups} counts lookups by result: rejected without a
+ * query, passed, or passed and then not found in the table (a false positive).
+ * {@code app.negative-lookup.false-positive-rate} is the rate expected at the current fill and
+ * {@code app.negative-lookup.rebuild} times the rebuilds.
+ */
+public class NegativeLookupGuard implements PostCommitInsertEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NegativeLookupGuard.class);
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORY_NAMES = "category-names";
+
+    /** Smallest capacity a filter is built for, leaves room for inserts into an empty table */
+    private static final long MIN_KEYS = 1024;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double falsePositiveRate;
+    private final double headroom;
+    private final KeySet products;
+    private final KeySet categoryNames;
+
+    /**
+     * @param falsePositiveRate false positive rate of a freshly built filter once the table grew by the headroom
+     * @param headroom capacity of a filter relative to the rows it is built from, room for inserts
+     *                 before the next rebuild
+     */
+    public NegativeLookupGuard(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+                               double falsePositiveRate, double headroom) {
+        this.jdbcTemplate = jdbcTemplate;
+        // not read-only, so a replica lagging behind the primary never drops keys of recent inserts
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.falsePositiveRate = falsePositiveRate;
+        this.headroom = headroom;
+        this.products = new KeySet(PRODUCTS, meterRegistry);
+        this.categoryNames = new KeySet(CATEGORY_NAMES, meterRegistry);
+
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, this);
+        listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    }
+
+    /**
+     * @return false if no product has the id, true if one may have it
+     */
+    public boolean mightHaveProduct(Long id) {
+        return id == null || products.mightContain(id);
+    }
+
+    /**
+     * @return false if no category has the name, true if one may have it
+     */
+    public boolean mightHaveCategoryName(String name) {
+        return name == null || categoryNames.mightContain(BloomFilter.key(name));
+    }
+
+    /**
+     * Record that a product id passed the filter but was not found
+     */
+    public void productNotFound() {
+        products.falsePositives.increment();
+    }
+
+    /**
+     * Record that a category name passed the filter but was not found
+     */
+    public void categoryNameNotFound() {
+        categoryNames.falsePositives.increment();
+    }
+
+    /**
+     * First build once the application is up, lookups pass until then
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        rebuild();
+    }
+
+    /**
+     * Replace both filters by ones loaded from the tables, dropping deleted keys
+     */
+    @Scheduled(fixedDelayString = "${app.negative-lookup.rebuild-interval:10m}",
+            initialDelayString = "${app.negative-lookup.rebuild-interval:10m}")
+    public synchronized void rebuild() {
+        rebuild(products, "SELECT count(*) FROM products", "SELECT id FROM products",
+                resultSet -> resultSet.getLong(1));
+        rebuild(categoryNames, "SELECT count(*) FROM categories", "SELECT name FROM categories",
+                resultSet -> BloomFilter.key(resultSet.getString(1)));
+    }
+
+    /**
+     * Remote inserts may have been missed, only a rebuild brings their keys in
+     */
+    @EventListener(InvalidationsLostEvent.class)
+    public void onInvalidationsLost() {
+        rebuild();
+    }
+
+    /**
+     * Ids of changed products are added whether or not the row still exists, a deleted one only costs a query
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        event.productIds().forEach(products::add);
+    }
+
+    /**
+     * The event carries only the id, the new name is read after commit
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        jdbcTemplate.queryForList("SELECT name FROM categories WHERE id = ?", String.class, event.categoryId())
+                .forEach(name -> categoryNames.add(BloomFilter.key(name)));
+    }
+
+    /**
+     * Called when Hibernate inserts the row, so the transaction reads its own insert, and again
+     * after commit, so a rebuild that started in between does not miss it
+     */
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Product product) {
+            products.add(product.getId());
+        } else if (event.getEntity() instanceof Category category && category.getName() != null) {
+            categoryNames.add(BloomFilter.key(category.getName()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // a key of a rolled back insert only costs a query until the next rebuild
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> entity = persister.getMappedClass();
+        return entity == Product.class || entity == Category.class;
+    }
+
+    private void rebuild(KeySet keySet, String countQuery, String keysQuery, KeyReader keyReader) {
+        long started = System.nanoTime();
+        try {
+            Long rows = transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject(countQuery, Long.class));
+            BloomFilter filter = BloomFilter.create(
+                    Math.max(MIN_KEYS, (long) Math.ceil(rows * headroom)), falsePositiveRate);
+            // keys added from here on go to the new filter too, the scan below may not see them
+            keySet.startBuilding(filter);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(keysQuery);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                filter.add(keyReader.read(resultSet));
+            }));
+            keySet.install(filter);
+            logger.info("Built {} lookup filter for {} rows with {} bits in {} ms", keySet.name, rows,
+                    filter.bitSize(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            keySet.abandon();
+            logger.error("Building the {} lookup filter failed, keeping the previous one", keySet.name, e);
+        } finally {
+            keySet.rebuildTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface KeyReader {
+        long read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * The filter answering lookups and, during a rebuild, the one replacing it
+     */
+    private static final class KeySet {
+
+        private final String name;
+        private final Counter rejected;
+        private final Counter passed;
+        private final Counter falsePositives;
+        private final Timer rebuildTime;
+
+        private volatile BloomFilter filter;
+        // guarded by this
+        private BloomFilter building;
+
+        KeySet(String name, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.rejected = lookups(meterRegistry, name, "rejected");
+            this.passed = lookups(meterRegistry, name, "passed");
+            this.falsePositives = lookups(meterRegistry, name, "false-positive");
+            this.rebuildTime = Timer.builder("app.negative-lookup.rebuild")
+                    .description("Time to rebuild a lookup filter from its table")
+                    .tag("filter", name)
+                    .register(meterRegistry);
+            Gauge.builder("app.negative-lookup.false-positive-rate", this, KeySet::expectedFalsePositiveRate)
+                    .description("False positive rate expected at the current fill of the lookup filter")
+                    .tag("filter", name)
+                    .register(meterRegistry);
+        }
+
+        boolean mightContain(long key) {
+            BloomFilter current = filter;
+            if (current != null && !current.mightContain(key)) {
+                rejected.increment();
+                return false;
+            }
+            passed.increment();
+            return true;
+        }
+
+        synchronized void add(long key) {
+            if (filter != null) {
+                filter.add(key);
+            }
+            if (building != null) {
+                building.add(key);
+            }
+        }
+
+        synchronized void startBuilding(BloomFilter next) {
+            building = next;
+        }
+
+        synchronized void install(BloomFilter next) {
+            filter = next;
+            building = null;
+        }
+
+        synchronized void abandon() {
+            building = null;
+        }
+
+        double expectedFalsePositiveRate() {
+            BloomFilter current = filter;
+            return current == null ? Double.NaN : current.expectedFalsePositiveRate();
+        }
+
+        private static Counter lookups(MeterRegistry meterRegistry, String name, String result) {
+            return Counter.builder("app.negative-lookup.lookups")
+                    .description("Lookups answered by the filter, by result")
+                    .tag("filter", name)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.controller.ReactiveProductController;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * With AOT ({@code -Dspring.aot.enabled=true}, the Docker image) every {@code @ConditionalOnProperty}
+ * was evaluated when the image was built, a different value at runtime would be ignored silently.
+ * The application refuses to start instead, naming the toggles that have to be rebuilt.
+ */
+@Configuration
+public class AotConditionsConfig {
+
+    /** Toggles and the bean that exists only while the toggle is true */
+    static final Map<String, Class<?>> TOGGLES = Map.ofEntries(
+            Map.entry("app.datasource.routing.enabled", ReplicaRoutingConfig.class),
+            Map.entry("app.reactive.enabled", ReactiveProductController.class),
+            Map.entry("app.concurrency-limit.enabled", ConcurrencyLimitConfig.class),
+            Map.entry("app.cache-invalidation.enabled", CacheInvalidationConfig.class),
+            Map.entry("app.catalog-snapshot.enabled", CatalogSnapshotConfig.class),
+            Map.entry("app.autocomplete.enabled", AutocompleteConfig.class),
+            Map.entry("app.quantity-write-behind.enabled", QuantityWriteBehindConfig.class),
+            Map.entry("app.negative-lookup.enabled", NegativeLookupConfig.class),
+            Map.entry("app.query-count.enabled", QueryCountConfig.class),
+            Map.entry("app.product-archive.enabled", ProductArchiveConfig.class));
+
+    @Bean
+    public static SmartInitializingSingleton aotConditionsCheck(ListableBeanFactory beanFactory,
+                                                                Environment environment) {
+        return () -> {
+            if (!AotDetector.useGeneratedArtifacts()) {
+                return;
+            }
+            List<String> changed = changedToggles(beanFactory, environment);
+            if (!changed.isEmpty()) {
+                throw new IllegalStateException("Toggles differ from the values the AOT image was built with, "
+                        + "rebuild the image to change them: " + String.join(", ", changed));
+            }
+        };
+    }
+
+    /**
+     * @return the toggles whose runtime value does not match the beans in the context, sorted
+     */
+    static List<String> changedToggles(ListableBeanFactory beanFactory, Environment environment) {
+        return TOGGLES.entrySet().stream()
+                .filter(toggle -> environment.getProperty(toggle.getKey(), Boolean.class, false)
+                        != (beanFactory.getBeanNamesForType(toggle.getValue()).length > 0))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+}
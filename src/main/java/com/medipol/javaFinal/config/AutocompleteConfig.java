@@ -0,0 +1,32 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.service.AutocompleteService;
+import com.medipol.javaFinal.service.impl.AutocompleteServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * In-memory type-ahead over product and category names, see {@link AutocompleteServiceImpl}.
+ * Enabled with {@code app.autocomplete.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.autocomplete", name = "enabled", havingValue = "true")
+public class AutocompleteConfig {
+
+    @Bean
+    @ConfigurationProperties("app.autocomplete")
+    public AutocompleteProperties autocompleteProperties() {
+        return new AutocompleteProperties();
+    }
+
+    @Bean
+    public AutocompleteService autocompleteService(AutocompleteProperties properties, JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager) {
+        return new AutocompleteServiceImpl(jdbcTemplate, transactionManager, properties.getTopK(),
+                properties.getRebuildDelay(), properties.getCheckInterval());
+    }
+}
@@ -0,0 +1,29 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Autocomplete index, bound from {@code app.autocomplete.*}
+ */
+@Data
+public class AutocompleteProperties {
+
+    private boolean enabled;
+
+    /**
+     * Suggestions precomputed per prefix, also the largest limit a request may ask for
+     */
+    private int topK = 10;
+
+    /**
+     * Longest a change waits before the index is rebuilt, all changes within it share one rebuild
+     */
+    private Duration rebuildDelay = Duration.ofMinutes(1);
+
+    /**
+     * How often the tables are checked for changes no event was received for
+     */
+    private Duration checkInterval = Duration.ofMinutes(15);
+}
@@ -0,0 +1,55 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.invalidation.CacheInvalidationBus;
+import com.medipol.javaFinal.invalidation.InMemoryInvalidationTransport;
+import com.medipol.javaFinal.invalidation.InvalidationTransport;
+import com.medipol.javaFinal.invalidation.PostgresInvalidationTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Second-level cache coherence between instances, see {@link CacheInvalidationBus}.
+ * Enabled with {@code app.cache-invalidation.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cache-invalidation", name = "enabled", havingValue = "true")
+public class CacheInvalidationConfig {
+
+    @Bean
+    @ConfigurationProperties("app.cache-invalidation")
+    public CacheInvalidationProperties cacheInvalidationProperties() {
+        return new CacheInvalidationProperties();
+    }
+
+    /**
+     * Notifications go through the primary, so the listener connects to the configured datasource URL
+     */
+    @Bean
+    public InvalidationTransport invalidationTransport(CacheInvalidationProperties properties,
+                                                       DataSourceProperties dataSourceProperties,
+                                                       JdbcTemplate jdbcTemplate) {
+        return switch (properties.getTransport()) {
+            case POSTGRES -> new PostgresInvalidationTransport(jdbcTemplate, dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword(),
+                    properties.getChannel(), properties.getReconnectDelay());
+            case IN_MEMORY -> new InMemoryInvalidationTransport();
+        };
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(CacheInvalidationProperties properties,
+                                                     InvalidationTransport transport,
+                                                     EntityManagerFactory entityManagerFactory,
+                                                     ApplicationEventPublisher eventPublisher,
+                                                     MeterRegistry meterRegistry) {
+        return new CacheInvalidationBus(transport, entityManagerFactory, eventPublisher, meterRegistry,
+                properties.getCoalesceWindow());
+    }
+}
@@ -0,0 +1,38 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Cross-instance cache invalidation, bound from {@code app.cache-invalidation.*}
+ */
+@Data
+public class CacheInvalidationProperties {
+
+    public enum Transport {
+        POSTGRES, IN_MEMORY
+    }
+
+    private boolean enabled;
+
+    /**
+     * {@code postgres} for LISTEN/NOTIFY on the primary, {@code in-memory} for a single instance or tests
+     */
+    private Transport transport = Transport.POSTGRES;
+
+    /**
+     * Notification channel shared by all instances
+     */
+    private String channel = "cache_invalidation";
+
+    /**
+     * Changes within this window are sent as one message, each id once
+     */
+    private Duration coalesceWindow = Duration.ofMillis(5);
+
+    /**
+     * Wait before reopening a lost listening connection
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+}
@@ -0,0 +1,33 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.service.CatalogSnapshotService;
+import com.medipol.javaFinal.service.impl.CatalogSnapshotServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Columnar, memory-mapped copy of the catalog for analytics, see {@link CatalogSnapshotServiceImpl}.
+ * Enabled with {@code app.catalog-snapshot.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.catalog-snapshot", name = "enabled", havingValue = "true")
+public class CatalogSnapshotConfig {
+
+    @Bean
+    @ConfigurationProperties("app.catalog-snapshot")
+    public CatalogSnapshotProperties catalogSnapshotProperties() {
+        return new CatalogSnapshotProperties();
+    }
+
+    @Bean
+    public CatalogSnapshotService catalogSnapshotService(CatalogSnapshotProperties properties,
+                                                         JdbcTemplate jdbcTemplate,
+                                                         PlatformTransactionManager transactionManager) {
+        return new CatalogSnapshotServiceImpl(jdbcTemplate, transactionManager, properties.getFile(),
+                properties.getPriceAccuracy(), properties.getPriceBuckets());
+    }
+}
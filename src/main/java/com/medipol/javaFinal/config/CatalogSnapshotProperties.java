@@ -0,0 +1,39 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Memory-mapped catalog snapshot, bound from {@code app.catalog-snapshot.*}
+ */
+@Data
+public class CatalogSnapshotProperties {
+
+    private boolean enabled;
+
+    /**
+     * Reused across restarts when it was closed cleanly and the products table did not change since
+     */
+    private Path file = Path.of("data/catalog.snapshot");
+
+    /**
+     * How often the table is checked for changes made outside this instance, which trigger a rebuild
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(15);
+
+    /**
+     * Maximum relative error of the price percentiles, smaller values need more memory per category
+     */
+    private double priceAccuracy = 0.01;
+
+    /**
+     * Upper bounds of the price histogram buckets, a last bucket holds everything above
+     */
+    private List<BigDecimal> priceBuckets = List.of(new BigDecimal("10"), new BigDecimal("25"),
+            new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("250"), new BigDecimal("500"),
+            new BigDecimal("1000"));
+}
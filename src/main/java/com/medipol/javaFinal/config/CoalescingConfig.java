@@ -0,0 +1,26 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.util.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Concurrent identical reads of popular pages share one database query, see {@link SingleFlight}.
+ * Disabled with {@code app.coalescing.enabled=false}, every call then runs its own query.
+ */
+@Configuration
+public class CoalescingConfig {
+
+    @Bean
+    @ConfigurationProperties("app.coalescing")
+    public CoalescingProperties coalescingProperties() {
+        return new CoalescingProperties();
+    }
+
+    @Bean
+    public SingleFlight singleFlight(CoalescingProperties properties, MeterRegistry meterRegistry) {
+        return new SingleFlight(properties.isEnabled(), properties.getMaxWait(), meterRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Request coalescing of hot service reads, bound from {@code app.coalescing.*}
+ */
+@Data
+public class CoalescingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How long a caller waits for an identical call in flight before running its own
+     */
+    private Duration maxWait = Duration.ofSeconds(2);
+}
@@ -0,0 +1,48 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.web.AdaptiveConcurrencyLimiter;
+import com.medipol.javaFinal.web.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Load shedding for {@code /api/products} and {@code /api/categories}, see {@link ConcurrencyLimitFilter}.
+ * Enabled with {@code app.concurrency-limit.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    @ConfigurationProperties("app.concurrency-limit")
+    public ConcurrencyLimitProperties concurrencyLimitProperties() {
+        return new ConcurrencyLimitProperties();
+    }
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties,
+                                                         MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter(limiter(properties.getLookup()), limiter(properties.getList()),
+                properties.getRetryAfter(), meterRegistry);
+    }
+
+    /**
+     * Runs first, a rejected request should cost as little as possible
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/products/*", "/api/categories/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(ConcurrencyLimitProperties.Group group) {
+        return new AdaptiveConcurrencyLimiter(group.getInitialLimit(), group.getMinLimit(), group.getMaxLimit());
+    }
+}
@@ -0,0 +1,43 @@
+package com.medipol.javaFinal.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limits of the product and category API, bound from {@code app.concurrency-limit.*}
+ */
+@Data
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled;
+
+    /**
+     * Sent as {@code Retry-After} with a 503, whole seconds
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * Single products and categories by id
+     */
+    private Group lookup = new Group(20, 5, 200);
+
+    /**
+     * Lists, searches and batch requests
+     */
+    private Group list = new Group(10, 2, 50);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+
+        private int initialLimit;
+
+        private int minLimit;
+
+        private int maxLimit;
+    }
+}
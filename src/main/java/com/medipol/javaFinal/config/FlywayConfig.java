@@ -0,0 +1,25 @@
+package com.medipol.javaFinal.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Runs the migrations on startup, except for the CDS training run of the Docker build
+ * ({@code -Dspring.context.exit=onRefresh}), which has no database to migrate. With AOT
+ * {@code spring.flyway.enabled} is fixed at build time, so the check happens here instead.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(Environment environment) {
+        boolean trainingRun = environment.containsProperty("spring.context.exit");
+        return flyway -> {
+            if (!trainingRun) {
+                flyway.migrate();
+            }
+        };
+    }
+}
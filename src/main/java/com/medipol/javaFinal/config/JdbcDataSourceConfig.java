@@ -0,0 +1,27 @@
+package com.medipol.javaFinal.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC pool for JPA. Spring Boot skips its own DataSource as soon as an R2DBC
+ * ConnectionFactory is present, so with the reactive read path both have to be declared.
+ * Replaced by {@link ReplicaRoutingConfig} when routing is enabled.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class JdbcDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    @ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "false",
+            matchIfMissing = true)
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.bloom.NegativeLookupGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Bloom filters answering lookups of missing product ids and category names, see {@link NegativeLookupGuard}.
+ * Enabled with {@code app.negative-lookup.enabled=true}; instances sharing a database also need
+ * {@code app.cache-invalidation.enabled=true} to learn about each other's inserts.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.negative-lookup", name = "enabled", havingValue = "true")
+public class NegativeLookupConfig {
+
+    @Bean
+    @ConfigurationProperties("app.negative-lookup")
+    public NegativeLookupProperties negativeLookupProperties() {
+        return new NegativeLookupProperties();
+    }
+
+    @Bean
+    public NegativeLookupGuard negativeLookupGuard(NegativeLookupProperties properties, JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager,
+                                                   EntityManagerFactory entityManagerFactory,
+                                                   MeterRegistry meterRegistry) {
+        return new NegativeLookupGuard(jdbcTemplate, transactionManager, entityManagerFactory, meterRegistry,
+                properties.getFalsePositiveRate(), properties.getHeadroom());
+    }
+}
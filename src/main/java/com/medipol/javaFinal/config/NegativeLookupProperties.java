@@ -0,0 +1,29 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Negative lookup filters, bound from {@code app.negative-lookup.*}
+ */
+@Data
+public class NegativeLookupProperties {
+
+    private boolean enabled;
+
+    /**
+     * False positive rate a filter is sized for, reached once its table grew by the headroom
+     */
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Capacity of a filter relative to the rows it is built from
+     */
+    private double headroom = 1.5;
+
+    /**
+     * How often the filters are rebuilt from the tables, which drops deleted ids and old names
+     */
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+}
@@ -0,0 +1,36 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.archive.ProductArchiver;
+import com.medipol.javaFinal.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Scheduled archival of inactive products, see {@link ProductArchiver}.
+ * Enabled with {@code app.product-archive.enabled=true}; reading and restoring archived
+ * products works either way.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.product-archive", name = "enabled", havingValue = "true")
+public class ProductArchiveConfig {
+
+    @Bean
+    @ConfigurationProperties("app.product-archive")
+    public ProductArchiveProperties productArchiveProperties() {
+        return new ProductArchiveProperties();
+    }
+
+    @Bean
+    public ProductArchiver productArchiver(ProductArchiveProperties properties, ProductRepository productRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        return new ProductArchiver(productRepository, transactionManager, eventPublisher, meterRegistry,
+                properties.getOutOfStockDays(), properties.getBatchSize(), properties.getBatchPause(),
+                properties.getMaxDuration());
+    }
+}
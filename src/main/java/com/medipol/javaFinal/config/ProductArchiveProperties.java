@@ -0,0 +1,39 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Archival of inactive products, bound from {@code app.product-archive.*}
+ */
+@Data
+public class ProductArchiveProperties {
+
+    private boolean enabled;
+
+    /**
+     * When a run starts, a cron expression in the off-peak window
+     */
+    private String cron = "0 0 3 * * *";
+
+    /**
+     * Days a product must have been out of stock before it is archived
+     */
+    private int outOfStockDays = 30;
+
+    /**
+     * Products moved per statement and transaction
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Pause between two batches
+     */
+    private Duration batchPause = Duration.ofMillis(100);
+
+    /**
+     * Time after which a run stops, so it ends with the off-peak window
+     */
+    private Duration maxDuration = Duration.ofHours(1);
+}
@@ -0,0 +1,38 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.repository.ProductRepository;
+import com.medipol.javaFinal.writebehind.QuantityWriteBuffer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+
+/**
+ * Write-behind of single product quantity updates, see {@link QuantityWriteBuffer}.
+ * Enabled with {@code app.quantity-write-behind.enabled=true}; the journal directory must be on
+ * local disk that survives a restart of the instance.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.quantity-write-behind", name = "enabled", havingValue = "true")
+public class QuantityWriteBehindConfig {
+
+    @Bean
+    @ConfigurationProperties("app.quantity-write-behind")
+    public QuantityWriteBehindProperties quantityWriteBehindProperties() {
+        return new QuantityWriteBehindProperties();
+    }
+
+    @Bean
+    public QuantityWriteBuffer quantityWriteBuffer(QuantityWriteBehindProperties properties,
+                                                   ProductRepository productRepository,
+                                                   PlatformTransactionManager transactionManager,
+                                                   ApplicationEventPublisher eventPublisher) throws IOException {
+        return new QuantityWriteBuffer(productRepository, transactionManager, eventPublisher,
+                properties.getJournalDirectory(), properties.getShards(), properties.getMaxEntries(),
+                properties.getMaxPending());
+    }
+}
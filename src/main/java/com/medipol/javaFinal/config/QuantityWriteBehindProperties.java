@@ -0,0 +1,41 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Write-behind of quantity updates, bound from {@code app.quantity-write-behind.*}
+ */
+@Data
+public class QuantityWriteBehindProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Time between flushes of the buffered quantities
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * Buffered products that trigger an early flush, also the size of one update statement
+     */
+    private int maxEntries = 1000;
+
+    /**
+     * Buffered products beyond which updates of further products are written through, bounds the
+     * buffer while flushes fall behind or fail
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * Independently locked parts of the buffer, a power of two
+     */
+    private int shards = 16;
+
+    /**
+     * Directory of the journal that makes buffered quantities survive a crash
+     */
+    private Path journalDirectory = Path.of("data/quantity-journal");
+}
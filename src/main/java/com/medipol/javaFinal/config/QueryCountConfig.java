@@ -0,0 +1,68 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.querycount.CountingDataSource;
+import com.medipol.javaFinal.querycount.EntityLoadCounter;
+import com.medipol.javaFinal.querycount.QueryCountFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request SQL statement, row and entity counts, see {@link QueryCountFilter}.
+ * Enabled with {@code app.query-count.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.query-count", name = "enabled", havingValue = "true")
+public class QueryCountConfig {
+
+    private static final String DATA_SOURCE = "dataSource";
+
+    @Bean
+    @ConfigurationProperties("app.query-count")
+    public QueryCountProperties queryCountProperties() {
+        return new QueryCountProperties();
+    }
+
+    /**
+     * Wraps the application's DataSource, whichever configuration declared it, so every connection counts
+     */
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource) {
+                    return new CountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryCountFilter queryCountFilter(QueryCountProperties properties, MeterRegistry meterRegistry,
+                                             EntityManagerFactory entityManagerFactory) {
+        EntityLoadCounter.register(entityManagerFactory);
+        return new QueryCountFilter(meterRegistry, properties.isHeaders());
+    }
+
+    /**
+     * Runs right after the concurrency limit, so the counts cover everything the request does
+     */
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilterRegistration(QueryCountFilter filter) {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/products/*", "/api/categories/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
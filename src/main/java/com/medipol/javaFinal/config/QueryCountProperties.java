@@ -0,0 +1,17 @@
+package com.medipol.javaFinal.config;
+
+import lombok.Data;
+
+/**
+ * Per-request query counts, bound from {@code app.query-count.*}
+ */
+@Data
+public class QueryCountProperties {
+
+    private boolean enabled;
+
+    /**
+     * Return the counts as response headers, buffering each response to do so
+     */
+    private boolean headers;
+}
@@ -0,0 +1,105 @@
+package com.medipol.javaFinal.config;
+
+import com.medipol.javaFinal.datasource.ReadYourWritesFilter;
+import com.medipol.javaFinal.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read/write splitting: {@code @Transactional(readOnly = true)} work goes to replica pools,
+ * everything else to the primary. Enabled with {@code app.datasource.routing.enabled=true}.
+ * Each pool publishes {@code hikaricp.*} metrics tagged with its pool name.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("app.datasource.routing")
+    public ReplicaRoutingProperties replicaRoutingProperties() {
+        return new ReplicaRoutingProperties();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(ReplicaRoutingProperties properties,
+                                                             DataSourceProperties dataSourceProperties,
+                                                             MeterRegistry meterRegistry) {
+        HikariConfig primaryConfig = properties.getPrimary();
+        if (!StringUtils.hasText(primaryConfig.getJdbcUrl())) {
+            primaryConfig.setJdbcUrl(dataSourceProperties.determineUrl());
+        }
+        if (primaryConfig.getUsername() == null) {
+            primaryConfig.setUsername(dataSourceProperties.determineUsername());
+            primaryConfig.setPassword(dataSourceProperties.determinePassword());
+        }
+        if (primaryConfig.getPoolName() == null) {
+            primaryConfig.setPoolName("primary");
+        }
+        // the pools are not beans, so Spring Boot does not bind their metrics
+        primaryConfig.setMetricRegistry(meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            HikariConfig replicaConfig = properties.getReplicas().get(i);
+            if (replicaConfig.getUsername() == null) {
+                replicaConfig.setUsername(primaryConfig.getUsername());
+                replicaConfig.setPassword(primaryConfig.getPassword());
+            }
+            if (replicaConfig.getPoolName() == null) {
+                replicaConfig.setPoolName("replica-" + i);
+            }
+            replicaConfig.setReadOnly(true);
+            replicaConfig.setMetricRegistry(meterRegistry);
+            // replicas may be down at startup, the health check brings them into rotation later
+            replicaConfig.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(replicaConfig));
+        }
+        return new ReplicaRoutingDataSource(new HikariDataSource(primaryConfig), replicas, properties.getMaxReplicaLag());
+    }
+
+    /**
+     * Defers the physical connection, and with it the routing decision, until the first statement
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * With open-in-view a session lives for the whole request. Releasing its connection after each
+     * transaction lets a read on a replica be followed by a write on the primary in the same request.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(
+                "hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesFilter(properties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilterRegistration(ReadYourWritesFilter filter) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,37 @@
+package com.medipol.javaFinal.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pools used for read/write splitting, bound from {@code app.datasource.routing.*}.
+ * Each pool accepts any Hikari setting, e.g. {@code replicas[0].maximum-pool-size}.
+ */
+@Data
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Primary pool, url and credentials default to {@code spring.datasource.*}
+     */
+    private HikariConfig primary = new HikariConfig();
+
+    private List<HikariConfig> replicas = new ArrayList<>();
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Replicas further behind the primary are taken out of rotation
+     */
+    private Duration maxReplicaLag = Duration.ofSeconds(10);
+
+    /**
+     * How long a client's reads stay on the primary after it wrote, zero disables it
+     */
+    private Duration readYourWritesWindow = Duration.ZERO;
+}
@@ -0,0 +1,79 @@
+package com.medipol.javaFinal.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.medipol.javaFinal.controller.CategoryController;
+import com.medipol.javaFinal.controller.ProductController;
+import com.medipol.javaFinal.web.CategoryJsonSerializer;
+import com.medipol.javaFinal.web.FieldSelection;
+import com.medipol.javaFinal.web.FieldSelectionInterceptor;
+import com.medipol.javaFinal.web.ProductColumnarHttpMessageConverter;
+import com.medipol.javaFinal.web.ProductJsonSerializer;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import org.springdoc.core.customizers.OperationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary response formats offered next to JSON through content negotiation.
+ * The Jackson based converters reuse the application's mapper builder so they
+ * serialize exactly like the JSON endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Appended after the default converters so JSON stays the answer to a wildcard Accept header
+     */
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProductColumnarHttpMessageConverter());
+    }
+
+    /**
+     * Unknown names in the {@code fields} parameter are rejected with 400 by the controllers
+     */
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new FieldSelectionInterceptor(Map.of(
+                ProductController.class, ProductJsonSerializer.FIELDS,
+                CategoryController.class, CategoryJsonSerializer.FIELDS)));
+    }
+
+    @Bean
+    public OperationCustomizer fieldSelectionParameterCustomizer() {
+        return (operation, handlerMethod) -> {
+            Class<?> controller = handlerMethod.getBeanType();
+            if (controller == ProductController.class || controller == CategoryController.class) {
+                operation.addParametersItem(new Parameter()
+                        .in("query")
+                        .name(FieldSelection.PARAMETER)
+                        .required(false)
+                        .description("Comma separated fields to return, e.g. id,name,price or category.name")
+                        .schema(new StringSchema()));
+            }
+            return operation;
+        };
+    }
+}
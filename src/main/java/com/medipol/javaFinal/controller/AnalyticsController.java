@@ -0,0 +1,109 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.dto.InventorySummary;
+import com.medipol.javaFinal.dto.PriceDistributionSummary;
+import com.medipol.javaFinal.dto.ProductSummary;
+import com.medipol.javaFinal.service.CatalogSnapshotService;
+import com.medipol.javaFinal.service.NotReadyException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Catalog analytics answered from the columnar snapshot, without loading product entities
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@ConditionalOnProperty(prefix = "app.catalog-snapshot", name = "enabled", havingValue = "true")
+@Tag(name = "Analytics API", description = "Inventory aggregates and rankings over the catalog snapshot")
+public class AnalyticsController {
+
+    private static final int MAX_PERCENTILES = 20;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    public AnalyticsController(CatalogSnapshotService catalogSnapshotService) {
+        this.catalogSnapshotService = catalogSnapshotService;
+    }
+
+    @GetMapping("/inventory")
+    @Operation(summary = "Get inventory totals", description = "Returns product count, total quantity and inventory value")
+    public ResponseEntity<InventorySummary> getInventorySummary() {
+        return ResponseEntity.ok(catalogSnapshotService.getInventorySummary());
+    }
+
+    @GetMapping("/inventory/by-category")
+    @Operation(summary = "Get inventory totals per category", description = "Returns product count, total quantity and inventory value of each category")
+    public ResponseEntity<List<InventorySummary>> getInventoryByCategory() {
+        return ResponseEntity.ok(catalogSnapshotService.getInventoryByCategory());
+    }
+
+    @GetMapping("/products/price-ranking")
+    @Operation(summary = "Rank products by price", description = "Returns the most or least expensive products, optionally within one category")
+    public ResponseEntity<List<ProductSummary>> getProductsRankedByPrice(
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) Long categoryId) {
+        if (limit < 1 || limit > ProductController.MAX_BATCH_SIZE
+                || !(order.equalsIgnoreCase("asc") || order.equalsIgnoreCase("desc"))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(catalogSnapshotService.getProductsRankedByPrice(
+                order.equalsIgnoreCase("desc"), limit, categoryId));
+    }
+
+    @GetMapping("/products/most-expensive")
+    @Operation(summary = "Get the most expensive product", description = "Returns the product with the highest price")
+    public ResponseEntity<ProductSummary> getMostExpensiveProduct() {
+        return catalogSnapshotService.getMostExpensiveProduct()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/products/low-stock")
+    @Operation(summary = "Get low stock products", description = "Returns up to limit products with a quantity below the threshold")
+    public ResponseEntity<List<ProductSummary>> getLowStockProducts(
+            @RequestParam(defaultValue = "10") int threshold,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > ProductController.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(catalogSnapshotService.getLowStockProducts(threshold, limit));
+    }
+
+    @GetMapping("/products/count-above-price")
+    @Operation(summary = "Count products above a price", description = "Returns the number of products more expensive than the given price")
+    public ResponseEntity<Long> countProductsWithPriceHigherThan(@RequestParam BigDecimal price) {
+        return ResponseEntity.ok(catalogSnapshotService.countProductsWithPriceHigherThan(price));
+    }
+
+    @GetMapping("/price-distribution")
+    @Operation(summary = "Get the price distribution", description = "Returns approximate price percentiles and a price histogram, optionally within one category")
+    public ResponseEntity<PriceDistributionSummary> getPriceDistribution(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "50,90,95,99") List<Double> percentiles) {
+        if (percentiles.isEmpty() || percentiles.size() > MAX_PERCENTILES
+                || percentiles.stream().anyMatch(percentile -> percentile == null || !(percentile > 0 && percentile <= 100))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return catalogSnapshotService.getPriceDistribution(categoryId, percentiles)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * The snapshot is built after startup, until then there is nothing to answer from
+     */
+    @ExceptionHandler(NotReadyException.class)
+    public ResponseEntity<Void> handleSnapshotNotReady() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.config.AutocompleteProperties;
+import com.medipol.javaFinal.dto.Suggestion;
+import com.medipol.javaFinal.service.AutocompleteService;
+import com.medipol.javaFinal.service.NotReadyException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Type-ahead for the storefront search box, answered from memory
+ */
+@RestController
+@RequestMapping("/api/autocomplete")
+@ConditionalOnProperty(prefix = "app.autocomplete", name = "enabled", havingValue = "true")
+@Tag(name = "Autocomplete API", description = "Product and category name suggestions")
+public class AutocompleteController {
+
+    private final AutocompleteService autocompleteService;
+    private final int maxLimit;
+
+    @Autowired
+    public AutocompleteController(AutocompleteService autocompleteService, AutocompleteProperties properties) {
+        this.autocompleteService = autocompleteService;
+        this.maxLimit = properties.getTopK();
+    }
+
+    @GetMapping
+    @Operation(summary = "Suggest names", description = "Returns product and category names with a word starting with the prefix, most stocked first")
+    public ResponseEntity<List<Suggestion>> suggest(@RequestParam String prefix,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(autocompleteService.suggest(prefix, limit));
+    }
+
+    /**
+     * The index is built after startup, until then there is nothing to answer from
+     */
+    @ExceptionHandler(NotReadyException.class)
+    public ResponseEntity<Void> handleIndexNotReady() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+}
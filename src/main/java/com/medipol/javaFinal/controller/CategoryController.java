@@ -5,8 +5,13 @@ import com.medipol.javaFinal.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import com.medipol.javaFinal.web.EntityTags;
+import com.medipol.javaFinal.web.InvalidFieldSelectionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -36,7 +41,7 @@ public class CategoryController {
     public ResponseEntity<Category> getCategoryById(@PathVariable Long id) {
         System.out.println("GET METHOD CALLED: getCategoryById");
         return categoryService.getCategoryById(id)
-                .map(ResponseEntity::ok)
+                .map(category -> ResponseEntity.ok().eTag(EntityTags.of(category.getVersion())).body(category))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -48,26 +53,26 @@ public class CategoryController {
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
-    @Operation(summary = "Update a category", description = "Updates an existing category by ID")
-    public ResponseEntity<Category> updateCategory(@PathVariable Long id, @Valid @RequestBody Category category) {
+    @Operation(summary = "Update a category", description = "Updates an existing category by ID, honoring an If-Match version precondition")
+    public ResponseEntity<Category> updateCategory(
+            @PathVariable Long id,
+            @Valid @RequestBody Category category,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         System.out.println("PUT METHOD CALLED: updateCategory");
-        return categoryService.getCategoryById(id)
-                .map(existingCategory -> {
-                    category.setId(id);
-                    return ResponseEntity.ok(categoryService.saveCategory(category));
-                })
+        return categoryService.updateCategory(id, category, EntityTags.expectedVersion(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
-    @Operation(summary = "Delete a category", description = "Deletes an existing category by ID")
-    public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
+    @Operation(summary = "Delete a category", description = "Deletes an existing category and its products by ID, honoring an If-Match version precondition")
+    public ResponseEntity<Void> deleteCategory(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         System.out.println("DELETE METHOD CALLED: deleteCategory");
-        if (categoryService.getCategoryById(id).isPresent()) {
-            categoryService.deleteCategory(id);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+        return categoryService.deleteCategory(id, EntityTags.expectedVersion(ifMatch))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     @RequestMapping(value = "/search", method = RequestMethod.GET)
@@ -88,11 +93,8 @@ public class CategoryController {
     @Operation(summary = "Enable a category", description = "Enables a category")
     public ResponseEntity<Category> enableCategory(@PathVariable Long id) {
         System.out.println("PATCH METHOD CALLED: enableCategory");
-        return categoryService.getCategoryById(id)
-                .map(category -> {
-                    category.setEnabled(true);
-                    return ResponseEntity.ok(categoryService.saveCategory(category));
-                })
+        return categoryService.setCategoryEnabled(id, true)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -100,11 +102,18 @@ public class CategoryController {
     @Operation(summary = "Disable a category", description = "Disables a category")
     public ResponseEntity<Category> disableCategory(@PathVariable Long id) {
         System.out.println("PATCH METHOD CALLED: disableCategory");
-        return categoryService.getCategoryById(id)
-                .map(category -> {
-                    category.setEnabled(false);
-                    return ResponseEntity.ok(categoryService.saveCategory(category));
-                })
+        return categoryService.setCategoryEnabled(id, false)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
-} 
\ No newline at end of file
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleVersionMismatch() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    @ExceptionHandler(InvalidFieldSelectionException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidFieldSelection(InvalidFieldSelectionException e) {
+        return ResponseEntity.badRequest().body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+}
\ No newline at end of file
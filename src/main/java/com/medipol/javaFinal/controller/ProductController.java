@@ -1,16 +1,31 @@
 package com.medipol.javaFinal.controller;
 
+import com.medipol.javaFinal.dto.BatchItemResult;
+import com.medipol.javaFinal.dto.PageResponse;
+import com.medipol.javaFinal.dto.QuantityUpdate;
 import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.query.InvalidFilterException;
+import com.medipol.javaFinal.query.ProductField;
+import com.medipol.javaFinal.query.ProductFilter;
 import com.medipol.javaFinal.service.ProductService;
+import com.medipol.javaFinal.service.UnknownCategoryException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import com.medipol.javaFinal.web.EntityTags;
+import com.medipol.javaFinal.web.InvalidFieldSelectionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -18,6 +33,9 @@ import java.util.List;
 @Tag(name = "Product API", description = "Operations related to products")
 public class ProductController {
 
+    /** Upper bound for the number of items in one batch request */
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final ProductService productService;
 
     @Autowired
@@ -31,11 +49,38 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get products by IDs", description = "Returns the products with the given IDs in request order, unknown IDs are skipped")
+    public ResponseEntity<List<Product>> getProductsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Query products with a filter expression",
+            description = "Returns one page of the products matching a filter such as price>100 and quantity<10 and category=5, "
+                    + "sorted by comma separated fields where a leading - sorts descending")
+    public ResponseEntity<PageResponse<Product>> queryProducts(
+            @RequestParam(name = ProductFilter.PARAMETER, required = false) String filter,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        if (page < 0 || size < 1 || size > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.queryProducts(
+                ProductFilter.parse(filter), PageRequest.of(page, size, parseSort(sort))));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get product by ID", description = "Returns a single product by its ID")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+    @Operation(summary = "Get product by ID", description = "Returns a single product by its ID, with includeArchived also an archived one")
+    public ResponseEntity<Product> getProductById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return productService.getProductById(id, includeArchived)
+                .map(product -> ResponseEntity.ok().eTag(EntityTags.of(product.getVersion())).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -45,25 +90,34 @@ public class ProductController {
         return new ResponseEntity<>(productService.saveProduct(product), HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create or update products in batch", description = "Creates products without an ID and updates products with one in a single transaction, returning one result per item")
+    public ResponseEntity<List<BatchItemResult>> saveProducts(@RequestBody List<Product> products) {
+        if (products.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.saveProducts(products));
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Update a product", description = "Updates an existing product by ID")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product product) {
-        return productService.getProductById(id)
-                .map(existingProduct -> {
-                    product.setId(id);
-                    return ResponseEntity.ok(productService.saveProduct(product));
-                })
+    @Operation(summary = "Update a product", description = "Updates an existing product by ID, honoring an If-Match version precondition")
+    public ResponseEntity<Product> updateProduct(
+            @PathVariable Long id,
+            @Valid @RequestBody Product product,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.updateProduct(id, product, EntityTags.expectedVersion(ifMatch))
+                .map(updated -> ResponseEntity.ok().eTag(EntityTags.of(updated.getVersion())).body(updated))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete a product", description = "Deletes an existing product by ID")
-    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        if (productService.getProductById(id).isPresent()) {
-            productService.deleteProduct(id);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+    @Operation(summary = "Delete a product", description = "Deletes an existing product by ID, honoring an If-Match version precondition")
+    public ResponseEntity<Void> deleteProduct(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.deleteProduct(id, EntityTags.expectedVersion(ifMatch))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
     }
 
     @GetMapping("/category/{categoryId}")
@@ -73,9 +127,11 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Search products by name", description = "Returns products that contain the search term in their name")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        return ResponseEntity.ok(productService.searchProductsByName(name));
+    @Operation(summary = "Search products by name", description = "Returns products that contain the search term in their name, with includeArchived followed by archived ones")
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(productService.searchProductsByName(name, includeArchived));
     }
 
     @GetMapping("/price-range")
@@ -100,4 +156,55 @@ public class ProductController {
         boolean updated = productService.updateProductQuantity(id, quantity);
         return updated ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
     }
+
+    @PatchMapping("/quantities")
+    @Operation(summary = "Update product quantities in batch", description = "Updates the quantities of several products in a single transaction, returning one result per item")
+    public ResponseEntity<List<BatchItemResult>> updateProductQuantities(@RequestBody List<QuantityUpdate> updates) {
+        if (updates.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.updateProductQuantities(updates));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleVersionMismatch() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    @ExceptionHandler(UnknownCategoryException.class)
+    public ResponseEntity<ProblemDetail> handleUnknownCategory(UnknownCategoryException e) {
+        return ResponseEntity.badRequest().body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidFieldSelectionException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidFieldSelection(InvalidFieldSelectionException e) {
+        return ResponseEntity.badRequest().body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidFilterException.class)
+    public ResponseEntity<ProblemDetail> handleInvalidFilter(InvalidFilterException e) {
+        return ResponseEntity.badRequest().body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()));
+    }
+
+    /**
+     * Comma separated fields, a leading - sorts descending. The id is appended so pages are stable.
+     */
+    private static Sort parseSort(String sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        boolean byId = false;
+        for (String part : sort.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            boolean descending = trimmed.startsWith("-");
+            ProductField field = ProductField.of(descending ? trimmed.substring(1) : trimmed);
+            byId |= field == ProductField.ID;
+            orders.add(descending ? Sort.Order.desc(field.sortProperty()) : Sort.Order.asc(field.sortProperty()));
+        }
+        if (!byId) {
+            orders.add(Sort.Order.asc(ProductField.ID.sortProperty()));
+        }
+        return Sort.by(orders);
+    }
 }
\ No newline at end of file
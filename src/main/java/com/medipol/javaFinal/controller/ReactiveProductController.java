@@ -0,0 +1,88 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.ReactiveProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Read-only mirror of the {@link ProductController} GET endpoints on R2DBC.
+ * The request thread is released while the query runs; with {@code Accept: application/x-ndjson}
+ * products are streamed one per line as the database produces them, otherwise a JSON array is returned.
+ * <p>
+ * Reads go straight to the primary over R2DBC: they see neither the second-level cache nor quantities
+ * still held by the write-behind buffer, and are not routed to replicas.
+ */
+@RestController
+@RequestMapping(value = "/api/reactive/products",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+@ConditionalOnProperty(prefix = "app.reactive", name = "enabled", havingValue = "true")
+@Tag(name = "Reactive Product API", description = "Non-blocking product reads")
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @Autowired
+    public ReactiveProductController(ReactiveProductService reactiveProductService) {
+        this.reactiveProductService = reactiveProductService;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get all products", description = "Returns a list of all products in the system")
+    public Flux<Product> getAllProducts() {
+        return reactiveProductService.getAllProducts();
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get products by IDs", description = "Returns the products with the given IDs in request order, unknown IDs are skipped")
+    public ResponseEntity<Flux<Product>> getProductsByIds(@RequestParam List<Long> ids) {
+        if (ids.size() > ProductController.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(reactiveProductService.getProductsByIds(ids));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get product by ID", description = "Returns a single product by its ID")
+    public Mono<ResponseEntity<Product>> getProductById(@PathVariable Long id) {
+        return reactiveProductService.getProductById(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/category/{categoryId}")
+    @Operation(summary = "Get products by category", description = "Returns all products in a specific category")
+    public Flux<Product> getProductsByCategory(@PathVariable Long categoryId) {
+        return reactiveProductService.getProductsByCategory(categoryId);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search products by name", description = "Returns products that contain the search term in their name")
+    public Flux<Product> searchProducts(@RequestParam String name) {
+        return reactiveProductService.searchProductsByName(name);
+    }
+
+    @GetMapping("/price-range")
+    @Operation(summary = "Get products by price range", description = "Returns products within the specified price range")
+    public Flux<Product> getProductsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice) {
+        return reactiveProductService.getProductsByPriceRange(minPrice, maxPrice);
+    }
+
+    @GetMapping("/low-stock")
+    @Operation(summary = "Get low stock products", description = "Returns all products with low stock (less than 10)")
+    public Flux<Product> getLowStockProducts() {
+        return reactiveProductService.getLowStockProducts();
+    }
+}
@@ -0,0 +1,63 @@
+package com.medipol.javaFinal.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pins a client's reads to the primary for a short window after that client wrote,
+ * so it does not read stale data from a lagging replica.
+ * Clients are identified by the {@code X-Client-Id} header, falling back to the remote address.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String client = clientKey(request);
+        Long lastWrite = lastWrites.get(client);
+        if (lastWrite != null && System.nanoTime() - lastWrite < windowNanos) {
+            ReplicaRoutingContext.requirePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (ReplicaRoutingContext.hasWritten()) {
+                lastWrites.put(client, System.nanoTime());
+            }
+            ReplicaRoutingContext.clear();
+        }
+    }
+
+    /**
+     * Forget clients whose window has passed
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,37 @@
+package com.medipol.javaFinal.datasource;
+
+/**
+ * Per-thread routing hints for {@link ReplicaRoutingDataSource}
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> WROTE_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    /**
+     * Send read-only transactions of the current thread to the primary as well
+     */
+    public static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static void markWrite() {
+        WROTE_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static boolean hasWritten() {
+        return Boolean.TRUE.equals(WROTE_TO_PRIMARY.get());
+    }
+
+    public static void clear() {
+        PRIMARY_REQUIRED.remove();
+        WROTE_TO_PRIMARY.remove();
+    }
+}
@@ -0,0 +1,139 @@
+package com.medipol.javaFinal.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource that sends read-only transactions to healthy replicas (round robin)
+ * and everything else to the primary.
+ * <p>
+ * The routing decision is taken when a connection is requested, so this data source
+ * must be wrapped in a {@code LazyConnectionDataSourceProxy}: by the time the first
+ * statement runs the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxReplicaLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Duration maxReplicaLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxReplicaLag = maxReplicaLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly || ReplicaRoutingContext.isPrimaryRequired()) {
+            if (!readOnly && TransactionSynchronizationManager.isActualTransactionActive()) {
+                ReplicaRoutingContext.markWrite();
+            }
+            return primary.getConnection();
+        }
+
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            replica.markDown(e.getMessage());
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Credentials are configured per pool");
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Probe every replica and take it out of rotation while it is unreachable
+     * or lags behind the primary by more than the configured maximum
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval:5s}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                double lagSeconds = resultSet.getDouble(1);
+                if (lagSeconds * 1000 > maxReplicaLag.toMillis()) {
+                    replica.markDown("replication lag " + lagSeconds + "s");
+                } else {
+                    replica.markUp();
+                }
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    public int healthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void markDown(String reason) {
+            if (healthy) {
+                logger.warn("Replica {} taken out of rotation: {}", dataSource.getPoolName(), reason);
+            }
+            healthy = false;
+        }
+
+        private void markUp() {
+            if (!healthy) {
+                logger.info("Replica {} back in rotation", dataSource.getPoolName());
+            }
+            healthy = true;
+        }
+    }
+}
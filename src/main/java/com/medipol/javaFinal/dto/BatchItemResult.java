@@ -0,0 +1,37 @@
+package com.medipol.javaFinal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch request, {@code index} is its position in the request body
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND,
+        INVALID
+    }
+
+    private int index;
+
+    private Long id;
+
+    private Status status;
+
+    private String message;
+
+    public static BatchItemResult of(int index, Long id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult invalid(int index, Long id, String message) {
+        return new BatchItemResult(index, id, Status.INVALID, message);
+    }
+}
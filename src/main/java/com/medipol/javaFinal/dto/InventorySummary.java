@@ -0,0 +1,26 @@
+package com.medipol.javaFinal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Stock totals over all products or the products of one category
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySummary {
+
+    /** Null for the totals over all products */
+    private Long categoryId;
+
+    private long productCount;
+
+    private long totalQuantity;
+
+    /** Sum of price times quantity */
+    private BigDecimal inventoryValue;
+}
@@ -0,0 +1,44 @@
+package com.medipol.javaFinal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate price percentiles and a price histogram over all products or the products of one category
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceDistributionSummary {
+
+    /** Null for the distribution over all products */
+    private Long categoryId;
+
+    private long productCount;
+
+    /** Price at each requested percentile, keyed by the percentile */
+    private Map<String, BigDecimal> percentiles;
+
+    private List<PriceBucket> histogram;
+
+    /**
+     * Products priced at least {@code from} and below {@code to}
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+
+        private BigDecimal from;
+
+        /** Null for the last bucket */
+        private BigDecimal to;
+
+        private long count;
+    }
+}
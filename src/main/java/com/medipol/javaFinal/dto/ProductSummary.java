@@ -0,0 +1,26 @@
+package com.medipol.javaFinal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Product fields held by the catalog snapshot, returned by the analytics endpoints
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummary {
+
+    private Long id;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private Integer quantity;
+
+    private Long categoryId;
+}
@@ -0,0 +1,18 @@
+package com.medipol.javaFinal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of a batch quantity update
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuantityUpdate {
+
+    private Long id;
+
+    private Integer quantity;
+}
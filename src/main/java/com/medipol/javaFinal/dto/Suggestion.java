@@ -0,0 +1,22 @@
+package com.medipol.javaFinal.dto;
+
+import com.medipol.javaFinal.autocomplete.SuggestionIndex;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A product or category name offered while the user types
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+    private SuggestionIndex.Type type;
+
+    private String text;
+
+    /** Category id, or product id when exactly one product has this name; null otherwise */
+    private Long id;
+}
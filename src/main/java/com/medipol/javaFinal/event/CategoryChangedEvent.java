@@ -0,0 +1,18 @@
+package com.medipol.javaFinal.event;
+
+/**
+ * Published by the write path once a category was inserted or updated, deletions publish
+ * {@link ProductChangedEvent#categoryDeleted(Long)} instead
+ * @param categoryId category whose row changed
+ * @param remote true if another instance made the change and this one only learned about it
+ */
+public record CategoryChangedEvent(Long categoryId, boolean remote) {
+
+    public static CategoryChangedEvent of(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, false);
+    }
+
+    public static CategoryChangedEvent remote(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, true);
+    }
+}
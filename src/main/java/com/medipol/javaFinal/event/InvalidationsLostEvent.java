@@ -0,0 +1,8 @@
+package com.medipol.javaFinal.event;
+
+/**
+ * Published when changes made by other instances may have been missed, listeners that follow
+ * {@link ProductChangedEvent}s and {@link CategoryChangedEvent}s must reload what they derived from them
+ */
+public record InvalidationsLostEvent() {
+}
@@ -0,0 +1,30 @@
+package com.medipol.javaFinal.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the write path once products were inserted, updated or deleted.
+ * Carries only ids, listeners read the committed state themselves.
+ * @param productIds products whose row changed or disappeared
+ * @param deletedCategoryId category removed together with all of its products, or null
+ * @param remote true if another instance made the change and this one only learned about it
+ */
+public record ProductChangedEvent(Collection<Long> productIds, Long deletedCategoryId, boolean remote) {
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(List.of(productId), null, false);
+    }
+
+    public static ProductChangedEvent of(Collection<Long> productIds) {
+        return new ProductChangedEvent(List.copyOf(productIds), null, false);
+    }
+
+    public static ProductChangedEvent categoryDeleted(Long categoryId) {
+        return new ProductChangedEvent(List.of(), categoryId, false);
+    }
+
+    public static ProductChangedEvent remote(Collection<Long> productIds, Long deletedCategoryId) {
+        return new ProductChangedEvent(List.copyOf(productIds), deletedCategoryId, true);
+    }
+}
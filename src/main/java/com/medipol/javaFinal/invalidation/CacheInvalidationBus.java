@@ -0,0 +1,194 @@
+package com.medipol.javaFinal.invalidation;
+
+import com.medipol.javaFinal.event.CategoryChangedEvent;
+import com.medipol.javaFinal.event.InvalidationsLostEvent;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the second-level caches of all instances coherent. Committed changes of this instance are
+ * collected for the coalescing window, so a burst of writes to the same rows sends each id once,
+ * and published through the {@link InvalidationTransport}. Messages of other instances evict the
+ * affected entries locally and are republished as remote {@link ProductChangedEvent}s and
+ * {@link CategoryChangedEvent}s, so the catalog snapshot and other local listeners follow them too.
+ * When the transport may have lost messages the whole cache is dropped and an
+ * {@link InvalidationsLostEvent} is published.
+ * <p>
+ * Cached query results cannot be matched to ids and are dropped with every remote message.
+ * Sent and received messages are counted in {@code app.cache-invalidation.messages}.
+ */
+public class CacheInvalidationBus implements InvalidationTransport.Listener, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String METRIC = "app.cache-invalidation.messages";
+    private static final String CATEGORY_PRODUCTS = Category.class.getName() + ".products";
+
+    private final InvalidationTransport transport;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final long coalesceWindowNanos;
+    private final String origin = UUID.randomUUID().toString();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // changes waiting for the next send, guarded by this
+    private Set<Long> products = new HashSet<>();
+    private Set<Long> categories = new HashSet<>();
+    private Set<Long> deletedCategories = new HashSet<>();
+    private boolean scheduled;
+
+    public CacheInvalidationBus(InvalidationTransport transport, EntityManagerFactory entityManagerFactory,
+                                ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                                Duration coalesceWindow) {
+        this.transport = transport;
+        this.entityManagerFactory = entityManagerFactory;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        transport.subscribe(this);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        synchronized (this) {
+            products.addAll(event.productIds());
+            if (event.deletedCategoryId() != null) {
+                deletedCategories.add(event.deletedCategoryId());
+            }
+            scheduleSend();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        synchronized (this) {
+            categories.add(event.categoryId());
+            scheduleSend();
+        }
+    }
+
+    @Override
+    public void onMessage(String payload) {
+        InvalidationMessage message;
+        try {
+            message = InvalidationMessage.decode(payload);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed cache invalidation message", e);
+            return;
+        }
+        if (message.origin().equals(origin)) {
+            return;
+        }
+        count("received");
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        message.productIds().forEach(id -> cache.evictEntityData(Product.class, id));
+        message.categoryIds().forEach(id -> cache.evictEntityData(Category.class, id));
+        message.deletedCategoryIds().forEach(id -> cache.evictEntityData(Category.class, id));
+        if (!message.deletedCategoryIds().isEmpty()) {
+            // the ids of the products deleted with the category are not in the message
+            cache.evictEntityData(Product.class);
+        }
+        if (!message.productIds().isEmpty() || !message.deletedCategoryIds().isEmpty()) {
+            // a product may have moved between categories, the message does not say which
+            cache.evictCollectionData(CATEGORY_PRODUCTS);
+        }
+        cache.evictDefaultQueryRegion();
+
+        if (!message.productIds().isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.remote(message.productIds(), null));
+        }
+        for (Long categoryId : message.deletedCategoryIds()) {
+            eventPublisher.publishEvent(ProductChangedEvent.remote(List.of(), categoryId));
+        }
+        for (Long categoryId : message.categoryIds()) {
+            eventPublisher.publishEvent(CategoryChangedEvent.remote(categoryId));
+        }
+    }
+
+    @Override
+    public void onMessagesLost() {
+        logger.info("Cache invalidation messages may have been lost, clearing the second-level cache");
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        eventPublisher.publishEvent(new InvalidationsLostEvent());
+    }
+
+    /**
+     * Send what is still waiting and stop
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+        send();
+    }
+
+    /**
+     * @return id of this instance in the messages it sends
+     */
+    public String origin() {
+        return origin;
+    }
+
+    private void scheduleSend() {
+        if (!scheduled && !sender.isShutdown()) {
+            scheduled = true;
+            sender.schedule(this::send, coalesceWindowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void send() {
+        InvalidationMessage message;
+        synchronized (this) {
+            scheduled = false;
+            if (products.isEmpty() && categories.isEmpty() && deletedCategories.isEmpty()) {
+                return;
+            }
+            message = new InvalidationMessage(origin, products, categories, deletedCategories);
+            products = new HashSet<>();
+            categories = new HashSet<>();
+            deletedCategories = new HashSet<>();
+        }
+        try {
+            for (String payload : message.encode()) {
+                transport.publish(payload);
+                count("sent");
+            }
+        } catch (RuntimeException e) {
+            // other instances serve the old entries until their time to live runs out
+            logger.error("Sending cache invalidation for {} failed", message, e);
+        }
+    }
+
+    private void count(String direction) {
+        meterRegistry.counter(METRIC, "direction", direction).increment();
+    }
+}
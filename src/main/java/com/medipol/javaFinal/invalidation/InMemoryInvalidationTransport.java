@@ -0,0 +1,40 @@
+package com.medipol.javaFinal.invalidation;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers messages synchronously to every listener subscribed to the same instance, for tests and
+ * single-instance setups. Several {@link CacheInvalidationBus}es on one transport behave like
+ * instances sharing a database.
+ */
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String payload) {
+        published.add(payload);
+        for (Listener listener : listeners) {
+            listener.onMessage(payload);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        listeners.clear();
+    }
+
+    /**
+     * @return every payload published so far, oldest first
+     */
+    public List<String> published() {
+        return List.copyOf(published);
+    }
+}
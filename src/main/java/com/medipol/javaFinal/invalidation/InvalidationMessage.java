@@ -0,0 +1,99 @@
+package com.medipol.javaFinal.invalidation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What one instance changed, encoded as {@code origin|p1,2|c3|d4} with product ids after {@code p},
+ * updated category ids after {@code c} and deleted category ids after {@code d}.
+ * @param origin id of the sending instance, receivers ignore their own messages
+ */
+public record InvalidationMessage(String origin, Set<Long> productIds, Set<Long> categoryIds,
+                                  Set<Long> deletedCategoryIds) {
+
+    /** Ids per message, longest ids and separators still fit {@link InvalidationTransport#MAX_PAYLOAD_LENGTH} */
+    static final int MAX_IDS = 350;
+
+    public InvalidationMessage {
+        productIds = Set.copyOf(productIds);
+        categoryIds = Set.copyOf(categoryIds);
+        deletedCategoryIds = Set.copyOf(deletedCategoryIds);
+    }
+
+    /**
+     * @return one or more payloads that together carry all ids of this message
+     */
+    public List<String> encode() {
+        List<String> payloads = new ArrayList<>();
+        List<Long> products = new ArrayList<>(productIds);
+        List<Long> categories = new ArrayList<>(categoryIds);
+        List<Long> deleted = new ArrayList<>(deletedCategoryIds);
+        int p = 0;
+        int c = 0;
+        int d = 0;
+        do {
+            StringBuilder payload = new StringBuilder(origin);
+            int budget = MAX_IDS;
+            int pEnd = Math.min(products.size(), p + budget);
+            budget -= pEnd - p;
+            int cEnd = Math.min(categories.size(), c + budget);
+            budget -= cEnd - c;
+            int dEnd = Math.min(deleted.size(), d + budget);
+            append(payload, 'p', products.subList(p, pEnd));
+            append(payload, 'c', categories.subList(c, cEnd));
+            append(payload, 'd', deleted.subList(d, dEnd));
+            payloads.add(payload.toString());
+            p = pEnd;
+            c = cEnd;
+            d = dEnd;
+        } while (p < products.size() || c < categories.size() || d < deleted.size());
+        return payloads;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the payload is not an encoded message
+     */
+    public static InvalidationMessage decode(String payload) {
+        String[] parts = payload.split("\\|");
+        Set<Long> products = new LinkedHashSet<>();
+        Set<Long> categories = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].isEmpty()) {
+                throw new IllegalArgumentException("Invalid invalidation message " + payload);
+            }
+            Set<Long> target = switch (parts[i].charAt(0)) {
+                case 'p' -> products;
+                case 'c' -> categories;
+                case 'd' -> deleted;
+                default -> throw new IllegalArgumentException("Invalid invalidation message " + payload);
+            };
+            for (String id : parts[i].substring(1).split(",")) {
+                try {
+                    target.add(Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid invalidation message " + payload, e);
+                }
+            }
+        }
+        return new InvalidationMessage(parts[0], products, categories, deleted);
+    }
+
+    private static void append(StringBuilder payload, char kind, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        payload.append('|').append(kind);
+        boolean first = true;
+        for (Long id : ids) {
+            if (!first) {
+                payload.append(',');
+            }
+            payload.append(id);
+            first = false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.medipol.javaFinal.invalidation;
+
+/**
+ * Carries cache invalidation messages between the instances of the application. Delivery is at
+ * most once; a transport that may have lost messages says so through
+ * {@link Listener#onMessagesLost()}, after which receivers must drop everything they cached.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Receives the messages of all instances, including the ones sent by this instance
+     */
+    interface Listener {
+
+        void onMessage(String payload);
+
+        void onMessagesLost();
+    }
+
+    /**
+     * @param payload encoded message, at most {@link #MAX_PAYLOAD_LENGTH} characters
+     */
+    void publish(String payload);
+
+    /**
+     * Start delivering messages to the listener
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * Stop delivering and release the resources of the transport
+     */
+    void close();
+
+    /** Smallest payload limit of the transports, PostgreSQL NOTIFY takes just under 8000 bytes */
+    int MAX_PAYLOAD_LENGTH = 7900;
+}
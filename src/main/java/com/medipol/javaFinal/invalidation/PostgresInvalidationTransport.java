@@ -0,0 +1,137 @@
+package com.medipol.javaFinal.invalidation;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * Messages as PostgreSQL notifications: published with {@code pg_notify} on a pooled connection,
+ * received by a daemon thread that keeps its own connection outside the pool listening on the channel.
+ * Notifications are only delivered while that connection is up, so every reconnect reports lost
+ * messages.
+ */
+public class PostgresInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final long reconnectDelayMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param jdbcTemplate publishes notifications
+     * @param url JDBC URL of the primary, the listening connection is opened with it directly
+     * @param channel notification channel, a lower case SQL identifier
+     * @param reconnectDelay wait between attempts to reopen the listening connection
+     */
+    public PostgresInvalidationTransport(JdbcTemplate jdbcTemplate, String url, String username, String password,
+                                         String channel, Duration reconnectDelay) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+    }
+
+    @Override
+    public void publish(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", resultSet -> {
+        }, channel, payload);
+    }
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        listeners.add(listener);
+        if (thread == null) {
+            running = true;
+            thread = new Thread(this::listen, "cache-invalidation-listener");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void listen() {
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                if (connectedBefore) {
+                    // notifications sent while reconnecting were never delivered to us
+                    listeners.forEach(Listener::onMessagesLost);
+                }
+                connectedBefore = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    logger.warn("Cache invalidation listener lost its connection, reconnecting in {} ms",
+                            reconnectDelayMillis, e);
+                    sleep();
+                }
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onMessage(payload);
+            } catch (RuntimeException e) {
+                logger.warn("Cache invalidation listener failed on message {}", payload, e);
+            }
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(reconnectDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -5,7 +5,11 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -13,11 +17,19 @@ import java.util.List;
 
 @Entity
 @Table(name = "categories")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories")
+@SqlResultSetMapping(
+        name = Category.WITH_PREVIOUS_ENABLED,
+        entities = @EntityResult(entityClass = Category.class),
+        columns = @ColumnResult(name = "previous_enabled", type = Boolean.class))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Category {
 
+    /** Result mapping of a category row plus its enabled flag before an update */
+    public static final String WITH_PREVIOUS_ENABLED = "CategoryWithPreviousEnabled";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,7 +43,11 @@ public class Category {
     private Boolean enabled = true;
 
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "categories.products")
     @JsonIgnoreProperties("category")
+    // printing or comparing a category must not load its products
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Product> products = new ArrayList<>();
 
     @Column(name = "created_at")
@@ -40,6 +56,9 @@ public class Category {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
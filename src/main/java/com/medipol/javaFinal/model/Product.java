@@ -8,19 +8,35 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Cached because the cached {@code Category.products} collection holds only product ids: without
+ * this region every hit on a category's product list would load its products from the table again.
+ * Writes that bypass the session evict their rows through {@code SecondLevelCacheEviction}.
+ */
 @Entity
 @Table(name = "products")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
+@SqlResultSetMapping(
+        name = Product.WITH_PREVIOUS_CATEGORY,
+        entities = @EntityResult(entityClass = Product.class),
+        columns = @ColumnResult(name = "previous_category_id", type = Long.class))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
 
+    /** Result mapping of a product row plus the category it belonged to before an update */
+    public static final String WITH_PREVIOUS_CATEGORY = "ProductWithPreviousCategory";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Product name is required")
@@ -47,6 +63,9 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
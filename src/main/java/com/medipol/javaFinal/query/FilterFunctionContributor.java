@@ -0,0 +1,22 @@
+package com.medipol.javaFinal.query;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * SQL functions that {@link ProductFilter} criteria refer to, registered through
+ * {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}
+ */
+public class FilterFunctionContributor implements FunctionContributor {
+
+    /** {@code matches_regex(text, pattern)}, PostgreSQL's case-sensitive {@code text ~ pattern} */
+    public static final String MATCHES_REGEX = "matches_regex";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(MATCHES_REGEX, "(?1 ~ ?2)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN));
+    }
+}
@@ -0,0 +1,15 @@
+package com.medipol.javaFinal.query;
+
+/**
+ * A filter expression that does not parse or compares a field with a value of the wrong type
+ */
+public class InvalidFilterException extends IllegalArgumentException {
+
+    public InvalidFilterException(String message) {
+        super(message);
+    }
+
+    public InvalidFilterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,122 @@
+package com.medipol.javaFinal.query;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Product fields that can be used in a {@link ProductFilter} or as sort key, with their criteria path
+ * for pushing the comparison into SQL
+ */
+public enum ProductField {
+
+    ID("id", Type.LONG),
+    NAME("name", Type.STRING),
+    DESCRIPTION("description", Type.STRING),
+    PRICE("price", Type.DECIMAL),
+    QUANTITY("quantity", Type.INTEGER),
+    CATEGORY("category", Type.LONG),
+    CATEGORY_NAME("category.name", Type.STRING),
+    CREATED_AT("createdAt", Type.DATE_TIME),
+    UPDATED_AT("updatedAt", Type.DATE_TIME);
+
+    /** Value types, each parses the literal of a comparison */
+    enum Type {
+        LONG, INTEGER, DECIMAL, STRING, DATE_TIME;
+
+        Comparable<?> parse(String literal) {
+            return switch (this) {
+                case LONG -> Long.valueOf(literal);
+                case INTEGER -> Integer.valueOf(literal);
+                case DECIMAL -> new BigDecimal(literal);
+                case STRING -> literal;
+                // a plain date means the start of that day
+                case DATE_TIME -> literal.length() == 10
+                        ? LocalDate.parse(literal).atStartOfDay()
+                        : LocalDateTime.parse(literal);
+            };
+        }
+    }
+
+    private static final Map<String, ProductField> BY_NAME = Arrays.stream(values())
+            .collect(Collectors.toMap(ProductField::fieldName, Function.identity()));
+
+    private final String fieldName;
+    private final Type type;
+
+    ProductField(String fieldName, Type type) {
+        this.fieldName = fieldName;
+        this.type = type;
+    }
+
+    /**
+     * @param name field name as written in a filter or sort parameter, e.g. {@code price} or {@code category.name}
+     * @return the field
+     * @throws InvalidFilterException if there is no such field
+     */
+    public static ProductField of(String name) {
+        ProductField field = BY_NAME.get(name);
+        if (field == null) {
+            throw new InvalidFilterException("Unknown field '" + name + "', expected one of " + BY_NAME.keySet());
+        }
+        return field;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    /**
+     * @return property path for a {@code Sort}, the category sorts by its id
+     */
+    public String sortProperty() {
+        return this == CATEGORY ? "category.id" : fieldName;
+    }
+
+    Type type() {
+        return type;
+    }
+
+    Comparable<?> parse(String literal) {
+        try {
+            return type.parse(literal);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidFilterException("Invalid value '" + literal + "' for " + fieldName, e);
+        }
+    }
+
+    /**
+     * The category id is read from the foreign key, the category name through a left join shared by all
+     * comparisons of one query
+     */
+    <T> Path<T> path(Root<Product> root) {
+        return switch (this) {
+            case CATEGORY -> root.get("category").get("id");
+            case CATEGORY_NAME -> categoryJoin(root).get("name");
+            default -> root.get(fieldName);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static From<Product, Category> categoryJoin(Root<Product> root) {
+        for (Join<Product, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("category") && join.getJoinType() == JoinType.LEFT) {
+                return (From<Product, Category>) join;
+            }
+        }
+        return root.join("category", JoinType.LEFT);
+    }
+}
@@ -0,0 +1,158 @@
+package com.medipol.javaFinal.query;
+
+import com.medipol.javaFinal.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product filter given through the {@code filter} query parameter, e.g.
+ * {@code price>100 and quantity<10 and (category=5 or category.name:garden)}.
+ * <p>
+ * Comparisons are {@code field op value} with the operators {@code = != > >= < <=}, {@code :} for a
+ * case-insensitive substring and {@code ~} for a regular expression; they combine with {@code and},
+ * {@code or}, {@code not} and parentheses. Values containing spaces are quoted with {@code '} or
+ * {@code "}, {@code null} tests for a missing value.
+ * <p>
+ * The whole filter is compiled into a {@link Specification} and runs in the database, regular
+ * expressions as PostgreSQL's {@code ~} through {@link FilterFunctionContributor}. Comparisons with a
+ * missing value are unknown, as in SQL.
+ */
+public final class ProductFilter {
+
+    public static final String PARAMETER = "filter";
+
+    public static final ProductFilter ALL = new ProductFilter(List.of());
+
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, ProductFilter> CACHE = new ConcurrentHashMap<>();
+
+    private final List<Node> conjuncts;
+
+    private ProductFilter(List<Node> conjuncts) {
+        this.conjuncts = conjuncts;
+    }
+
+    /**
+     * Parse a filter expression, results are cached per distinct expression
+     * @param expression filter expression, blank matches all products
+     * @return parsed filter
+     * @throws InvalidFilterException if the expression is malformed
+     */
+    public static ProductFilter parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return ALL;
+        }
+        ProductFilter cached = CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+        Node root = new ProductFilterParser(expression).parse();
+        ProductFilter filter = new ProductFilter(root instanceof And and ? and.children() : List.of(root));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(expression, filter);
+        }
+        return filter;
+    }
+
+    /**
+     * @return the filter as a specification
+     */
+    public Specification<Product> specification() {
+        return (root, query, builder) -> conjuncts.isEmpty()
+                ? builder.conjunction()
+                : builder.and(conjuncts.stream()
+                        .map(node -> node.toPredicate(root, builder))
+                        .toArray(jakarta.persistence.criteria.Predicate[]::new));
+    }
+
+    /**
+     * Parsed expression
+     */
+    sealed interface Node {
+
+        jakarta.persistence.criteria.Predicate toPredicate(Root<Product> root, CriteriaBuilder builder);
+    }
+
+    record And(List<Node> children) implements Node {
+
+        @Override
+        public jakarta.persistence.criteria.Predicate toPredicate(Root<Product> root, CriteriaBuilder builder) {
+            return builder.and(children.stream()
+                    .map(child -> child.toPredicate(root, builder))
+                    .toArray(jakarta.persistence.criteria.Predicate[]::new));
+        }
+    }
+
+    record Or(List<Node> children) implements Node {
+
+        @Override
+        public jakarta.persistence.criteria.Predicate toPredicate(Root<Product> root, CriteriaBuilder builder) {
+            return builder.or(children.stream()
+                    .map(child -> child.toPredicate(root, builder))
+                    .toArray(jakarta.persistence.criteria.Predicate[]::new));
+        }
+    }
+
+    record Not(Node child) implements Node {
+
+        @Override
+        public jakarta.persistence.criteria.Predicate toPredicate(Root<Product> root, CriteriaBuilder builder) {
+            return builder.not(child.toPredicate(root, builder));
+        }
+    }
+
+    enum Operator {
+        EQ("="), NE("!="), GT(">"), GE(">="), LT("<"), LE("<="), CONTAINS(":"), MATCHES("~");
+
+        final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean ordering() {
+            return this == GT || this == GE || this == LT || this == LE;
+        }
+    }
+
+    /**
+     * @param value parsed literal, an upper-cased string for {@code :}, the checked pattern for {@code ~},
+     *              null for a {@code null} literal
+     */
+    record Comparison(ProductField field, Operator operator, Object value) implements Node {
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public jakarta.persistence.criteria.Predicate toPredicate(Root<Product> root, CriteriaBuilder builder) {
+            Expression path = field.path(root);
+            if (value == null) {
+                return operator == Operator.EQ ? builder.isNull(path) : builder.isNotNull(path);
+            }
+            Comparable comparable = (Comparable) value;
+            return switch (operator) {
+                case EQ -> builder.equal(path, value);
+                case NE -> builder.notEqual(path, value);
+                case GT -> builder.greaterThan(path, comparable);
+                case GE -> builder.greaterThanOrEqualTo(path, comparable);
+                case LT -> builder.lessThan(path, comparable);
+                case LE -> builder.lessThanOrEqualTo(path, comparable);
+                // upper() is the expression the trigram indexes are built on, lower() would not use them
+                case CONTAINS -> builder.like(builder.upper(path), "%" + escapeLike((String) value) + "%", '\\');
+                // value() binds the pattern as a parameter, literal() would inline it into the SQL
+                case MATCHES -> builder.isTrue(builder.function(FilterFunctionContributor.MATCHES_REGEX, Boolean.class,
+                        path, ((HibernateCriteriaBuilder) builder).value(value)));
+            };
+        }
+
+        private static String escapeLike(String value) {
+            return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+    }
+}
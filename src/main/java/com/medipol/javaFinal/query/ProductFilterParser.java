@@ -0,0 +1,325 @@
+package com.medipol.javaFinal.query;
+
+import com.medipol.javaFinal.query.ProductFilter.And;
+import com.medipol.javaFinal.query.ProductFilter.Comparison;
+import com.medipol.javaFinal.query.ProductFilter.Node;
+import com.medipol.javaFinal.query.ProductFilter.Not;
+import com.medipol.javaFinal.query.ProductFilter.Operator;
+import com.medipol.javaFinal.query.ProductFilter.Or;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Recursive descent parser for {@link ProductFilter} expressions:
+ * <pre>
+ * or         = and { "or" and }
+ * and        = unary { "and" unary }
+ * unary      = "not" unary | "(" or ")" | comparison
+ * comparison = field operator value
+ * value      = quoted string | run of characters up to whitespace or a parenthesis
+ * </pre>
+ * Keywords are case-insensitive. Regular expressions run in the database for every row in scope, so they
+ * are bounded in length and number of quantifiers, and backreferences and quantified groups that contain
+ * a quantifier, the patterns that make a regex engine backtrack, are rejected.
+ */
+class ProductFilterParser {
+
+    static final int MAX_LENGTH = 2000;
+    static final int MAX_DEPTH = 32;
+    static final int MAX_PATTERN_LENGTH = 100;
+    static final int MAX_PATTERN_QUANTIFIERS = 10;
+
+    // longest symbols first so ">=" is not read as ">"
+    private static final Operator[] OPERATORS = {
+            Operator.NE, Operator.GE, Operator.LE, Operator.EQ, Operator.GT, Operator.LT, Operator.CONTAINS, Operator.MATCHES};
+
+    private final String input;
+    private int position;
+    private int depth;
+
+    ProductFilterParser(String input) {
+        if (input.length() > MAX_LENGTH) {
+            throw new InvalidFilterException("Filter is longer than " + MAX_LENGTH + " characters");
+        }
+        this.input = input;
+    }
+
+    Node parse() {
+        Node node = or();
+        skipWhitespace();
+        if (position < input.length()) {
+            throw error("Unexpected '" + input.charAt(position) + "'");
+        }
+        return node;
+    }
+
+    private Node or() {
+        List<Node> children = new ArrayList<>();
+        children.add(and());
+        while (keyword("or")) {
+            children.add(and());
+        }
+        return children.size() == 1 ? children.get(0) : new Or(List.copyOf(children));
+    }
+
+    private Node and() {
+        List<Node> children = new ArrayList<>();
+        children.add(unary());
+        while (keyword("and")) {
+            children.add(unary());
+        }
+        return children.size() == 1 ? children.get(0) : new And(List.copyOf(children));
+    }
+
+    private Node unary() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Filter is nested deeper than " + MAX_DEPTH + " levels");
+        }
+        try {
+            if (keyword("not")) {
+                return new Not(unary());
+            }
+            skipWhitespace();
+            if (peek() == '(') {
+                position++;
+                Node node = or();
+                skipWhitespace();
+                if (peek() != ')') {
+                    throw error("Expected ')'");
+                }
+                position++;
+                return node;
+            }
+            return comparison();
+        } finally {
+            depth--;
+        }
+    }
+
+    private Node comparison() {
+        int start = position;
+        ProductField field;
+        try {
+            field = ProductField.of(identifier());
+        } catch (InvalidFilterException e) {
+            position = start;
+            throw error(e.getMessage());
+        }
+        Operator operator = operator();
+        boolean quoted = peekQuote();
+        int valueStart = position;
+        String literal = value();
+
+        if (!quoted && literal.equalsIgnoreCase("null")) {
+            if (operator != Operator.EQ && operator != Operator.NE) {
+                throw error("null can only be compared with = or !=");
+            }
+            return new Comparison(field, operator, null);
+        }
+        boolean text = field.type() == ProductField.Type.STRING;
+        if ((operator == Operator.CONTAINS || operator == Operator.MATCHES) && !text) {
+            throw error(operator.symbol + " only applies to text fields, not " + field.fieldName());
+        }
+        // string order differs between database collations and Java, so only equality is offered
+        if (operator.ordering() && text) {
+            throw error(operator.symbol + " does not apply to text field " + field.fieldName());
+        }
+        try {
+            return switch (operator) {
+                case CONTAINS -> new Comparison(field, operator, literal.toUpperCase(Locale.ROOT));
+                case MATCHES -> new Comparison(field, operator, pattern(literal));
+                default -> new Comparison(field, operator, field.parse(literal));
+            };
+        } catch (InvalidFilterException e) {
+            position = valueStart;
+            throw error(e.getMessage());
+        }
+    }
+
+    private String identifier() {
+        skipWhitespace();
+        int start = position;
+        while (position < input.length()
+                && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '.'
+                || input.charAt(position) == '_')) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected a field name");
+        }
+        return input.substring(start, position);
+    }
+
+    private Operator operator() {
+        skipWhitespace();
+        for (Operator operator : OPERATORS) {
+            if (input.startsWith(operator.symbol, position)) {
+                position += operator.symbol.length();
+                return operator;
+            }
+        }
+        throw error("Expected one of = != > >= < <= : ~");
+    }
+
+    private String value() {
+        skipWhitespace();
+        if (peekQuote()) {
+            char quote = input.charAt(position++);
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= input.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = input.charAt(position++);
+                if (c == quote) {
+                    // a doubled quote stands for itself
+                    if (peek() != quote) {
+                        return value.toString();
+                    }
+                    position++;
+                }
+                value.append(c);
+            }
+        }
+        int start = position;
+        while (position < input.length() && !Character.isWhitespace(input.charAt(position))
+                && input.charAt(position) != '(' && input.charAt(position) != ')') {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected a value");
+        }
+        return input.substring(start, position);
+    }
+
+    /**
+     * Check a regular expression for syntax and the complexity bounds
+     * @return the expression as given
+     */
+    private String pattern(String regex) {
+        if (regex.length() > MAX_PATTERN_LENGTH) {
+            throw new InvalidFilterException("Regular expression is longer than " + MAX_PATTERN_LENGTH + " characters");
+        }
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new InvalidFilterException("Invalid regular expression '" + regex + "'", e);
+        }
+        int quantifiers = 0;
+        // per open group: whether it contains a quantifier
+        Deque<Boolean> groups = new ArrayDeque<>();
+        boolean quantifiedAtom = false;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            boolean closedQuantifiedGroup = false;
+            switch (c) {
+                case '\\' -> {
+                    i++;
+                    if (i < regex.length() && regex.charAt(i) >= '1' && regex.charAt(i) <= '9') {
+                        throw new InvalidFilterException("Backreferences are not supported in '" + regex + "'");
+                    }
+                }
+                case '[' -> i = endOfClass(regex, i);
+                case '(' -> {
+                    groups.push(false);
+                    if (i + 1 < regex.length() && regex.charAt(i + 1) == '?') {
+                        i++;
+                    }
+                }
+                case ')' -> {
+                    closedQuantifiedGroup = !groups.isEmpty() && groups.pop();
+                    // the enclosing group contains the quantifier too
+                    if (closedQuantifiedGroup && !groups.isEmpty()) {
+                        groups.pop();
+                        groups.push(true);
+                    }
+                }
+                case '*', '+', '?', '{' -> {
+                    if (c == '{') {
+                        int end = regex.indexOf('}', i);
+                        i = end < 0 ? regex.length() : end;
+                    }
+                    if (quantifiedAtom) {
+                        throw new InvalidFilterException("Quantified group contains a quantifier in '" + regex + "'");
+                    }
+                    if (++quantifiers > MAX_PATTERN_QUANTIFIERS) {
+                        throw new InvalidFilterException("Regular expression has more than "
+                                + MAX_PATTERN_QUANTIFIERS + " quantifiers");
+                    }
+                    if (!groups.isEmpty()) {
+                        groups.pop();
+                        groups.push(true);
+                    }
+                    // a lazy or possessive marker belongs to this quantifier
+                    if (i + 1 < regex.length() && (regex.charAt(i + 1) == '?' || regex.charAt(i + 1) == '+')) {
+                        i++;
+                    }
+                }
+                default -> {
+                }
+            }
+            quantifiedAtom = closedQuantifiedGroup;
+        }
+        return regex;
+    }
+
+    /**
+     * @return index of the {@code ]} closing the character class opened at the given index
+     */
+    private static int endOfClass(String regex, int open) {
+        int i = open + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        // a leading ] is a literal
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        while (i < regex.length() && regex.charAt(i) != ']') {
+            if (regex.charAt(i) == '\\') {
+                i++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Consume a keyword if it comes next as a whole word
+     */
+    private boolean keyword(String keyword) {
+        skipWhitespace();
+        int end = position + keyword.length();
+        if (input.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == input.length() || !Character.isLetterOrDigit(input.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean peekQuote() {
+        skipWhitespace();
+        return peek() == '\'' || peek() == '"';
+    }
+
+    private char peek() {
+        return position < input.length() ? input.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private InvalidFilterException error(String message) {
+        return new InvalidFilterException(message + " at position " + position + " of filter '" + input + "'");
+    }
+}
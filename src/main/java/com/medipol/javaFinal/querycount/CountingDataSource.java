@@ -0,0 +1,129 @@
+package com.medipol.javaFinal.querycount;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the statements executed and rows read through its connections into the {@link QueryCounts}
+ * of the executing thread. Sees all JDBC work, Hibernate, JdbcTemplate and native queries alike.
+ * Result sets are only wrapped while the thread is counted, bulk reads in the background keep
+ * reading rows without the proxy.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+    public CountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(obtainTargetDataSource().getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Forwards every call to the target, proxies compare by identity
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            return wrap(method, result);
+        }
+
+        abstract Object wrap(Method method, Object result);
+    }
+
+    private static final class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+
+        /**
+         * Statements come back as the type asked for: plain, prepared or callable
+         */
+        @Override
+        Object wrap(Method method, Object result) {
+            if (result instanceof Statement statement) {
+                return proxy(method.getReturnType(), new StatementHandler(statement));
+            }
+            return result;
+        }
+    }
+
+    private static final class StatementHandler extends Handler {
+
+        StatementHandler(Statement statement) {
+            super(statement);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                QueryCounts.statementExecuted();
+            }
+            return super.invoke(proxy, method, args);
+        }
+
+        @Override
+        Object wrap(Method method, Object result) {
+            if (result instanceof ResultSet resultSet && QueryCounts.current() != null) {
+                return proxy(ResultSet.class, new ResultSetHandler(resultSet));
+            }
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler extends Handler {
+
+        ResultSetHandler(ResultSet resultSet) {
+            super(resultSet);
+        }
+
+        @Override
+        Object wrap(Method method, Object result) {
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                QueryCounts.rowFetched();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.medipol.javaFinal.querycount;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Counts every entity Hibernate loads into a session as one entity of the thread's {@link QueryCounts}
+ */
+public final class EntityLoadCounter implements PostLoadEventListener {
+
+    private EntityLoadCounter() {
+    }
+
+    public static void register(EntityManagerFactory entityManagerFactory) {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, new EntityLoadCounter());
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        QueryCounts.entityLoaded();
+    }
+}
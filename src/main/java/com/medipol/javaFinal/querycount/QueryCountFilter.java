@@ -0,0 +1,78 @@
+package com.medipol.javaFinal.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements, rows and entities of each request, see {@link QueryCounts}.
+ * <p>
+ * The counts are recorded in the {@code app.request.sql.statements}, {@code app.request.sql.rows} and
+ * {@code app.request.entities} summaries, tagged with the method and the mapped uri pattern. With
+ * headers enabled they are also returned as {@code X-Sql-Statements}, {@code X-Sql-Rows} and
+ * {@code X-Entities-Loaded}. The body is buffered for that, so lazy loads during serialization are
+ * counted too, which is meant for development and tests only.
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String ROWS_HEADER = "X-Sql-Rows";
+    public static final String ENTITIES_HEADER = "X-Entities-Loaded";
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headers;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, boolean headers) {
+        this.meterRegistry = meterRegistry;
+        this.headers = headers;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        QueryCounts counts = QueryCounts.start();
+        ContentCachingResponseWrapper buffered = headers ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            QueryCounts.stop();
+            record(request, counts);
+            if (buffered != null) {
+                buffered.setHeader(STATEMENTS_HEADER, String.valueOf(counts.getStatements()));
+                buffered.setHeader(ROWS_HEADER, String.valueOf(counts.getRows()));
+                buffered.setHeader(ENTITIES_HEADER, String.valueOf(counts.getEntities()));
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCounts counts) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+        summary("app.request.sql.statements", "SQL statements executed per request", request, uri)
+                .record(counts.getStatements());
+        summary("app.request.sql.rows", "Rows read from result sets per request", request, uri)
+                .record(counts.getRows());
+        summary("app.request.entities", "Entities loaded into the session per request", request, uri)
+                .record(counts.getEntities());
+    }
+
+    private DistributionSummary summary(String name, String description, HttpServletRequest request, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,84 @@
+package com.medipol.javaFinal.querycount;
+
+/**
+ * SQL statements, fetched rows and loaded entities of the work on one thread, usually one request.
+ * Counting happens only between {@link #start()} and {@link #stop()}, other threads are not counted.
+ */
+public final class QueryCounts {
+
+    private static final ThreadLocal<QueryCounts> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long rows;
+    private long entities;
+
+    private QueryCounts() {
+    }
+
+    /**
+     * Count the work of the current thread from now on, replacing counts started earlier
+     */
+    public static QueryCounts start() {
+        QueryCounts counts = new QueryCounts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return counts of the current thread, or null if it is not counted
+     */
+    public static QueryCounts current() {
+        return CURRENT.get();
+    }
+
+    static void statementExecuted() {
+        QueryCounts counts = CURRENT.get();
+        if (counts != null) {
+            counts.statements++;
+        }
+    }
+
+    static void rowFetched() {
+        QueryCounts counts = CURRENT.get();
+        if (counts != null) {
+            counts.rows++;
+        }
+    }
+
+    static void entityLoaded() {
+        QueryCounts counts = CURRENT.get();
+        if (counts != null) {
+            counts.entities++;
+        }
+    }
+
+    /**
+     * Statements sent to the database, a JDBC batch counts once
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Rows read from result sets
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Entities Hibernate loaded into a session, from the database or the second-level cache
+     */
+    public long getEntities() {
+        return entities;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + rows + " rows, " + entities + " entities";
+    }
+}
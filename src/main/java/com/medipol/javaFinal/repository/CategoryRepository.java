@@ -1,20 +1,26 @@
 package com.medipol.javaFinal.repository;
 
 import com.medipol.javaFinal.model.Category;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.medipol.javaFinal.util.GenericRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends GenericRepository<Category, Long>, CategoryRepositoryCustom {
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findByName(String name);
     
     List<Category> findByNameContainingIgnoreCase(String name);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Category> findByEnabledTrue();
-} 
\ No newline at end of file
+}
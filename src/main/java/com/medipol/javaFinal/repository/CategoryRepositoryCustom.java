@@ -0,0 +1,44 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.model.Category;
+
+import java.util.Optional;
+
+/**
+ * Single statement writes for categories, see {@link CategoryRepositoryCustomImpl}
+ */
+public interface CategoryRepositoryCustom {
+
+    /**
+     * A category after an update
+     * @param category the updated category
+     * @param reenabled true if the update enabled a disabled category
+     */
+    record Updated(Category category, boolean reenabled) {
+    }
+
+    /**
+     * Overwrite the editable fields of a category in one {@code UPDATE ... RETURNING}
+     * @param id category id
+     * @param values new field values, id, products, version and timestamps are ignored
+     * @param expectedVersion version the row must still have, {@code null} to skip the check
+     * @return the updated category, empty if no row matched id and version
+     */
+    Optional<Updated> updateIfMatch(Long id, Category values, Long expectedVersion);
+
+    /**
+     * Enable or disable a category in one {@code UPDATE ... RETURNING}, leaving its other fields alone
+     * @param id category id
+     * @param enabled new enabled flag
+     * @return the updated category, empty if there is none with the id
+     */
+    Optional<Updated> updateEnabled(Long id, boolean enabled);
+
+    /**
+     * Delete a category and all of its products in one statement
+     * @param id category id
+     * @param expectedVersion version the category row must still have, {@code null} to skip the check
+     * @return true if the category was deleted
+     */
+    boolean deleteWithProductsIfMatch(Long id, Long expectedVersion);
+}
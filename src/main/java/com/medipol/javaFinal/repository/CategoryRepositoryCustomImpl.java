@@ -0,0 +1,128 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes that go to the database in a single statement instead of select-then-merge.
+ * Cached category queries and the affected second-level cache entries are evicted explicitly.
+ */
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    private static final String VERSION_CHECK = " AND c.version = :version";
+
+    // the CTE locks the row and remembers whether it was enabled, re-enabling restores archived products
+    private static final String UPDATE = """
+            WITH previous AS (SELECT id, enabled FROM categories WHERE id = :id FOR UPDATE)
+            UPDATE categories c
+            SET name = :name,
+                description = CAST(:description AS varchar),
+                enabled = :enabled,
+                updated_at = :updatedAt,
+                version = c.version + 1
+            FROM previous
+            WHERE c.id = previous.id%s
+            RETURNING c.*, previous.enabled AS previous_enabled
+            """;
+
+    private static final String UPDATE_ENABLED = """
+            WITH previous AS (SELECT id, enabled FROM categories WHERE id = :id FOR UPDATE)
+            UPDATE categories c
+            SET enabled = :enabled,
+                updated_at = :updatedAt,
+                version = c.version + 1
+            FROM previous
+            WHERE c.id = previous.id
+            RETURNING c.*, previous.enabled AS previous_enabled
+            """;
+
+    // set-based replacement of orphanRemoval, which loads and deletes every product one by one;
+    // the foreign key is checked at the end of the statement, after both deletes ran
+    private static final String DELETE_WITH_PRODUCTS = """
+            WITH deleted AS (
+                DELETE FROM categories c WHERE c.id = :id%s RETURNING c.id
+            ), removed AS (
+                DELETE FROM products p USING deleted d WHERE p.category_id = d.id RETURNING p.id
+            )
+            SELECT r.id FROM deleted d LEFT JOIN removed r ON true
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Updated> updateIfMatch(Long id, Category values, Long expectedVersion) {
+        Query query = entityManager.createNativeQuery(
+                        UPDATE.formatted(expectedVersion == null ? "" : VERSION_CHECK), Category.WITH_PREVIOUS_ENABLED)
+                .setParameter("id", id)
+                .setParameter("name", values.getName())
+                .setParameter("description", values.getDescription())
+                .setParameter("enabled", values.getEnabled() == null || values.getEnabled())
+                .setParameter("updatedAt", LocalDateTime.now());
+        bindVersion(query, expectedVersion);
+        return updated(id, query.getResultList());
+    }
+
+    @Override
+    public Optional<Updated> updateEnabled(Long id, boolean enabled) {
+        return updated(id, entityManager.createNativeQuery(UPDATE_ENABLED, Category.WITH_PREVIOUS_ENABLED)
+                .setParameter("id", id)
+                .setParameter("enabled", enabled)
+                .setParameter("updatedAt", LocalDateTime.now())
+                .getResultList());
+    }
+
+    @Override
+    public boolean deleteWithProductsIfMatch(Long id, Long expectedVersion) {
+        Query query = entityManager.createNativeQuery(
+                        DELETE_WITH_PRODUCTS.formatted(expectedVersion == null ? "" : VERSION_CHECK))
+                .setParameter("id", id);
+        bindVersion(query, expectedVersion);
+
+        List<?> removedProductIds = query.getResultList();
+        if (removedProductIds.isEmpty()) {
+            return false;
+        }
+        SecondLevelCacheEviction.evict(entityManager, cache -> {
+            cache.evictEntityData(Category.class, id);
+            cache.evictCollectionData(SecondLevelCacheEviction.CATEGORY_PRODUCTS, id);
+            for (Object productId : removedProductIds) {
+                if (productId != null) {
+                    cache.evictEntityData(Product.class, ((Number) productId).longValue());
+                }
+            }
+            cache.evictDefaultQueryRegion();
+        });
+        return true;
+    }
+
+    /**
+     * @param rows the updated category and its previous enabled flag, or nothing
+     */
+    private Optional<Updated> updated(Long id, List<?> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        SecondLevelCacheEviction.evict(entityManager, cache -> {
+            cache.evictEntityData(Category.class, id);
+            cache.evictDefaultQueryRegion();
+        });
+        Object[] row = (Object[]) rows.get(0);
+        Category category = (Category) row[0];
+        boolean reenabled = Boolean.TRUE.equals(category.getEnabled()) && Boolean.FALSE.equals(row[1]);
+        return Optional.of(new Updated(category, reenabled));
+    }
+
+    private static void bindVersion(Query query, Long expectedVersion) {
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.medipol.javaFinal.repository;
 
 import com.medipol.javaFinal.model.Product;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.medipol.javaFinal.util.GenericRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +10,8 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends GenericRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
     
     List<Product> findByNameContainingIgnoreCase(String name);
     
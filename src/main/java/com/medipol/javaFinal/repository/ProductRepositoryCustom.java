@@ -0,0 +1,85 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single statement writes for products, and the moves between the products table
+ * and {@code products_archive}, see {@link ProductRepositoryCustomImpl}
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Overwrite the editable fields of a product in one {@code UPDATE ... RETURNING}
+     * @param id product id
+     * @param values new field values, id, version and timestamps are ignored
+     * @param expectedVersion version the row must still have, {@code null} to skip the check
+     * @return the updated product, empty if no row matched id and version
+     */
+    Optional<Product> updateIfMatch(Long id, Product values, Long expectedVersion);
+
+    /**
+     * Set the quantity of a product in one statement
+     * @param id product id
+     * @param quantity new quantity
+     * @return true if the product exists
+     */
+    boolean updateQuantity(Long id, int quantity);
+
+    /**
+     * Set the quantities of many products in one statement, skipping every product whose row was
+     * changed after the time given for it
+     * @param ids product ids, without duplicates
+     * @param quantities new quantity per id
+     * @param updatedAt time each quantity was set, also written as the new update time
+     * @return ids of the updated products
+     */
+    List<Long> updateQuantitiesIfUnchangedSince(Long[] ids, Integer[] quantities, LocalDateTime[] updatedAt);
+
+    /**
+     * Delete a product, live or archived, in one {@code DELETE ... RETURNING}
+     * @param id product id
+     * @param expectedVersion version the row must still have, {@code null} to skip the check
+     * @return true if a row was deleted
+     */
+    boolean deleteIfMatch(Long id, Long expectedVersion);
+
+    /**
+     * Move the next products in id order that are in a disabled category, or have been out of stock
+     * since before the given time, to the archive in one statement. Rows locked by a writer are skipped.
+     * @param afterId only products with a greater id are moved
+     * @param outOfStockBefore products with quantity 0 since before this time are moved
+     * @param batchSize most products moved
+     * @return ids of the archived products, empty once no product after the id qualifies
+     */
+    List<Long> archiveBatch(long afterId, LocalDateTime outOfStockBefore, int batchSize);
+
+    /**
+     * Move archived products back to the products table in one statement, unchanged
+     * @param ids product ids, ids that are not archived are ignored
+     * @return ids of the restored products
+     */
+    List<Long> restoreArchived(Collection<Long> ids);
+
+    /**
+     * Move all archived products of a category back to the products table in one statement, unchanged
+     * @param categoryId category id
+     * @return ids of the restored products
+     */
+    List<Long> restoreArchivedOfCategory(Long categoryId);
+
+    /**
+     * @return the archived product with the id, detached and not cached
+     */
+    Optional<Product> findArchivedById(Long id);
+
+    /**
+     * Archived products whose name contains the term, like {@code findByNameContainingIgnoreCase}
+     * @return the archived products in id order, detached and not cached
+     */
+    List<Product> findArchivedByNameContainingIgnoreCase(String name);
+}
@@ -0,0 +1,286 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes that go to the database in a single statement instead of select-then-merge.
+ * Hibernate does not see these as entity changes, so the affected second-level cache
+ * entries are evicted explicitly.
+ * <p>
+ * Also moves products to and from {@code products_archive}. Archived products are read into detached
+ * entities that never enter the second-level cache, where they would be taken for rows of the products table.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String VERSION_CHECK = " AND p.version = :version";
+    private static final String ARCHIVED_VERSION_CHECK = " AND a.version = :version";
+
+    // the CTE locks the row and remembers its category, whose cached product list must be evicted
+    private static final String UPDATE = """
+            WITH previous AS (SELECT id, category_id FROM products WHERE id = :id FOR UPDATE)
+            UPDATE products p
+            SET name = :name,
+                description = CAST(:description AS varchar),
+                price = :price,
+                quantity = :quantity,
+                category_id = CAST(:categoryId AS bigint),
+                updated_at = :updatedAt,
+                version = p.version + 1
+            FROM previous
+            WHERE p.id = previous.id%s
+            RETURNING p.*, previous.category_id AS previous_category_id
+            """;
+
+    private static final String UPDATE_QUANTITY = """
+            UPDATE products p
+            SET quantity = :quantity, updated_at = :updatedAt, version = p.version + 1
+            WHERE p.id = :id
+            RETURNING p.id
+            """;
+
+    // a row touched after the buffered update keeps its newer state
+    private static final String UPDATE_QUANTITIES = """
+            UPDATE products p
+            SET quantity = u.quantity, updated_at = u.updated_at, version = p.version + 1
+            FROM unnest(CAST(:ids AS bigint[]), CAST(:quantities AS integer[]), CAST(:updatedAt AS timestamp[]))
+                AS u(id, quantity, updated_at)
+            WHERE p.id = u.id AND p.updated_at <= u.updated_at
+            RETURNING p.id
+            """;
+
+    // an id is either live or archived, at most one of the deletes finds it
+    private static final String DELETE = """
+            WITH live AS (
+                DELETE FROM products p WHERE p.id = :id%s RETURNING p.category_id
+            ), archived AS (
+                DELETE FROM products_archive a WHERE a.id = :id%s RETURNING a.category_id
+            )
+            SELECT category_id FROM live
+            UNION ALL
+            SELECT category_id FROM archived
+            """;
+
+    // empty products are found through idx_products_out_of_stock, those of disabled categories through
+    // idx_products_category_price; the id cursor keeps each batch after the previous one
+    private static final String ARCHIVE_BATCH = """
+            WITH candidates AS (
+                SELECT p.id FROM products p
+                WHERE p.id > :afterId
+                  AND (p.quantity = 0 AND p.out_of_stock_since < :outOfStockBefore
+                       OR p.category_id IN (SELECT c.id FROM categories c WHERE c.enabled = false))
+                ORDER BY p.id
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            ), moved AS (
+                DELETE FROM products p USING candidates c WHERE p.id = c.id RETURNING p.*
+            )
+            INSERT INTO products_archive (id, name, description, price, quantity, category_id,
+                                          created_at, updated_at, version, out_of_stock_since, archived_at)
+            SELECT id, name, description, price, quantity, category_id,
+                   created_at, updated_at, version, out_of_stock_since, :archivedAt
+            FROM moved
+            RETURNING id, category_id
+            """;
+
+    private static final String RESTORE = """
+            WITH restored AS (
+                DELETE FROM products_archive a WHERE %s RETURNING a.*
+            )
+            INSERT INTO products (id, name, description, price, quantity, category_id,
+                                  created_at, updated_at, version, out_of_stock_since)
+            SELECT id, name, description, price, quantity, category_id,
+                   created_at, updated_at, version, out_of_stock_since
+            FROM restored
+            RETURNING id, category_id
+            """;
+
+    private static final String FIND_ARCHIVED = "SELECT a.* FROM products_archive a WHERE a.id = :id";
+
+    private static final String FIND_ARCHIVED_BY_NAME = """
+            SELECT a.* FROM products_archive a
+            WHERE upper(a.name) LIKE upper(:pattern)
+            ORDER BY a.id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Product> updateIfMatch(Long id, Product values, Long expectedVersion) {
+        Query query = entityManager.createNativeQuery(
+                        UPDATE.formatted(expectedVersion == null ? "" : VERSION_CHECK), Product.WITH_PREVIOUS_CATEGORY)
+                .setParameter("id", id)
+                .setParameter("name", values.getName())
+                .setParameter("description", values.getDescription())
+                .setParameter("price", values.getPrice())
+                .setParameter("quantity", values.getQuantity())
+                .setParameter("categoryId", values.getCategory() == null ? null : values.getCategory().getId())
+                .setParameter("updatedAt", LocalDateTime.now());
+        bindVersion(query, expectedVersion);
+
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        Product product = (Product) row[0];
+        Long previousCategoryId = (Long) row[1];
+        Long categoryId = product.getCategory() == null ? null : product.getCategory().getId();
+        SecondLevelCacheEviction.evict(entityManager, cache -> {
+            cache.evictEntityData(Product.class, id);
+            if (!Objects.equals(previousCategoryId, categoryId)) {
+                evictProductsOf(cache, previousCategoryId);
+                evictProductsOf(cache, categoryId);
+            }
+        });
+        return Optional.of(product);
+    }
+
+    @Override
+    public boolean updateQuantity(Long id, int quantity) {
+        List<?> rows = entityManager.createNativeQuery(UPDATE_QUANTITY)
+                .setParameter("id", id)
+                .setParameter("quantity", quantity)
+                .setParameter("updatedAt", LocalDateTime.now())
+                .getResultList();
+        SecondLevelCacheEviction.evict(entityManager, cache -> cache.evictEntityData(Product.class, id));
+        return !rows.isEmpty();
+    }
+
+    @Override
+    public List<Long> updateQuantitiesIfUnchangedSince(Long[] ids, Integer[] quantities, LocalDateTime[] updatedAt) {
+        List<?> rows = entityManager.createNativeQuery(UPDATE_QUANTITIES)
+                .setParameter("ids", ids)
+                .setParameter("quantities", quantities)
+                .setParameter("updatedAt", updatedAt)
+                .getResultList();
+        List<Long> updated = rows.stream().map(row -> ((Number) row).longValue()).toList();
+        SecondLevelCacheEviction.evict(entityManager,
+                cache -> updated.forEach(id -> cache.evictEntityData(Product.class, id)));
+        return updated;
+    }
+
+    @Override
+    public boolean deleteIfMatch(Long id, Long expectedVersion) {
+        Query query = entityManager.createNativeQuery(expectedVersion == null
+                        ? DELETE.formatted("", "")
+                        : DELETE.formatted(VERSION_CHECK, ARCHIVED_VERSION_CHECK))
+                .setParameter("id", id);
+        bindVersion(query, expectedVersion);
+
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return false;
+        }
+        Long categoryId = rows.get(0) == null ? null : ((Number) rows.get(0)).longValue();
+        SecondLevelCacheEviction.evict(entityManager, cache -> {
+            cache.evictEntityData(Product.class, id);
+            evictProductsOf(cache, categoryId);
+        });
+        return true;
+    }
+
+    @Override
+    public List<Long> archiveBatch(long afterId, LocalDateTime outOfStockBefore, int batchSize) {
+        List<?> rows = entityManager.createNativeQuery(ARCHIVE_BATCH)
+                .setParameter("afterId", afterId)
+                .setParameter("outOfStockBefore", outOfStockBefore)
+                .setParameter("batchSize", batchSize)
+                .setParameter("archivedAt", LocalDateTime.now())
+                .getResultList();
+        return evictMoved(rows);
+    }
+
+    @Override
+    public List<Long> restoreArchived(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<?> rows = entityManager.createNativeQuery(RESTORE.formatted("a.id = ANY(CAST(:ids AS bigint[]))"))
+                .setParameter("ids", ids.toArray(Long[]::new))
+                .getResultList();
+        return evictMoved(rows);
+    }
+
+    @Override
+    public List<Long> restoreArchivedOfCategory(Long categoryId) {
+        List<?> rows = entityManager.createNativeQuery(RESTORE.formatted("a.category_id = :categoryId"))
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+        return evictMoved(rows);
+    }
+
+    @Override
+    public Optional<Product> findArchivedById(Long id) {
+        return archived(entityManager.createNativeQuery(FIND_ARCHIVED, Product.class)
+                .setParameter("id", id))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Product> findArchivedByNameContainingIgnoreCase(String name) {
+        String escaped = name.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return archived(entityManager.createNativeQuery(FIND_ARCHIVED_BY_NAME, Product.class)
+                .setParameter("pattern", "%" + escaped + "%"));
+    }
+
+    /**
+     * Evicts the moved products and the product lists of their categories
+     * @param rows id and category id of each moved product
+     * @return ids of the moved products, ascending
+     */
+    private List<Long> evictMoved(List<?> rows) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        Set<Long> categoryIds = new HashSet<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            ids.add(((Number) columns[0]).longValue());
+            if (columns[1] != null) {
+                categoryIds.add(((Number) columns[1]).longValue());
+            }
+        }
+        ids.sort(null);
+        if (!ids.isEmpty()) {
+            SecondLevelCacheEviction.evict(entityManager, cache -> {
+                ids.forEach(id -> cache.evictEntityData(Product.class, id));
+                categoryIds.forEach(categoryId -> evictProductsOf(cache, categoryId));
+            });
+        }
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Product> archived(Query query) {
+        List<Product> products = query.setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE).getResultList();
+        products.forEach(entityManager::detach);
+        return products;
+    }
+
+    private static void bindVersion(Query query, Long expectedVersion) {
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+    }
+
+    private static void evictProductsOf(Cache cache, Long categoryId) {
+        if (categoryId != null) {
+            cache.evictCollectionData(SecondLevelCacheEviction.CATEGORY_PRODUCTS, categoryId);
+        }
+    }
+}
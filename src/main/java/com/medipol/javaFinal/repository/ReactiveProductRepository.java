@@ -0,0 +1,128 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Non-blocking product reads over R2DBC. Rows are mapped to the same model classes
+ * as the JPA repositories, so responses serialize identically; the objects are not managed
+ * by Hibernate. Results are fetched in chunks, so a slow consumer holds back the query
+ * instead of buffering the whole result set.
+ */
+@Repository
+public class ReactiveProductRepository {
+
+    private static final int FETCH_SIZE = 256;
+
+    private static final String SELECT = """
+            SELECT p.id, p.name, p.description, p.price, p.quantity, p.created_at, p.updated_at, p.version,
+                   c.id AS c_id, c.name AS c_name, c.description AS c_description, c.enabled AS c_enabled,
+                   c.created_at AS c_created_at, c.updated_at AS c_updated_at, c.version AS c_version
+            FROM products p
+            LEFT JOIN categories c ON c.id = p.category_id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<Product> findAll() {
+        return query(SELECT)
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Mono<Product> findById(Long id) {
+        return query(SELECT + "WHERE p.id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    /**
+     * Find products by id in the order of the ids, unknown ids are skipped
+     */
+    public Flux<Product> findAllById(Collection<Long> ids) {
+        return query(SELECT + "WHERE p.id = ANY(:ids) ORDER BY array_position(:ids, p.id)")
+                .bind("ids", ids.toArray(new Long[0]))
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Flux<Product> findByCategoryId(Long categoryId) {
+        return query(SELECT + "WHERE p.category_id = :categoryId")
+                .bind("categoryId", categoryId)
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    /**
+     * Same predicate as the JPA derived query, so the trigram index on upper(name) is used
+     */
+    public Flux<Product> findByNameContainingIgnoreCase(String name) {
+        return query(SELECT + "WHERE upper(p.name) LIKE upper(:pattern) ESCAPE '\\'")
+                .bind("pattern", "%" + escapeLike(name) + "%")
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Flux<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return query(SELECT + "WHERE p.price BETWEEN :minPrice AND :maxPrice")
+                .bind("minPrice", minPrice)
+                .bind("maxPrice", maxPrice)
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    public Flux<Product> findLowStockProducts() {
+        return query(SELECT + "WHERE p.quantity < 10")
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    private DatabaseClient.GenericExecuteSpec query(String sql) {
+        return databaseClient.sql(sql).filter(statement -> statement.fetchSize(FETCH_SIZE));
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Product toProduct(Readable row) {
+        Product product = new Product();
+        product.setId(row.get("id", Long.class));
+        product.setName(row.get("name", String.class));
+        product.setDescription(row.get("description", String.class));
+        product.setPrice(row.get("price", BigDecimal.class));
+        product.setQuantity(row.get("quantity", Integer.class));
+        product.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        product.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        product.setVersion(row.get("version", Long.class));
+        Long categoryId = row.get("c_id", Long.class);
+        if (categoryId != null) {
+            Category category = new Category();
+            category.setId(categoryId);
+            category.setName(row.get("c_name", String.class));
+            category.setDescription(row.get("c_description", String.class));
+            category.setEnabled(row.get("c_enabled", Boolean.class));
+            category.setCreatedAt(row.get("c_created_at", LocalDateTime.class));
+            category.setUpdatedAt(row.get("c_updated_at", LocalDateTime.class));
+            category.setVersion(row.get("c_version", Long.class));
+            product.setCategory(category);
+        }
+        return product;
+    }
+}
@@ -0,0 +1,34 @@
+package com.medipol.javaFinal.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Second-level cache maintenance for native writes, which Hibernate does not track.
+ * The eviction runs right away and again once the transaction completes, so a
+ * concurrent reader cannot leave the pre-write state in the cache.
+ */
+final class SecondLevelCacheEviction {
+
+    static final String CATEGORY_PRODUCTS = "com.medipol.javaFinal.model.Category.products";
+
+    private SecondLevelCacheEviction() {
+    }
+
+    static void evict(EntityManager entityManager, Consumer<Cache> eviction) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        eviction.accept(cache);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.accept(cache);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.dto.Suggestion;
+
+import java.util.List;
+
+/**
+ * Type-ahead suggestions from an in-memory index of product and category names.
+ * Throws {@link NotReadyException} until the first index is built after startup.
+ */
+public interface AutocompleteService {
+
+    /**
+     * @param prefix typed text, matched against the start of any word of a name
+     * @param limit maximum number of suggestions
+     * @return names in stock order, best first
+     */
+    List<Suggestion> suggest(String prefix, int limit);
+}
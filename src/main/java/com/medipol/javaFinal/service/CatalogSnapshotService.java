@@ -0,0 +1,36 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.dto.InventorySummary;
+import com.medipol.javaFinal.dto.PriceDistributionSummary;
+import com.medipol.javaFinal.dto.ProductSummary;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Catalog analytics over the columnar snapshot instead of loaded entities.
+ * All methods throw {@link NotReadyException} while the snapshot is being built at startup.
+ * Quantities held by the write-behind buffer are counted once they are flushed.
+ */
+public interface CatalogSnapshotService {
+
+    InventorySummary getInventorySummary();
+
+    List<InventorySummary> getInventoryByCategory();
+
+    long countProductsWithPriceHigherThan(BigDecimal price);
+
+    List<ProductSummary> getLowStockProducts(int threshold, int limit);
+
+    List<ProductSummary> getProductsRankedByPrice(boolean descending, int limit, Long categoryId);
+
+    Optional<ProductSummary> getMostExpensiveProduct();
+
+    /**
+     * @param categoryId category, null for all products
+     * @param percentiles percentiles above 0 and up to 100
+     * @return approximate percentiles and histogram, empty if the category has no products
+     */
+    Optional<PriceDistributionSummary> getPriceDistribution(Long categoryId, List<Double> percentiles);
+}
@@ -15,7 +15,11 @@ public interface CategoryService {
     
     Category saveCategory(Category category);
     
-    void deleteCategory(Long id);
+    Optional<Category> updateCategory(Long id, Category category, Long expectedVersion);
+    
+    Optional<Category> setCategoryEnabled(Long id, boolean enabled);
+    
+    boolean deleteCategory(Long id, Long expectedVersion);
     
     List<Category> searchCategoriesByName(String name);
     
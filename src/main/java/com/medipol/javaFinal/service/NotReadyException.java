@@ -0,0 +1,11 @@
+package com.medipol.javaFinal.service;
+
+/**
+ * A service answers from data it builds after startup, and that data is not built yet
+ */
+public class NotReadyException extends RuntimeException {
+
+    public NotReadyException(String message) {
+        super(message);
+    }
+}
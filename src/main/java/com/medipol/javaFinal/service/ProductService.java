@@ -1,6 +1,11 @@
 package com.medipol.javaFinal.service;
 
+import com.medipol.javaFinal.dto.BatchItemResult;
+import com.medipol.javaFinal.dto.PageResponse;
+import com.medipol.javaFinal.dto.QuantityUpdate;
 import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.query.ProductFilter;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -12,17 +17,31 @@ public interface ProductService {
     
     Optional<Product> getProductById(Long id);
     
+    Optional<Product> getProductById(Long id, boolean includeArchived);
+    
     Product saveProduct(Product product);
     
-    void deleteProduct(Long id);
+    Optional<Product> updateProduct(Long id, Product product, Long expectedVersion);
+    
+    boolean deleteProduct(Long id, Long expectedVersion);
     
     List<Product> getProductsByCategory(Long categoryId);
     
     List<Product> searchProductsByName(String name);
     
+    List<Product> searchProductsByName(String name, boolean includeArchived);
+    
     List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
     
     List<Product> getLowStockProducts();
     
+    PageResponse<Product> queryProducts(ProductFilter filter, Pageable pageable);
+    
     boolean updateProductQuantity(Long id, Integer quantity);
+    
+    List<Product> getProductsByIds(List<Long> ids);
+    
+    List<BatchItemResult> saveProducts(List<Product> products);
+    
+    List<BatchItemResult> updateProductQuantities(List<QuantityUpdate> updates);
 } 
\ No newline at end of file
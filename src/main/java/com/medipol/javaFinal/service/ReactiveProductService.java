@@ -0,0 +1,25 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ReactiveProductService {
+    
+    Flux<Product> getAllProducts();
+    
+    Mono<Product> getProductById(Long id);
+    
+    Flux<Product> getProductsByIds(List<Long> ids);
+    
+    Flux<Product> getProductsByCategory(Long categoryId);
+    
+    Flux<Product> searchProductsByName(String name);
+    
+    Flux<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
+    
+    Flux<Product> getLowStockProducts();
+}
@@ -0,0 +1,11 @@
+package com.medipol.javaFinal.service;
+
+/**
+ * A product refers to a category id that does not exist
+ */
+public class UnknownCategoryException extends IllegalArgumentException {
+
+    public UnknownCategoryException(Long categoryId) {
+        super("Unknown category " + categoryId);
+    }
+}
@@ -0,0 +1,199 @@
+package com.medipol.javaFinal.service.impl;
+
+import com.medipol.javaFinal.autocomplete.SuggestionIndex;
+import com.medipol.javaFinal.autocomplete.SuggestionIndex.Entry;
+import com.medipol.javaFinal.autocomplete.SuggestionIndex.Type;
+import com.medipol.javaFinal.dto.Suggestion;
+import com.medipol.javaFinal.event.CategoryChangedEvent;
+import com.medipol.javaFinal.event.InvalidationsLostEvent;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.service.AutocompleteService;
+import com.medipol.javaFinal.service.NotReadyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves suggestions from an immutable {@link SuggestionIndex} and never queries the database on the
+ * request path. The index is rebuilt in the background when the products or categories changed and
+ * swapped in whole, readers keep the index they started with.
+ * <p>
+ * Change events schedule a rebuild after the rebuild delay, so all changes within it share one build.
+ * Changes no event was received for, e.g. from other instances without cache invalidation, are found
+ * by a cheap fingerprint check every check interval. Builds run on a thread of their own and never
+ * hold up the application's scheduler.
+ * <p>
+ * Product names are suggested once however many products share them, weighted by their total stock;
+ * enabled categories are weighted by the stock of their products.
+ */
+public class AutocompleteServiceImpl implements AutocompleteService, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteServiceImpl.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String FINGERPRINT = """
+            SELECT concat_ws(':', (SELECT count(*) FROM products), (SELECT max(updated_at) FROM products),
+                             (SELECT count(*) FROM categories), (SELECT max(updated_at) FROM categories))
+            """;
+    private static final String PRODUCT_NAMES = """
+            SELECT name, sum(quantity), CASE WHEN count(*) = 1 THEN min(id) END
+            FROM products
+            GROUP BY name
+            """;
+    private static final String CATEGORY_NAMES = """
+            SELECT c.id, c.name, coalesce(sum(p.quantity), 0)
+            FROM categories c LEFT JOIN products p ON p.category_id = c.id
+            WHERE c.enabled
+            GROUP BY c.id, c.name
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int topK;
+    private final Duration rebuildDelay;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService rebuilds = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autocomplete-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+    private volatile SuggestionIndex index;
+    private String lastFingerprint;
+
+    /**
+     * @param topK suggestions precomputed per prefix, the largest limit served
+     * @param rebuildDelay longest a change waits for the rebuild that includes it
+     * @param checkInterval time between fingerprint checks for changes without an event
+     */
+    public AutocompleteServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int topK,
+                                   Duration rebuildDelay, Duration checkInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.topK = topK;
+        this.rebuildDelay = rebuildDelay;
+        this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public List<Suggestion> suggest(String prefix, int limit) {
+        SuggestionIndex current = index;
+        if (current == null) {
+            throw new NotReadyException("Autocomplete index is not built yet");
+        }
+        return current.suggest(prefix, limit).stream()
+                .map(entry -> new Suggestion(entry.type(), entry.text(), entry.id()))
+                .toList();
+    }
+
+    /**
+     * First build once the application is up, so the CDS training run never touches the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        rebuild();
+        long interval = checkInterval.toNanos();
+        rebuilds.scheduleWithFixedDelay(this::rebuildIfChangedElsewhere, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @EventListener(InvalidationsLostEvent.class)
+    public void onInvalidationsLost() {
+        scheduleRebuild();
+    }
+
+    /**
+     * Build and swap the index now
+     */
+    public synchronized void rebuild() {
+        try {
+            build(jdbcTemplate.queryForObject(FINGERPRINT, String.class));
+        } catch (RuntimeException e) {
+            logger.error("Autocomplete index build failed, keeping the previous one", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuilds.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuilds.isShutdown() && rebuildScheduled.compareAndSet(false, true)) {
+            rebuilds.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, rebuildDelay.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void rebuildIfChangedElsewhere() {
+        try {
+            String fingerprint = jdbcTemplate.queryForObject(FINGERPRINT, String.class);
+            if (index == null || !fingerprint.equals(lastFingerprint)) {
+                build(fingerprint);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Autocomplete index build failed, keeping the previous one", e);
+        }
+    }
+
+    /**
+     * @param fingerprint fingerprint of the tables read before the build, a change during the build
+     *                    makes the next check build again
+     */
+    private void build(String fingerprint) {
+        long started = System.nanoTime();
+        SuggestionIndex built = SuggestionIndex.build(loadEntries(), topK);
+        index = built;
+        lastFingerprint = fingerprint;
+        logger.info("Built autocomplete index with {} names in {} ms", built.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private List<Entry> loadEntries() {
+        List<Entry> entries = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(PRODUCT_NAMES);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                Long id = resultSet.getObject(3, Long.class);
+                entries.add(new Entry(Type.PRODUCT, resultSet.getString(1), id, resultSet.getLong(2)));
+            });
+            jdbcTemplate.query(CATEGORY_NAMES, resultSet -> {
+                entries.add(new Entry(Type.CATEGORY, resultSet.getString(2), resultSet.getLong(1),
+                        resultSet.getLong(3)));
+            });
+        });
+        return entries;
+    }
+}
@@ -0,0 +1,490 @@
+package com.medipol.javaFinal.service.impl;
+
+import com.medipol.javaFinal.dto.InventorySummary;
+import com.medipol.javaFinal.dto.PriceDistributionSummary;
+import com.medipol.javaFinal.dto.PriceDistributionSummary.PriceBucket;
+import com.medipol.javaFinal.dto.ProductSummary;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.service.CatalogSnapshotService;
+import com.medipol.javaFinal.service.NotReadyException;
+import com.medipol.javaFinal.snapshot.CatalogSnapshot;
+import com.medipol.javaFinal.snapshot.CatalogSnapshot.Fingerprint;
+import com.medipol.javaFinal.snapshot.CatalogSnapshot.Row;
+import com.medipol.javaFinal.snapshot.PriceDistribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link CatalogSnapshot} in step with the products table. At startup the file of the
+ * previous run is reused if it still matches the table, otherwise it is rebuilt from one scan of
+ * the product columns. Changes of this instance arrive as {@link ProductChangedEvent}s after commit;
+ * changes made elsewhere are picked up by a rebuild when the table fingerprint moves.
+ * <p>
+ * A {@link PriceDistribution} is built with every snapshot and follows the same row changes.
+ * <p>
+ * Only one instance per host owns the configured file, others build a private temporary one.
+ * Rebuilds after startup run on a background thread of their own, reads keep using the previous
+ * snapshot meanwhile.
+ */
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotServiceImpl.class);
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String STATISTICS = """
+            SELECT count(*), coalesce(max(id), 0), coalesce(sum(version), 0),
+                   coalesce(CAST(extract(epoch FROM max(updated_at)) * 1000000 AS bigint), 0),
+                   coalesce(sum(octet_length(name)), 0)
+            FROM products
+            """;
+    private static final String ROWS = "SELECT id, price, quantity, category_id, name FROM products";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path configuredFile;
+    private final double priceAccuracy;
+    private final long[] priceBucketBounds;
+    private final ExecutorService rebuilds = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object mutex = new Object();
+    private volatile CatalogSnapshot snapshot;
+    /** Changed together with the snapshot, under the mutex */
+    private volatile PriceDistribution priceDistribution;
+    private boolean building;
+    /** Changes seen before the first snapshot or during a build, applied to the new snapshot afterwards */
+    private final List<ProductChangedEvent> pending = new ArrayList<>();
+    /** Fingerprint of the table the current snapshot was built from */
+    private Fingerprint lastFingerprint;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private Path file;
+
+    /**
+     * @param priceAccuracy relative error of price percentiles
+     * @param priceBucketBounds upper bounds of the price histogram buckets, the last bucket is open
+     */
+    public CatalogSnapshotServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                      Path file, double priceAccuracy, List<BigDecimal> priceBucketBounds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.configuredFile = file;
+        this.priceAccuracy = priceAccuracy;
+        this.priceBucketBounds = priceBucketBounds.stream().mapToLong(CatalogSnapshotServiceImpl::cents).toArray();
+    }
+
+    /**
+     * Runs once the application is up, so the CDS training run never touches the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() throws IOException {
+        file = acquireFile();
+        Statistics statistics = statistics();
+        CatalogSnapshot existing = CatalogSnapshot.open(file);
+        if (existing != null && existing.isReusableFor(statistics.fingerprint())
+                && existing.capacity() >= statistics.fingerprint().rowCount()) {
+            existing.markInUse();
+            logger.info("Reusing catalog snapshot {} with {} rows", file, existing.size());
+            install(existing, statistics.fingerprint());
+            return;
+        }
+        if (existing != null) {
+            existing.close();
+        }
+        rebuild(statistics);
+    }
+
+    /**
+     * Applied after commit, in the committing thread, so a read right after the write sees it. A change
+     * that does not fit into the snapshot leaves the rebuild to the background thread.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        boolean full;
+        synchronized (mutex) {
+            if (snapshot == null || building) {
+                pending.add(event);
+                return;
+            }
+            full = !apply(snapshot, event);
+        }
+        if (full) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Rebuilds when the table changed in a way this instance has not been told about. Only the check is
+     * scheduled, the rebuild itself runs on the background thread.
+     */
+    @Scheduled(fixedDelayString = "${app.catalog-snapshot.rebuild-interval:15m}")
+    public void rebuildIfChangedElsewhere() {
+        if (file == null || rebuilds.isShutdown()) {
+            return;
+        }
+        rebuilds.execute(() -> {
+            Statistics statistics = statistics();
+            Fingerprint built;
+            synchronized (mutex) {
+                built = lastFingerprint;
+            }
+            // own writes move the fingerprint too, the rebuild is what keeps other instances' writes visible
+            if (snapshot == null || !statistics.fingerprint().equals(built)) {
+                rebuild(statistics);
+            }
+        });
+    }
+
+    @Override
+    public InventorySummary getInventorySummary() {
+        CatalogSnapshot current = current();
+        long[] totals = new long[3];
+        current.scan(row -> {
+            int quantity = current.quantity(row);
+            totals[0]++;
+            totals[1] += quantity;
+            totals[2] += current.priceCents(row) * quantity;
+        });
+        return new InventorySummary(null, totals[0], totals[1], BigDecimal.valueOf(totals[2], 2));
+    }
+
+    @Override
+    public List<InventorySummary> getInventoryByCategory() {
+        CatalogSnapshot current = current();
+        Map<Long, long[]> totals = new TreeMap<>();
+        current.scan(row -> {
+            long[] category = totals.computeIfAbsent(current.categoryId(row), id -> new long[3]);
+            int quantity = current.quantity(row);
+            category[0]++;
+            category[1] += quantity;
+            category[2] += current.priceCents(row) * quantity;
+        });
+        List<InventorySummary> summaries = new ArrayList<>(totals.size());
+        totals.forEach((categoryId, category) -> summaries.add(new InventorySummary(
+                categoryId == 0 ? null : categoryId, category[0], category[1], BigDecimal.valueOf(category[2], 2))));
+        return summaries;
+    }
+
+    @Override
+    public long countProductsWithPriceHigherThan(BigDecimal price) {
+        CatalogSnapshot current = current();
+        // stored prices have two decimals, so above 9.995 is the same as above 9.99
+        long cents = cents(price);
+        long[] count = new long[1];
+        current.scan(row -> {
+            if (current.priceCents(row) > cents) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public List<ProductSummary> getLowStockProducts(int threshold, int limit) {
+        CatalogSnapshot current = current();
+        List<ProductSummary> products = new ArrayList<>();
+        current.scan(row -> {
+            if (products.size() < limit && current.quantity(row) < threshold) {
+                products.add(summary(current.row(row)));
+            }
+        });
+        return products;
+    }
+
+    @Override
+    public List<ProductSummary> getProductsRankedByPrice(boolean descending, int limit, Long categoryId) {
+        CatalogSnapshot current = current();
+        return current.topByPrice(limit, descending,
+                        row -> categoryId == null || current.categoryId(row) == categoryId)
+                .stream()
+                .map(CatalogSnapshotServiceImpl::summary)
+                .toList();
+    }
+
+    @Override
+    public Optional<ProductSummary> getMostExpensiveProduct() {
+        return getProductsRankedByPrice(true, 1, null).stream().findFirst();
+    }
+
+    @Override
+    public Optional<PriceDistributionSummary> getPriceDistribution(Long categoryId, List<Double> percentiles) {
+        current();
+        double[] quantiles = percentiles.stream().mapToDouble(percentile -> percentile / 100).toArray();
+        PriceDistribution.View view = priceDistribution.view(categoryId, quantiles);
+        if (view == null) {
+            return Optional.empty();
+        }
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        for (int i = 0; i < quantiles.length; i++) {
+            prices.put(BigDecimal.valueOf(percentiles.get(i)).stripTrailingZeros().toPlainString(),
+                    BigDecimal.valueOf(view.quantileCents()[i], 2));
+        }
+        List<PriceBucket> histogram = new ArrayList<>(view.bucketCounts().length);
+        for (int i = 0; i < view.bucketCounts().length; i++) {
+            histogram.add(new PriceBucket(
+                    BigDecimal.valueOf(i == 0 ? 0 : priceBucketBounds[i - 1], 2),
+                    i == priceBucketBounds.length ? null : BigDecimal.valueOf(priceBucketBounds[i], 2),
+                    view.bucketCounts()[i]));
+        }
+        return Optional.of(new PriceDistributionSummary(categoryId, view.count(), prices, histogram));
+    }
+
+    /**
+     * Marks the file clean with the fingerprint the snapshot was built from, so the next start skips the
+     * scan only if nothing changed since that build
+     */
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        rebuilds.shutdown();
+        rebuilds.awaitTermination(10, TimeUnit.SECONDS);
+        synchronized (mutex) {
+            CatalogSnapshot current = snapshot;
+            snapshot = null;
+            try {
+                if (current != null && lastFingerprint != null) {
+                    current.close(lastFingerprint);
+                } else if (current != null) {
+                    current.close();
+                }
+            } finally {
+                if (fileLock != null) {
+                    fileLock.release();
+                    lockChannel.close();
+                } else if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            throw new NotReadyException("Catalog snapshot is not loaded yet");
+        }
+        return current;
+    }
+
+    /**
+     * Build a new snapshot next to the file and swap it in. Events arriving meanwhile are queued and
+     * replayed; the scan may already include them, replaying is idempotent.
+     */
+    private void rebuild(Statistics statistics) {
+        synchronized (mutex) {
+            if (building) {
+                return;
+            }
+            building = true;
+        }
+        CatalogSnapshot built = null;
+        try {
+            long started = System.nanoTime();
+            int capacity = (int) Math.max(MIN_CAPACITY, statistics.fingerprint().rowCount() * 2);
+            long dictionary = Math.max(MIN_CAPACITY * 32L, statistics.nameBytes() * 2 + capacity * 4L);
+            Path building = file.resolveSibling(file.getFileName() + ".building");
+            while (built == null) {
+                CatalogSnapshot candidate = CatalogSnapshot.create(building, capacity,
+                        (int) Math.min(dictionary, Integer.MAX_VALUE / 2));
+                if (load(candidate)) {
+                    built = candidate;
+                } else {
+                    // the table grew during the scan
+                    candidate.close();
+                    capacity *= 2;
+                    dictionary *= 2;
+                }
+            }
+            Files.move(building, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            built.markInUse();
+            logger.info("Built catalog snapshot {} with {} rows in {} ms", file, built.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Catalog snapshot build failed, keeping the previous one", e);
+            if (built != null) {
+                closeQuietly(built);
+                built = null;
+            }
+        }
+        install(built, statistics.fingerprint());
+    }
+
+    /**
+     * Swap in a new snapshot, or keep the current one when built is null, and replay the queued changes
+     */
+    private void install(CatalogSnapshot built, Fingerprint fingerprint) {
+        CatalogSnapshot previous;
+        boolean full = false;
+        synchronized (mutex) {
+            building = false;
+            previous = snapshot;
+            if (built != null) {
+                snapshot = built;
+                priceDistribution = PriceDistribution.of(built, priceAccuracy, priceBucketBounds);
+                lastFingerprint = fingerprint;
+            }
+            if (snapshot != null) {
+                for (ProductChangedEvent event : pending) {
+                    full |= !apply(snapshot, event);
+                }
+                pending.clear();
+            }
+        }
+        if (previous != null && built != null && previous != built) {
+            // readers still scanning the old mapping keep it alive, closing only releases the channel
+            closeQuietly(previous);
+        }
+        if (full) {
+            rebuildInBackground();
+        }
+    }
+
+    private void rebuildInBackground() {
+        if (!rebuilds.isShutdown()) {
+            rebuilds.execute(() -> rebuild(statistics()));
+        }
+    }
+
+    private boolean load(CatalogSnapshot target) {
+        CatalogSnapshot.Loader loader = target.loader();
+        boolean[] fits = {true};
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ROWS + " ORDER BY id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            if (fits[0]) {
+                fits[0] = loader.add(toRow(resultSet));
+            }
+        }));
+        loader.finish();
+        return fits[0];
+    }
+
+    /**
+     * @return false if the snapshot is full
+     */
+    private boolean apply(CatalogSnapshot target, ProductChangedEvent event) {
+        if (event.deletedCategoryId() != null) {
+            target.deleteByCategory(event.deletedCategoryId());
+            priceDistribution.removeCategory(event.deletedCategoryId());
+        }
+        if (event.productIds().isEmpty()) {
+            return true;
+        }
+        Set<Long> missing = new HashSet<>(event.productIds());
+        List<Row> rows = jdbcTemplate.query(ROWS + " WHERE id = ANY(?)",
+                (resultSet, rowNum) -> toRow(resultSet), (Object) event.productIds().toArray(Long[]::new));
+        for (Row row : rows) {
+            missing.remove(row.id());
+            Row previous = target.get(row.id());
+            if (!target.upsert(row)) {
+                return false;
+            }
+            priceDistribution.replace(previous, row);
+        }
+        for (Long id : missing) {
+            Row previous = target.get(id);
+            target.delete(id);
+            priceDistribution.replace(previous, null);
+        }
+        return true;
+    }
+
+    private Statistics statistics() {
+        return jdbcTemplate.queryForObject(STATISTICS, (resultSet, rowNum) -> new Statistics(
+                new Fingerprint(resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3),
+                        resultSet.getLong(4)),
+                resultSet.getLong(5)));
+    }
+
+    /**
+     * Lock the configured file for this process; if another instance holds it, use a private temporary file
+     */
+    private Path acquireFile() throws IOException {
+        Files.createDirectories(configuredFile.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(configuredFile.resolveSibling(configuredFile.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock != null) {
+            lockChannel = channel;
+            fileLock = lock;
+            return configuredFile;
+        }
+        channel.close();
+        Path temporary = Files.createTempFile(configuredFile.toAbsolutePath().getParent(), "catalog", ".snapshot");
+        logger.info("Catalog snapshot {} is used by another instance, building {}", configuredFile, temporary);
+        return temporary;
+    }
+
+    private static Row toRow(ResultSet resultSet) throws SQLException {
+        long categoryId = resultSet.getLong(4);
+        return new Row(resultSet.getLong(1), resultSet.getBigDecimal(2).movePointRight(2).longValueExact(),
+                resultSet.getInt(3), categoryId, resultSet.getString(5));
+    }
+
+    /**
+     * @return the price in whole cents, rounded down
+     */
+    private static long cents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+
+    private static ProductSummary summary(Row row) {
+        return new ProductSummary(row.id(), row.name(), BigDecimal.valueOf(row.priceCents(), 2), row.quantity(),
+                row.categoryId() == 0 ? null : row.categoryId());
+    }
+
+    private static void closeQuietly(CatalogSnapshot snapshot) {
+        try {
+            snapshot.close();
+        } catch (IOException e) {
+            logger.warn("Closing catalog snapshot {} failed", snapshot.file(), e);
+        }
+    }
+
+    private record Statistics(Fingerprint fingerprint, long nameBytes) {
+    }
+}
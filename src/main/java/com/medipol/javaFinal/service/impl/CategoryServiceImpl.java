@@ -1,12 +1,24 @@
 package com.medipol.javaFinal.service.impl;
 
+import com.medipol.javaFinal.bloom.NegativeLookupGuard;
+import com.medipol.javaFinal.event.CategoryChangedEvent;
+import com.medipol.javaFinal.event.ProductChangedEvent;
 import com.medipol.javaFinal.model.Category;
 import com.medipol.javaFinal.repository.CategoryRepository;
+import com.medipol.javaFinal.repository.CategoryRepositoryCustom.Updated;
+import com.medipol.javaFinal.repository.ProductRepository;
 import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.util.SingleFlight;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,51 +26,160 @@ import java.util.Optional;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate readOnlyTransaction;
+    /** Null unless negative lookups are enabled */
+    private final NegativeLookupGuard negativeLookupGuard;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ProductRepository productRepository,
+                               ApplicationEventPublisher eventPublisher, SingleFlight singleFlight,
+                               PlatformTransactionManager transactionManager,
+                               ObjectProvider<NegativeLookupGuard> negativeLookupGuard) {
         this.categoryRepository = categoryRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.singleFlight = singleFlight;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.negativeLookupGuard = negativeLookupGuard.getIfAvailable();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Category> getCategoryById(Long id) {
         return categoryRepository.findById(id);
     }
 
+    /**
+     * A name the negative lookup filter has never seen is answered without a query
+     */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Category> getCategoryByName(String name) {
-        return categoryRepository.findByName(name);
+        if (negativeLookupGuard == null) {
+            return categoryRepository.findByName(name);
+        }
+        if (!negativeLookupGuard.mightHaveCategoryName(name)) {
+            return Optional.empty();
+        }
+        Optional<Category> category = categoryRepository.findByName(name);
+        if (category.isEmpty()) {
+            negativeLookupGuard.categoryNameNotFound();
+        }
+        return category;
     }
 
     @Override
     @Transactional
     public Category saveCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CategoryChangedEvent.of(saved.getId()));
+        return saved;
     }
 
+    /**
+     * A failed conditional update is a precondition failure only if the category still exists
+     */
     @Override
     @Transactional
-    public void deleteCategory(Long id) {
-        categoryRepository.deleteById(id);
+    public Optional<Category> updateCategory(Long id, Category category, Long expectedVersion) {
+        Optional<Updated> updated = categoryRepository.updateIfMatch(id, category, expectedVersion);
+        if (updated.isEmpty()) {
+            checkPrecondition(id, expectedVersion);
+        }
+        return updated.map(this::afterUpdate);
     }
 
     @Override
+    @Transactional
+    public Optional<Category> setCategoryEnabled(Long id, boolean enabled) {
+        return categoryRepository.updateEnabled(id, enabled).map(this::afterUpdate);
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteCategory(Long id, Long expectedVersion) {
+        if (categoryRepository.deleteWithProductsIfMatch(id, expectedVersion)) {
+            eventPublisher.publishEvent(ProductChangedEvent.categoryDeleted(id));
+            return true;
+        }
+        checkPrecondition(id, expectedVersion);
+        return false;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Category> searchCategoriesByName(String name) {
         return categoryRepository.findByNameContainingIgnoreCase(name);
     }
 
+    /**
+     * Answered like {@link #getCategoryByName(String)}
+     */
     @Override
+    @Transactional(readOnly = true)
     public boolean existsByName(String name) {
-        return categoryRepository.existsByName(name);
+        if (negativeLookupGuard == null) {
+            return categoryRepository.existsByName(name);
+        }
+        if (!negativeLookupGuard.mightHaveCategoryName(name)) {
+            return false;
+        }
+        boolean exists = categoryRepository.existsByName(name);
+        if (!exists) {
+            negativeLookupGuard.categoryNameNotFound();
+        }
+        return exists;
     }
 
+    /**
+     * Coalesced, concurrent calls share one query. Only the ids are shared: the caller that ran the
+     * query keeps its entities, the others load their own from the second-level cache, so lazy product
+     * lists stay bound to the caller's session.
+     */
     @Override
     public List<Category> findEnabledCategories() {
-        return categoryRepository.findByEnabledTrue();
+        List<List<Category>> loaded = new ArrayList<>(1);
+        List<Long> ids = singleFlight.execute("findEnabledCategories", List.of(),
+                () -> readOnlyTransaction.execute(status -> {
+                    List<Category> categories = categoryRepository.findByEnabledTrue();
+                    loaded.add(categories);
+                    return categories.stream().map(Category::getId).toList();
+                }));
+        if (!loaded.isEmpty()) {
+            return loaded.get(0);
+        }
+        return readOnlyTransaction.execute(status -> categoryRepository.findAllById(ids));
+    }
+
+    /**
+     * Re-enabling a category brings back all of its archived products, the next archive run moves
+     * the ones out of stock for too long back again
+     */
+    private Category afterUpdate(Updated updated) {
+        Long id = updated.category().getId();
+        eventPublisher.publishEvent(CategoryChangedEvent.of(id));
+        if (updated.reenabled()) {
+            List<Long> restored = productRepository.restoreArchivedOfCategory(id);
+            if (!restored.isEmpty()) {
+                eventPublisher.publishEvent(ProductChangedEvent.of(restored));
+            }
+        }
+        return updated.category();
+    }
+
+    private void checkPrecondition(Long id, Long expectedVersion) {
+        if (expectedVersion != null && categoryRepository.existsById(id)) {
+            throw new OptimisticLockingFailureException("Category " + id + " does not have version " + expectedVersion);
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,80 +1,427 @@
 package com.medipol.javaFinal.service.impl;
 
+import com.medipol.javaFinal.bloom.NegativeLookupGuard;
+import com.medipol.javaFinal.dto.BatchItemResult;
+import com.medipol.javaFinal.dto.BatchItemResult.Status;
+import com.medipol.javaFinal.dto.PageResponse;
+import com.medipol.javaFinal.dto.QuantityUpdate;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.model.Category;
 import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.query.InvalidFilterException;
+import com.medipol.javaFinal.query.ProductFilter;
+import com.medipol.javaFinal.repository.CategoryRepository;
 import com.medipol.javaFinal.repository.ProductRepository;
 import com.medipol.javaFinal.service.ProductService;
+import com.medipol.javaFinal.service.UnknownCategoryException;
+import com.medipol.javaFinal.util.SingleFlight;
+import com.medipol.javaFinal.writebehind.QuantityWriteBuffer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    /** SQLSTATE of a regular expression PostgreSQL rejects */
+    private static final String INVALID_REGULAR_EXPRESSION = "2201B";
+
     private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate readOnlyTransaction;
+    /** Null unless quantity write-behind is enabled */
+    private final QuantityWriteBuffer quantityWriteBuffer;
+    /** Null unless negative lookups are enabled */
+    private final NegativeLookupGuard negativeLookupGuard;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, CategoryRepository categoryRepository,
+                              Validator validator, ApplicationEventPublisher eventPublisher,
+                              SingleFlight singleFlight, PlatformTransactionManager transactionManager,
+                              ObjectProvider<QuantityWriteBuffer> quantityWriteBuffer,
+                              ObjectProvider<NegativeLookupGuard> negativeLookupGuard) {
         this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.singleFlight = singleFlight;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.quantityWriteBuffer = quantityWriteBuffer.getIfAvailable();
+        this.negativeLookupGuard = negativeLookupGuard.getIfAvailable();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return withBufferedQuantities(productRepository.findAll());
     }
 
+    /**
+     * An id the negative lookup filter has never seen is answered without a query
+     */
     @Override
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        if (negativeLookupGuard == null) {
+            return productRepository.findById(id).map(this::withBufferedQuantity);
+        }
+        if (!negativeLookupGuard.mightHaveProduct(id)) {
+            return Optional.empty();
+        }
+        Optional<Product> product = productRepository.findById(id);
+        if (product.isEmpty()) {
+            negativeLookupGuard.productNotFound();
+        }
+        return product.map(this::withBufferedQuantity);
     }
 
+    /**
+     * The archive is only read for ids that are not in the products table
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Product> getProductById(Long id, boolean includeArchived) {
+        Optional<Product> product = getProductById(id);
+        return product.isPresent() || !includeArchived ? product : productRepository.findArchivedById(id);
+    }
+
+    /**
+     * The category sent by the client carries only its id, the stored one is attached instead
+     */
     @Override
     @Transactional
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        product.setCategory(resolveCategory(product.getCategory()));
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(saved.getId()));
+        return saved;
     }
 
+    /**
+     * A failed conditional update is a precondition failure only if the product still exists
+     */
     @Override
     @Transactional
-    public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+    public Optional<Product> updateProduct(Long id, Product product, Long expectedVersion) {
+        resolveCategory(product.getCategory());
+        Optional<Product> updated = productRepository.updateIfMatch(id, product, expectedVersion);
+        if (updated.isEmpty()) {
+            checkPrecondition(id, expectedVersion);
+        } else {
+            eventPublisher.publishEvent(ProductChangedEvent.of(id));
+        }
+        return updated;
     }
 
+    @Override
+    @Transactional
+    public boolean deleteProduct(Long id, Long expectedVersion) {
+        if (productRepository.deleteIfMatch(id, expectedVersion)) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(id));
+            return true;
+        }
+        checkPrecondition(id, expectedVersion);
+        return false;
+    }
+
+    /**
+     * Coalesced, concurrent calls for the same category share one query and its products. The
+     * transaction is opened inside the coalescing so waiting callers do not hold a connection.
+     */
     @Override
     public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+        return withBufferedQuantities(singleFlight.execute("getProductsByCategory", List.of(categoryId),
+                () -> readOnlyTransaction.execute(status -> productRepository.findByCategoryId(categoryId))));
     }
 
+    /**
+     * Coalesced like {@link #getProductsByCategory(Long)}
+     */
     @Override
     public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+        return withBufferedQuantities(singleFlight.execute("searchProductsByName", List.of(name),
+                () -> readOnlyTransaction.execute(status -> productRepository.findByNameContainingIgnoreCase(name))));
     }
 
+    /**
+     * Archived matches follow the coalesced ones from the products table
+     */
     @Override
+    public List<Product> searchProductsByName(String name, boolean includeArchived) {
+        List<Product> products = searchProductsByName(name);
+        if (!includeArchived) {
+            return products;
+        }
+        List<Product> all = new ArrayList<>(products);
+        all.addAll(readOnlyTransaction.execute(status -> productRepository.findArchivedByNameContainingIgnoreCase(name)));
+        return all;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceBetween(minPrice, maxPrice);
+        return withBufferedQuantities(productRepository.findByPriceBetween(minPrice, maxPrice));
     }
 
+    /**
+     * Selected by the stored quantities, a buffered quantity only changes what is shown
+     */
     @Override
+    @Transactional(readOnly = true)
     public List<Product> getLowStockProducts() {
-        return productRepository.findLowStockProducts();
+        return withBufferedQuantities(productRepository.findLowStockProducts());
+    }
+
+    /**
+     * Runs entirely in the database. Conditions on the quantity see the stored value, not a buffered one.
+     * A regular expression the database cannot compile is an invalid filter.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<Product> queryProducts(ProductFilter filter, Pageable pageable) {
+        Page<Product> page;
+        try {
+            page = productRepository.findAll(filter.specification(), pageable);
+        } catch (DataAccessException e) {
+            if (NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                    && INVALID_REGULAR_EXPRESSION.equals(sqlException.getSQLState())) {
+                throw new InvalidFilterException("Invalid regular expression: " + sqlException.getMessage(), e);
+            }
+            throw e;
+        }
+        return PageResponse.of(page.map(this::withBufferedQuantity));
     }
 
+    /**
+     * With write-behind enabled the quantity is buffered and written by a later flush, which
+     * publishes the change event; it is written right away while the buffer is full. An archived
+     * product is restored first if the quantity is above 0.
+     */
     @Override
     @Transactional
     public boolean updateProductQuantity(Long id, Integer quantity) {
-        Optional<Product> productOptional = productRepository.findById(id);
-        
-        if (productOptional.isPresent()) {
-            Product product = productOptional.get();
-            product.setQuantity(quantity);
-            productRepository.save(product);
-            return true;
+        if (quantityWriteBuffer != null) {
+            if (!productRepository.existsById(id)) {
+                if (restoreForStock(List.of(id), quantity).isEmpty()) {
+                    return false;
+                }
+                eventPublisher.publishEvent(ProductChangedEvent.of(id));
+            }
+            if (quantityWriteBuffer.put(id, quantity)) {
+                return true;
+            }
         }
-        
-        return false;
+        boolean updated = productRepository.updateQuantity(id, quantity)
+                || !restoreForStock(List.of(id), quantity).isEmpty() && productRepository.updateQuantity(id, quantity);
+        if (updated) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(id));
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByIds(List<Long> ids) {
+        return withBufferedQuantities(productRepository.findAllById(ids));
+    }
+
+    /**
+     * Items are checked against bean validation, existing products and existing categories
+     * before anything is written, so a bad item is reported instead of rolling back the batch
+     */
+    @Override
+    @Transactional
+    public List<BatchItemResult> saveProducts(List<Product> products) {
+        Map<Long, Product> existing = byId(productRepository.findAllById(
+                products.stream().filter(Objects::nonNull).map(Product::getId).toList()), Product::getId);
+        Map<Long, Category> categories = byId(categoryRepository.findAllById(
+                products.stream().filter(Objects::nonNull).map(Product::getCategory).filter(Objects::nonNull)
+                        .map(Category::getId).toList()), Category::getId);
+
+        BatchItemResult[] results = new BatchItemResult[products.size()];
+        List<Product> accepted = new ArrayList<>();
+        List<BatchItemResult> acceptedResults = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product == null) {
+                results[i] = BatchItemResult.invalid(i, null, "Product is required");
+                continue;
+            }
+            String violations = violations(product);
+            if (violations != null) {
+                results[i] = BatchItemResult.invalid(i, product.getId(), violations);
+                continue;
+            }
+            Category category = null;
+            if (product.getCategory() != null) {
+                category = categories.get(product.getCategory().getId());
+                if (category == null) {
+                    results[i] = BatchItemResult.invalid(i, product.getId(),
+                            "Unknown category " + product.getCategory().getId());
+                    continue;
+                }
+            }
+            Product target = product;
+            Status status = Status.CREATED;
+            if (product.getId() != null) {
+                target = existing.get(product.getId());
+                if (target == null) {
+                    results[i] = BatchItemResult.of(i, product.getId(), Status.NOT_FOUND);
+                    continue;
+                }
+                target.setName(product.getName());
+                target.setDescription(product.getDescription());
+                target.setPrice(product.getPrice());
+                target.setQuantity(product.getQuantity());
+                status = Status.UPDATED;
+            }
+            target.setCategory(category);
+            accepted.add(target);
+            results[i] = BatchItemResult.of(i, product.getId(), status);
+            acceptedResults.add(results[i]);
+        }
+
+        List<Product> saved = productRepository.upsertAll(accepted);
+        for (int j = 0; j < saved.size(); j++) {
+            acceptedResults.get(j).setId(saved.get(j).getId());
+        }
+        if (!saved.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(saved.stream().map(Product::getId).toList()));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Changes are applied to the loaded products and written by one batched flush at commit.
+     * Archived products that get a quantity above 0 are restored first.
+     */
+    @Override
+    @Transactional
+    public List<BatchItemResult> updateProductQuantities(List<QuantityUpdate> updates) {
+        Map<Long, Product> products = byId(productRepository.findAllById(
+                updates.stream().filter(Objects::nonNull).map(QuantityUpdate::getId).toList()), Product::getId);
+        List<Long> restocked = updates.stream()
+                .filter(update -> update != null && update.getId() != null && !products.containsKey(update.getId())
+                        && update.getQuantity() != null && update.getQuantity() > 0)
+                .map(QuantityUpdate::getId)
+                .distinct()
+                .toList();
+        if (!restocked.isEmpty()) {
+            List<Long> restored = productRepository.restoreArchived(restocked);
+            if (!restored.isEmpty()) {
+                products.putAll(byId(productRepository.findAllById(restored), Product::getId));
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            QuantityUpdate update = updates.get(i);
+            if (update == null || update.getId() == null) {
+                results.add(BatchItemResult.invalid(i, null, "Product id is required"));
+            } else if (update.getQuantity() == null || update.getQuantity() < 0) {
+                results.add(BatchItemResult.invalid(i, update.getId(),
+                        "Quantity must be greater than or equal to 0"));
+            } else if (!products.containsKey(update.getId())) {
+                results.add(BatchItemResult.of(i, update.getId(), Status.NOT_FOUND));
+            } else {
+                products.get(update.getId()).setQuantity(update.getQuantity());
+                results.add(BatchItemResult.of(i, update.getId(), Status.UPDATED));
+            }
+        }
+        List<Long> updated = results.stream()
+                .filter(result -> result.getStatus() == Status.UPDATED)
+                .map(BatchItemResult::getId)
+                .toList();
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(updated));
+        }
+        return results;
+    }
+
+    /**
+     * @return the stored category with the id of the given one, null for none
+     * @throws UnknownCategoryException if there is no category with that id
+     */
+    private Category resolveCategory(Category category) {
+        if (category == null) {
+            return null;
+        }
+        if (category.getId() == null) {
+            throw new UnknownCategoryException(null);
+        }
+        return categoryRepository.findById(category.getId())
+                .orElseThrow(() -> new UnknownCategoryException(category.getId()));
+    }
+
+    private void checkPrecondition(Long id, Long expectedVersion) {
+        if (expectedVersion != null
+                && (productRepository.existsById(id) || productRepository.findArchivedById(id).isPresent())) {
+            throw new OptimisticLockingFailureException("Product " + id + " does not have version " + expectedVersion);
+        }
+    }
+
+    /**
+     * Move archived products back into the products table when they get stock again
+     * @return ids of the restored products, empty for a quantity of 0
+     */
+    private List<Long> restoreForStock(List<Long> ids, Integer quantity) {
+        return quantity != null && quantity > 0 ? productRepository.restoreArchived(ids) : List.of();
+    }
+
+    private Product withBufferedQuantity(Product product) {
+        return quantityWriteBuffer == null ? product : quantityWriteBuffer.overlay(product);
+    }
+
+    /**
+     * Products with a newer buffered quantity are replaced by copies, so lists shared by coalesced
+     * callers and managed entities are never written to
+     */
+    private List<Product> withBufferedQuantities(List<Product> products) {
+        if (quantityWriteBuffer == null || products == null) {
+            return products;
+        }
+        return products.stream().map(quantityWriteBuffer::overlay).toList();
+    }
+
+    private String violations(Product product) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.medipol.javaFinal.service.impl;
+
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.ReactiveProductRepository;
+import com.medipol.javaFinal.service.ReactiveProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+
+    @Autowired
+    public ReactiveProductServiceImpl(ReactiveProductRepository reactiveProductRepository) {
+        this.reactiveProductRepository = reactiveProductRepository;
+    }
+
+    @Override
+    public Flux<Product> getAllProducts() {
+        return reactiveProductRepository.findAll();
+    }
+
+    @Override
+    public Mono<Product> getProductById(Long id) {
+        return reactiveProductRepository.findById(id);
+    }
+
+    @Override
+    public Flux<Product> getProductsByIds(List<Long> ids) {
+        return reactiveProductRepository.findAllById(ids);
+    }
+
+    @Override
+    public Flux<Product> getProductsByCategory(Long categoryId) {
+        return reactiveProductRepository.findByCategoryId(categoryId);
+    }
+
+    @Override
+    public Flux<Product> searchProductsByName(String name) {
+        return reactiveProductRepository.findByNameContainingIgnoreCase(name);
+    }
+
+    @Override
+    public Flux<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        return reactiveProductRepository.findByPriceBetween(minPrice, maxPrice);
+    }
+
+    @Override
+    public Flux<Product> getLowStockProducts() {
+        return reactiveProductRepository.findLowStockProducts();
+    }
+}
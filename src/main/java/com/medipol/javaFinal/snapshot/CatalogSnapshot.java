@@ -0,0 +1,541 @@
+package com.medipol.javaFinal.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Columnar copy of the product catalog in a memory-mapped file: one fixed-width column per field,
+ * rows sorted by id, names stored once each in a dictionary and referenced by offset. About 33 bytes
+ * per product and none of it on the heap. Deleted products keep their slot, marked dead, until the
+ * next rebuild.
+ * <p>
+ * The header records whether the file was closed cleanly and a fingerprint of the table at that
+ * time, so a restart can reuse the file instead of scanning the table.
+ * <p>
+ * Thread safe: scans share a read lock, changes take the write lock.
+ */
+public class CatalogSnapshot implements Closeable {
+
+    /** Fingerprint of the products table, see {@link #isReusableFor(Fingerprint)} */
+    public record Fingerprint(long rowCount, long maxId, long versionSum, long maxUpdatedAtMicros) {
+    }
+
+    /** A product as stored in the snapshot, price in cents and category 0 for none */
+    public record Row(long id, long priceCents, int quantity, long categoryId, String name) {
+    }
+
+    /** Receives the live rows of a scan by position, read the columns it needs through the snapshot */
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(int row);
+    }
+
+    private static final int MAGIC = 0x43534e31; // "CSN1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 128;
+    /** Bytes per row over all columns: id, price, category, quantity, name, live */
+    private static final int ROW_SIZE = 8 + 8 + 8 + 4 + 4 + 1;
+    private static final int MAX_FILE_SIZE = Integer.MAX_VALUE - 8;
+    /** Bounds the heap used by a load, names beyond it are stored without deduplication */
+    static final int MAX_DEDUPLICATED_NAMES = 1 << 16;
+
+    // header fields
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_ROW_COUNT = 12;
+    private static final int H_DICTIONARY_CAPACITY = 16;
+    private static final int H_DICTIONARY_USED = 20;
+    private static final int H_CLEAN = 24;
+    private static final int H_FP_ROWS = 32;
+    private static final int H_FP_MAX_ID = 40;
+    private static final int H_FP_VERSIONS = 48;
+    private static final int H_FP_UPDATED = 56;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int dictionaryCapacity;
+    private final int ids;
+    private final int prices;
+    private final int categories;
+    private final int quantities;
+    private final int names;
+    private final int live;
+    private final int dictionary;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int rowCount;
+    private int dictionaryUsed;
+
+    private CatalogSnapshot(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity, int dictionaryCapacity) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.dictionaryCapacity = dictionaryCapacity;
+        this.ids = HEADER_SIZE;
+        this.prices = ids + 8 * capacity;
+        this.categories = prices + 8 * capacity;
+        this.quantities = categories + 8 * capacity;
+        this.names = quantities + 4 * capacity;
+        this.live = names + 4 * capacity;
+        this.dictionary = live + capacity;
+        this.rowCount = buffer.getInt(H_ROW_COUNT);
+        this.dictionaryUsed = buffer.getInt(H_DICTIONARY_USED);
+    }
+
+    /**
+     * Create an empty snapshot, replacing the file
+     * @param file snapshot file
+     * @param capacity maximum number of rows, including deleted ones
+     * @param dictionaryCapacity bytes available for names
+     * @return the snapshot, marked as not cleanly closed until {@link #close(Fingerprint)}
+     */
+    public static CatalogSnapshot create(Path file, int capacity, int dictionaryCapacity) throws IOException {
+        long size = (long) HEADER_SIZE + (long) ROW_SIZE * capacity + dictionaryCapacity;
+        if (size > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("Snapshot of " + capacity + " rows does not fit in one mapping");
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer buffer = map(channel, size);
+        buffer.putInt(H_MAGIC, MAGIC);
+        buffer.putInt(H_VERSION, FORMAT_VERSION);
+        buffer.putInt(H_CAPACITY, capacity);
+        buffer.putInt(H_ROW_COUNT, 0);
+        buffer.putInt(H_DICTIONARY_CAPACITY, dictionaryCapacity);
+        buffer.putInt(H_DICTIONARY_USED, 0);
+        buffer.put(H_CLEAN, (byte) 0);
+        return new CatalogSnapshot(file, channel, buffer, capacity, dictionaryCapacity);
+    }
+
+    /**
+     * Open an existing snapshot
+     * @param file snapshot file
+     * @return the snapshot, or null if the file is missing or not a snapshot of this format
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) < HEADER_SIZE) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = map(channel, channel.size());
+        int capacity = buffer.getInt(H_CAPACITY);
+        int dictionaryCapacity = buffer.getInt(H_DICTIONARY_CAPACITY);
+        long expectedSize = (long) HEADER_SIZE + (long) ROW_SIZE * capacity + dictionaryCapacity;
+        if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != FORMAT_VERSION
+                || channel.size() != expectedSize) {
+            channel.close();
+            return null;
+        }
+        return new CatalogSnapshot(file, channel, buffer, capacity, dictionaryCapacity);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    /**
+     * @param fingerprint current fingerprint of the products table
+     * @return true if the snapshot was closed cleanly while the table looked like this
+     */
+    public boolean isReusableFor(Fingerprint fingerprint) {
+        return buffer.get(H_CLEAN) == 1 && storedFingerprint().equals(fingerprint);
+    }
+
+    /**
+     * Mark the snapshot as in use, a crash from here on makes it unusable for the next start
+     */
+    public void markInUse() {
+        buffer.put(H_CLEAN, (byte) 0);
+        buffer.force();
+    }
+
+    /**
+     * Fill an empty snapshot row by row, in id order. Names seen during the load share one dictionary
+     * entry, up to {@link #MAX_DEDUPLICATED_NAMES} distinct names are tracked.
+     * @return a loader holding the write lock until {@link Loader#finish()}
+     */
+    public Loader loader() {
+        return new Loader();
+    }
+
+    /**
+     * Bulk load of an empty snapshot, see {@link #loader()}
+     */
+    public final class Loader {
+
+        private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+        private Loader() {
+            lock.writeLock().lock();
+        }
+
+        /**
+         * @param row next row, with a higher id than the previous one
+         * @return false if the row does not fit, the snapshot is then incomplete
+         */
+        public boolean add(Row row) {
+            if (rowCount == capacity) {
+                return false;
+            }
+            Integer nameRef = dictionaryIndex.get(row.name());
+            if (nameRef == null) {
+                nameRef = appendName(row.name());
+                if (nameRef < 0) {
+                    return false;
+                }
+                if (dictionaryIndex.size() < MAX_DEDUPLICATED_NAMES) {
+                    dictionaryIndex.put(row.name(), nameRef);
+                }
+            }
+            write(rowCount++, row, nameRef);
+            return true;
+        }
+
+        public void finish() {
+            buffer.putInt(H_ROW_COUNT, rowCount);
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insert or replace a product, keeping the rows sorted by id
+     * @param row current values
+     * @return false if the snapshot is full and has to be rebuilt larger
+     */
+    public boolean upsert(Row row) {
+        lock.writeLock().lock();
+        try {
+            int position = find(row.id());
+            if (position >= 0) {
+                int nameRef = buffer.getInt(names + 4 * position);
+                if (!readName(nameRef).equals(row.name())) {
+                    nameRef = appendName(row.name());
+                    if (nameRef < 0) {
+                        return false;
+                    }
+                }
+                write(position, row, nameRef);
+                return true;
+            }
+            if (rowCount == capacity) {
+                return false;
+            }
+            int nameRef = appendName(row.name());
+            if (nameRef < 0) {
+                return false;
+            }
+            // ids come from a sequence, so the insertion point is almost always at or near the end
+            int insertAt = -position - 1;
+            for (int i = rowCount; i > insertAt; i--) {
+                copyRow(i - 1, i);
+            }
+            write(insertAt, row, nameRef);
+            buffer.putInt(H_ROW_COUNT, ++rowCount);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id product id
+     * @return the live row of the product, or null
+     */
+    public Row get(long id) {
+        lock.readLock().lock();
+        try {
+            int position = find(id);
+            return position >= 0 && buffer.get(live + position) == 1 ? row(position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param id product id, unknown ids are ignored
+     */
+    public void delete(long id) {
+        lock.writeLock().lock();
+        try {
+            int position = find(id);
+            if (position >= 0) {
+                buffer.put(live + position, (byte) 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param categoryId category whose products are deleted
+     */
+    public void deleteByCategory(long categoryId) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < rowCount; i++) {
+                if (buffer.getLong(categories + 8 * i) == categoryId) {
+                    buffer.put(live + i, (byte) 0);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Visit every live row under the read lock
+     * @param visitor called with the position of each live row
+     */
+    public void scan(RowVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < rowCount; i++) {
+                if (buffer.get(live + i) == 1) {
+                    visitor.visit(i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live rows with the highest or lowest price
+     * @param limit number of rows
+     * @param descending highest prices first
+     * @param filter applied to the row position before ranking
+     * @return rows in rank order
+     */
+    public List<Row> topByPrice(int limit, boolean descending, IntPredicate filter) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            // bounded heap whose root is the weakest of the rows kept so far
+            int[] heap = new int[limit];
+            int[] size = {0};
+            long sign = descending ? 1 : -1;
+            scan(row -> {
+                if (!filter.test(row)) {
+                    return;
+                }
+                if (size[0] < limit) {
+                    heap[size[0]] = row;
+                    siftUp(heap, size[0]++, sign);
+                } else if (sign * priceCents(row) > sign * priceCents(heap[0])) {
+                    heap[0] = row;
+                    siftDown(heap, size[0], sign);
+                }
+            });
+            Row[] ranked = new Row[size[0]];
+            for (int end = size[0] - 1; end >= 0; end--) {
+                ranked[end] = row(heap[0]);
+                heap[0] = heap[end];
+                siftDown(heap, end, sign);
+            }
+            return Arrays.asList(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void siftUp(int[] heap, int index, long sign) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (sign * priceCents(heap[index]) >= sign * priceCents(heap[parent])) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, long sign) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (sign * priceCents(heap[child]) < sign * priceCents(heap[smallest])) {
+                    smallest = child;
+                }
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, index, smallest);
+            index = smallest;
+        }
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    // column accessors, positions are only stable inside a scan
+
+    public long id(int row) {
+        return buffer.getLong(ids + 8 * row);
+    }
+
+    public long priceCents(int row) {
+        return buffer.getLong(prices + 8 * row);
+    }
+
+    public long categoryId(int row) {
+        return buffer.getLong(categories + 8 * row);
+    }
+
+    public int quantity(int row) {
+        return buffer.getInt(quantities + 4 * row);
+    }
+
+    /**
+     * Decodes the name from the dictionary, the only accessor that allocates
+     */
+    public String name(int row) {
+        return readName(buffer.getInt(names + 4 * row));
+    }
+
+    public Row row(int position) {
+        return new Row(id(position), priceCents(position), quantity(position), categoryId(position), name(position));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int dictionaryCapacity() {
+        return dictionaryCapacity;
+    }
+
+    /**
+     * @return number of rows including deleted ones
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Close without marking the snapshot clean, the next start rebuilds it
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Write the fingerprint, mark the snapshot clean and close it
+     * @param fingerprint fingerprint of the products table matching the snapshot contents
+     */
+    public void close(Fingerprint fingerprint) throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.putLong(H_FP_ROWS, fingerprint.rowCount());
+            buffer.putLong(H_FP_MAX_ID, fingerprint.maxId());
+            buffer.putLong(H_FP_VERSIONS, fingerprint.versionSum());
+            buffer.putLong(H_FP_UPDATED, fingerprint.maxUpdatedAtMicros());
+            buffer.force();
+            buffer.put(H_CLEAN, (byte) 1);
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Fingerprint storedFingerprint() {
+        return new Fingerprint(buffer.getLong(H_FP_ROWS), buffer.getLong(H_FP_MAX_ID),
+                buffer.getLong(H_FP_VERSIONS), buffer.getLong(H_FP_UPDATED));
+    }
+
+    private int find(long id) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = buffer.getLong(ids + 8 * mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void write(int position, Row row, int nameRef) {
+        buffer.putLong(ids + 8 * position, row.id());
+        buffer.putLong(prices + 8 * position, row.priceCents());
+        buffer.putLong(categories + 8 * position, row.categoryId());
+        buffer.putInt(quantities + 4 * position, row.quantity());
+        buffer.putInt(names + 4 * position, nameRef);
+        buffer.put(live + position, (byte) 1);
+    }
+
+    private void copyRow(int from, int to) {
+        buffer.putLong(ids + 8 * to, buffer.getLong(ids + 8 * from));
+        buffer.putLong(prices + 8 * to, buffer.getLong(prices + 8 * from));
+        buffer.putLong(categories + 8 * to, buffer.getLong(categories + 8 * from));
+        buffer.putInt(quantities + 4 * to, buffer.getInt(quantities + 4 * from));
+        buffer.putInt(names + 4 * to, buffer.getInt(names + 4 * from));
+        buffer.put(live + to, buffer.get(live + from));
+    }
+
+    /**
+     * @return offset of the new entry in the dictionary, -1 if it is full
+     */
+    private int appendName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (dictionaryUsed + 4 + bytes.length > dictionaryCapacity) {
+            return -1;
+        }
+        int offset = dictionaryUsed;
+        buffer.putInt(dictionary + offset, bytes.length);
+        buffer.put(dictionary + offset + 4, bytes);
+        dictionaryUsed += 4 + bytes.length;
+        buffer.putInt(H_DICTIONARY_USED, dictionaryUsed);
+        return offset;
+    }
+
+    private String readName(int offset) {
+        int length = buffer.getInt(dictionary + offset);
+        byte[] bytes = new byte[length];
+        buffer.get(dictionary + offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package com.medipol.javaFinal.snapshot;
+
+import com.medipol.javaFinal.snapshot.CatalogSnapshot.Row;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Price quantiles and a fixed-bucket price histogram over all products and per category, kept next
+ * to a {@link CatalogSnapshot} and changed with it row by row. Reading a distribution costs the
+ * same whatever the size of the catalog.
+ * <p>
+ * Thread safe.
+ */
+public class PriceDistribution {
+
+    /**
+     * Distribution of the prices of all products or one category
+     * @param count number of products
+     * @param quantileCents price in cents at each requested quantile
+     * @param bucketCounts products per histogram bucket, see {@link #bucketBounds()}
+     */
+    public record View(long count, long[] quantileCents, long[] bucketCounts) {
+    }
+
+    private final double relativeAccuracy;
+    private final long[] bounds;
+    private final Prices total;
+    private final Map<Long, Prices> categories = new HashMap<>();
+
+    /**
+     * @param relativeAccuracy maximum relative error of a quantile
+     * @param bucketBounds ascending upper bounds in cents of all histogram buckets but the last, which is open
+     */
+    public PriceDistribution(double relativeAccuracy, long[] bucketBounds) {
+        for (int i = 1; i < bucketBounds.length; i++) {
+            if (bucketBounds[i] <= bucketBounds[i - 1]) {
+                throw new IllegalArgumentException("Histogram bounds must be ascending: " + Arrays.toString(bucketBounds));
+            }
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.bounds = bucketBounds.clone();
+        this.total = new Prices();
+    }
+
+    /**
+     * @return a distribution of the live rows of the snapshot
+     */
+    public static PriceDistribution of(CatalogSnapshot snapshot, double relativeAccuracy, long[] bucketBounds) {
+        PriceDistribution distribution = new PriceDistribution(relativeAccuracy, bucketBounds);
+        snapshot.scan(row -> distribution.add(snapshot.categoryId(row), snapshot.priceCents(row)));
+        return distribution;
+    }
+
+    /**
+     * Move a product from its previous to its current values
+     * @param previous row before the change, null for a new product
+     * @param current row after the change, null for a deleted product
+     */
+    public synchronized void replace(Row previous, Row current) {
+        if (previous != null) {
+            total.update(previous.priceCents(), -1);
+            Prices category = categories.get(previous.categoryId());
+            if (category != null) {
+                category.update(previous.priceCents(), -1);
+                if (category.sketch.count() == 0) {
+                    categories.remove(previous.categoryId());
+                }
+            }
+        }
+        if (current != null) {
+            add(current.categoryId(), current.priceCents());
+        }
+    }
+
+    /**
+     * Remove all products of a category
+     */
+    public synchronized void removeCategory(long categoryId) {
+        Prices category = categories.remove(categoryId);
+        if (category != null) {
+            total.sketch.removeAll(category.sketch);
+            for (int i = 0; i < category.buckets.length; i++) {
+                total.buckets[i] -= category.buckets[i];
+            }
+        }
+    }
+
+    /**
+     * @param categoryId category, null for all products; products without category are category 0
+     * @param quantiles quantiles between 0 and 1
+     * @return the distribution, null if the category has no products
+     */
+    public synchronized View view(Long categoryId, double[] quantiles) {
+        Prices prices = categoryId == null ? total : categories.get(categoryId);
+        if (prices == null) {
+            return null;
+        }
+        long[] quantileCents = new long[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            quantileCents[i] = prices.sketch.quantile(quantiles[i]);
+        }
+        return new View(prices.sketch.count(), quantileCents, prices.buckets.clone());
+    }
+
+    /**
+     * @return upper bounds in cents of the histogram buckets, the last bucket has none
+     */
+    public long[] bucketBounds() {
+        return bounds.clone();
+    }
+
+    private synchronized void add(long categoryId, long cents) {
+        total.update(cents, 1);
+        categories.computeIfAbsent(categoryId, id -> new Prices()).update(cents, 1);
+    }
+
+    /**
+     * Sketch and histogram of one set of products
+     */
+    private final class Prices {
+
+        final PriceSketch sketch = new PriceSketch(relativeAccuracy);
+        final long[] buckets = new long[bounds.length + 1];
+
+        void update(long cents, int delta) {
+            if (delta > 0) {
+                sketch.add(cents);
+            } else {
+                sketch.remove(cents);
+            }
+            // bucket i holds prices below bounds[i] and at or above bounds[i - 1]
+            int position = Arrays.binarySearch(bounds, cents);
+            buckets[position >= 0 ? position + 1 : -position - 1] += delta;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.medipol.javaFinal.snapshot;
+
+/**
+ * Quantile sketch of prices in cents with a relative error bound (DDSketch): prices are counted in
+ * logarithmic buckets whose width is a fixed fraction of their value, so every quantile is off by
+ * at most that fraction whatever the distribution. Unlike t-digest or KLL the counts can be
+ * decremented, which lets a price be taken back when a product changes or is deleted, and two
+ * sketches with the same accuracy add or subtract bucket by bucket.
+ * <p>
+ * Memory is bounded by the price range, about 1000 buckets from one cent to ten million at 1%.
+ * Not thread safe.
+ */
+public class PriceSketch {
+
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final double gamma;
+
+    /** counts[i] holds bucket minIndex + i */
+    private long[] counts = new long[0];
+    private int minIndex;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy maximum relative error of a quantile, between 0 and 1
+     */
+    public PriceSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1, got " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * @param cents price, not negative
+     */
+    public void add(long cents) {
+        update(cents, 1);
+    }
+
+    /**
+     * Take back a price added earlier
+     * @param cents price, not negative
+     */
+    public void remove(long cents) {
+        update(cents, -1);
+    }
+
+    /**
+     * Add all prices of another sketch with the same accuracy
+     */
+    public void addAll(PriceSketch other) {
+        combine(other, 1);
+    }
+
+    /**
+     * Take back all prices of another sketch with the same accuracy, which must all have been added to this one
+     */
+    public void removeAll(PriceSketch other) {
+        combine(other, -1);
+    }
+
+    /**
+     * @return number of prices in the sketch
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return price in cents at the quantile, within the relative accuracy; 0 for an empty sketch
+     */
+    public long quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, got " + quantile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return Math.round(value(minIndex + i));
+            }
+        }
+        return Math.round(value(minIndex + counts.length - 1));
+    }
+
+    private void update(long cents, long delta) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Price must not be negative, got " + cents);
+        }
+        if (cents == 0) {
+            zeroCount += delta;
+        } else {
+            int index = index(cents);
+            ensureCapacity(index, index);
+            counts[index - minIndex] += delta;
+        }
+        count += delta;
+    }
+
+    private void combine(PriceSketch other, long sign) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches of different accuracy cannot be combined");
+        }
+        if (other.counts.length > 0) {
+            ensureCapacity(other.minIndex, other.minIndex + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.minIndex + i - minIndex] += sign * other.counts[i];
+            }
+        }
+        zeroCount += sign * other.zeroCount;
+        count += sign * other.count;
+    }
+
+    /**
+     * Bucket i holds the values in (gamma^(i-1), gamma^i]
+     */
+    private int index(long cents) {
+        return (int) Math.ceil(Math.log(cents) / logGamma);
+    }
+
+    /**
+     * The value of a bucket whose relative distance to both bucket bounds is the accuracy
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void ensureCapacity(int low, int high) {
+        if (counts.length == 0) {
+            minIndex = low;
+            counts = new long[Math.max(INITIAL_BUCKETS, high - low + 1)];
+            return;
+        }
+        int maxIndex = minIndex + counts.length - 1;
+        if (low >= minIndex && high <= maxIndex) {
+            return;
+        }
+        int newMin = Math.min(low, minIndex);
+        int newMax = Math.max(high, maxIndex);
+        // grow by at least half again so a slowly widening range is not copied on every price
+        int length = Math.max(newMax - newMin + 1, counts.length + counts.length / 2);
+        if (newMin < minIndex) {
+            newMin = Math.min(newMin, newMax - length + 1);
+        }
+        long[] grown = new long[length];
+        System.arraycopy(counts, 0, grown, minIndex - newMin, counts.length);
+        counts = grown;
+        minIndex = newMin;
+    }
+}
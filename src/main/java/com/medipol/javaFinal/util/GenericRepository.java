@@ -5,27 +5,40 @@ import org.springframework.data.repository.NoRepositoryBean;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.Optional;
 
 /**
- * Generic interface demonstrating generic programming
+ * Shared base of the application repositories, adds batch reads and writes
+ * sized by {@code hibernate.jdbc.batch_size}. Implemented by {@link GenericRepositoryImpl}.
  * @param <T> Entity type
  * @param <ID> ID type of entity
  */
 @NoRepositoryBean
 public interface GenericRepository<T, ID extends Serializable> extends JpaRepository<T, ID> {
-    
+
     /**
-     * Find entities by enabled flag
-     * @param enabled enabled status
-     * @return list of enabled/disabled entities
+     * Find entities by id in chunked IN-lists. Entities already in the persistence
+     * context or the second-level cache are not queried again.
+     * @param ids ids to load
+     * @return found entities in the order of the ids, missing ids are skipped
      */
-    List<T> findByEnabled(boolean enabled);
-    
+    @Override
+    List<T> findAllById(Iterable<ID> ids);
+
+    /**
+     * Persist new and merge existing entities, flushing once per JDBC batch.
+     * Saved entities are detached once their batch is flushed, so large batches
+     * do not grow the persistence context.
+     * @param entities entities to insert or update
+     * @return the saved entities in input order
+     */
+    <S extends T> List<S> upsertAll(Iterable<S> entities);
+
     /**
-     * Find entity by name
-     * @param name name to search for
-     * @return optional entity
+     * Remove entities by id, flushing once per JDBC batch. Goes through the
+     * persistence context, so cascades and cache invalidation apply as for
+     * single deletes.
+     * @param ids ids to delete, unknown ids are ignored
+     * @return ids of the removed entities
      */
-    Optional<T> findByName(String name);
-} 
\ No newline at end of file
+    List<ID> deleteAllByIdInBatches(Iterable<ID> ids);
+}
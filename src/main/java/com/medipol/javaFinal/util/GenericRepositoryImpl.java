@@ -0,0 +1,122 @@
+package com.medipol.javaFinal.util;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Base class of all repositories, registered through
+ * {@code @EnableJpaRepositories(repositoryBaseClass = ...)}.
+ * @param <T> Entity type
+ * @param <ID> ID type of entity
+ */
+public class GenericRepositoryImpl<T, ID extends Serializable> extends SimpleJpaRepository<T, ID>
+        implements GenericRepository<T, ID> {
+
+    /** Largest IN-list sent in one query */
+    static final int IN_LIST_CHUNK_SIZE = 500;
+
+    private static final int DEFAULT_BATCH_SIZE = 50;
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public GenericRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+        int configured = ConfigurationHelper.getInt(AvailableSettings.STATEMENT_BATCH_SIZE,
+                entityManager.getEntityManagerFactory().getProperties(), DEFAULT_BATCH_SIZE);
+        this.batchSize = configured > 0 ? configured : DEFAULT_BATCH_SIZE;
+    }
+
+    @Override
+    @NonNull
+    public List<T> findAllById(@NonNull Iterable<ID> ids) {
+        Set<ID> distinct = new LinkedHashSet<>();
+        for (ID id : ids) {
+            if (id != null) {
+                distinct.add(id);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return entityManager.unwrap(Session.class)
+                .byMultipleIds(getDomainClass())
+                .withBatchSize(IN_LIST_CHUNK_SIZE)
+                .enableSessionCheck(true)
+                .multiLoad(new ArrayList<>(distinct))
+                .stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public <S extends T> List<S> upsertAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        List<S> pending = new ArrayList<>(batchSize);
+        for (S entity : entities) {
+            S managed;
+            if (entityInformation.isNew(entity)) {
+                entityManager.persist(entity);
+                managed = entity;
+            } else {
+                managed = entityManager.merge(entity);
+            }
+            saved.add(managed);
+            pending.add(managed);
+            if (pending.size() == batchSize) {
+                flushAndDetach(pending);
+            }
+        }
+        flushAndDetach(pending);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<ID> deleteAllByIdInBatches(Iterable<ID> ids) {
+        List<ID> deleted = new ArrayList<>();
+        int pending = 0;
+        for (T entity : findAllById(ids)) {
+            entityManager.remove(entity);
+            @SuppressWarnings("unchecked")
+            ID id = (ID) entityInformation.getId(entity);
+            deleted.add(id);
+            if (++pending == batchSize) {
+                entityManager.flush();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        return deleted;
+    }
+
+    /**
+     * Execute the pending statements as one JDBC batch and release the flushed entities,
+     * so large upserts do not grow the persistence context
+     */
+    private void flushAndDetach(List<? extends T> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        pending.forEach(entityManager::detach);
+        pending.clear();
+    }
+}
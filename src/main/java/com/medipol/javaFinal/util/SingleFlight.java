@@ -0,0 +1,103 @@
+package com.medipol.javaFinal.util;
+
+import com.medipol.javaFinal.datasource.ReplicaRoutingContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical reads into one: the first caller for a key runs the load, callers
+ * arriving while it is in flight wait for and share its result or exception. A caller that waits
+ * longer than the maximum wait runs the load itself.
+ * <p>
+ * Results are shared between threads and must be fully loaded and treated as read-only.
+ * Calls inside a transaction are never collapsed, they may depend on the transaction's own writes.
+ * <p>
+ * Outcomes are counted in the {@code app.coalescing.calls} metric, tagged with the call name and
+ * {@code executed}, {@code collapsed}, {@code timed-out} or {@code bypassed}.
+ */
+public class SingleFlight {
+
+    public static final String METRIC = "app.coalescing.calls";
+
+    private record Key(String name, List<?> arguments, boolean primaryRequired) {
+    }
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlight(boolean enabled, Duration maxWait, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name name of the call, usually the service method
+     * @param arguments arguments of the call, compared with equals
+     * @param loader loads the result, runs at most once at a time per name and arguments
+     * @return the result of this or a concurrent identical call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, List<?> arguments, Supplier<T> loader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            count(name, "bypassed");
+            return loader.get();
+        }
+        // reads pinned to the primary must not get a result read from a lagging replica
+        Key key = new Key(name, arguments, ReplicaRoutingContext.isPrimaryRequired());
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, own);
+        if (leader == null) {
+            count(name, "executed");
+            try {
+                T result = loader.get();
+                own.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, own);
+            }
+        }
+        try {
+            T result = (T) leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            count(name, "collapsed");
+            return result;
+        } catch (TimeoutException e) {
+            count(name, "timed-out");
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        } catch (ExecutionException e) {
+            count(name, "collapsed");
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    private void count(String name, String outcome) {
+        Counter.builder(METRIC)
+                .description("Service reads by whether they ran or shared a concurrent identical read")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,96 @@
+package com.medipol.javaFinal.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows observed latency, after the gradient algorithm of Netflix's
+ * concurrency-limits: a long-term average latency is compared with each new sample, and the limit
+ * shrinks in proportion when samples get slower and grows by a small queue allowance while they do
+ * not. When the database slows down the limit falls towards what it can serve, instead of requests
+ * queueing on the connection pool.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Latency growth accepted before the limit shrinks */
+    private static final double TOLERANCE = 1.5;
+    /** Weight of a new limit estimate against the current one */
+    private static final double SMOOTHING = 0.2;
+    /** Samples averaged into the long-term latency */
+    private static final int LONG_WINDOW = 600;
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double longRtt;
+    private long samples;
+
+    /**
+     * @param initialLimit limit until enough latency samples are seen
+     * @param minLimit lower bound, keeps some traffic flowing to measure recovery
+     * @param maxLimit upper bound
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * @return true if the call may proceed, it must then be followed by {@link #release(long)}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos how long the call took
+     */
+    public void release(long rttNanos) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        onSample(Math.max(rttNanos, 1), inFlightAtEnd);
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtEnd) {
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRtt += (rttNanos - longRtt) / samples;
+        } else {
+            longRtt += (rttNanos - longRtt) * 2 / (LONG_WINDOW + 1);
+        }
+        // recover quickly once a latency spike is over, otherwise its average masks later slowdowns
+        if (longRtt / rttNanos > 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        // a limit that is not being used says nothing about the capacity, do not grow it
+        if (inFlightAtEnd < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rttNanos));
+        double estimate = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - SMOOTHING) + estimate * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,81 @@
+package com.medipol.javaFinal.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streaming serializer for {@link Category} that honors the requested {@link FieldSelection}.
+ * The lazy product list is only touched when it is part of the selection.
+ */
+@JsonComponent
+public class CategoryJsonSerializer extends StdSerializer<Category> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString ENABLED = new SerializedString("enabled");
+    private static final SerializedString PRODUCTS = new SerializedString("products");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+
+    /** Fields of a category nested in a product, which has no product list */
+    static final FieldSelection.Schema NESTED_FIELDS = FieldSelection.Schema.of(
+            "id", "name", "description", "enabled", "createdAt", "updatedAt");
+
+    /** Fields of a category returned on its own */
+    public static final FieldSelection.Schema FIELDS = NESTED_FIELDS.with("products", ProductJsonSerializer.NESTED_FIELDS);
+
+    public CategoryJsonSerializer() {
+        super(Category.class);
+    }
+
+    @Override
+    public void serialize(Category category, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeCategory(category, gen, FieldSelection.resolve(provider), true);
+    }
+
+    static void writeCategory(Category category, JsonGenerator gen, FieldSelection selection, boolean withProducts) throws IOException {
+        gen.writeStartObject(category);
+        if (selection.includes("id")) {
+            StreamingJson.writeLong(gen, ID, category.getId());
+        }
+        if (selection.includes("name")) {
+            StreamingJson.writeString(gen, NAME, category.getName());
+        }
+        if (selection.includes("description")) {
+            StreamingJson.writeString(gen, DESCRIPTION, category.getDescription());
+        }
+        if (selection.includes("enabled")) {
+            StreamingJson.writeBoolean(gen, ENABLED, category.getEnabled());
+        }
+        if (withProducts && selection.includes("products")) {
+            gen.writeFieldName(PRODUCTS);
+            List<Product> products = category.getProducts();
+            if (products == null) {
+                gen.writeNull();
+            } else {
+                FieldSelection productSelection = selection.nested("products");
+                gen.writeStartArray(products, products.size());
+                for (Product product : products) {
+                    ProductJsonSerializer.writeProduct(product, gen, productSelection, false);
+                }
+                gen.writeEndArray();
+            }
+        }
+        if (selection.includes("createdAt")) {
+            StreamingJson.writeTimestamp(gen, CREATED_AT, category.getCreatedAt());
+        }
+        if (selection.includes("updatedAt")) {
+            StreamingJson.writeTimestamp(gen, UPDATED_AT, category.getUpdatedAt());
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,122 @@
+package com.medipol.javaFinal.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load per endpoint group before it reaches the connection pool. Requests addressing a single
+ * product or category share one {@link AdaptiveConcurrencyLimiter}, list, search and batch requests
+ * another, so slow collection reads cannot starve cheap point lookups. Requests over the limit get an
+ * immediate 503 with {@code Retry-After}.
+ * <p>
+ * Metrics, tagged by group: {@code app.concurrency.limit}, {@code app.concurrency.in-flight} and
+ * {@code app.concurrency.rejected}.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final String LOOKUP = "lookup";
+    public static final String LIST = "list";
+
+    /** One resource by id, optionally a sub-resource such as /quantity or /enable */
+    private static final Pattern SINGLE_RESOURCE = Pattern.compile("^/api/(products|categories)/\\d+(/[a-z]+)?$");
+    private static final Pattern COLLECTION = Pattern.compile("^/api/(products|categories)/?$");
+
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters;
+    private final Map<String, Counter> rejected;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter lookupLimiter, AdaptiveConcurrencyLimiter listLimiter,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.limiters = Map.of(LOOKUP, lookupLimiter, LIST, listLimiter);
+        this.rejected = Map.of(LOOKUP, rejectedCounter(LOOKUP, meterRegistry), LIST, rejectedCounter(LIST, meterRegistry));
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+        limiters.forEach((group, limiter) -> {
+            Gauge.builder("app.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("group", group)
+                    .register(meterRegistry);
+            Gauge.builder("app.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests currently admitted")
+                    .tag("group", group)
+                    .register(meterRegistry);
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String group = group(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            rejected.get(group).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        long started = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter, started));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limiter.release(System.nanoTime() - started);
+            }
+        }
+    }
+
+    static String group(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (SINGLE_RESOURCE.matcher(path).matches()
+                || (HttpMethod.POST.matches(request.getMethod()) && COLLECTION.matcher(path).matches())) {
+            return LOOKUP;
+        }
+        return LIST;
+    }
+
+    private static Counter rejectedCounter(String group, MeterRegistry meterRegistry) {
+        return Counter.builder("app.concurrency.rejected")
+                .description("Requests answered with 503 because the concurrency limit was reached")
+                .tag("group", group)
+                .register(meterRegistry);
+    }
+
+    private record ReleaseOnComplete(AdaptiveConcurrencyLimiter limiter, long started) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(System.nanoTime() - started);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.medipol.javaFinal.web;
+
+/**
+ * Entity tags derived from the {@code version} column, used for {@code ETag} and {@code If-Match}
+ */
+public final class EntityTags {
+
+    /** Version that no row ever has, returned for tags that cannot match */
+    static final long UNMATCHABLE = -1L;
+
+    private EntityTags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Version required by an {@code If-Match} header
+     * @param ifMatch header value, may be absent
+     * @return {@code null} when there is no precondition (absent or {@code *}), otherwise the expected version
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return UNMATCHABLE;
+        }
+    }
+}
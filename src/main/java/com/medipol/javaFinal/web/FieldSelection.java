@@ -0,0 +1,166 @@
+package com.medipol.javaFinal.web;
+
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse fieldset requested through the {@code fields} query parameter,
+ * e.g. {@code ?fields=id,name,price,category.name}.
+ * <p>
+ * A plain name selects the whole field, a dotted name selects a field of a nested object.
+ * Selections are checked against the {@link Schema} of the returned type by {@link #validate(Schema)}.
+ */
+public final class FieldSelection {
+
+    public static final String PARAMETER = "fields";
+
+    public static final FieldSelection ALL = new FieldSelection(null, Collections.emptyMap());
+
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, FieldSelection> CACHE = new ConcurrentHashMap<>();
+
+    private final Set<String> fields;
+    private final Map<String, FieldSelection> nested;
+
+    private FieldSelection(Set<String> fields, Map<String, FieldSelection> nested) {
+        this.fields = fields;
+        this.nested = nested;
+    }
+
+    /**
+     * Parse a comma separated field list, results are cached per distinct expression
+     * @param expression field list, blank means all fields
+     * @return parsed selection
+     */
+    public static FieldSelection parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return ALL;
+        }
+        FieldSelection cached = CACHE.get(expression);
+        if (cached != null) {
+            return cached;
+        }
+        FieldSelection selection = doParse(expression.split(","));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.put(expression, selection);
+        }
+        return selection;
+    }
+
+    private static FieldSelection doParse(String[] paths) {
+        Set<String> fields = new HashSet<>();
+        Map<String, Set<String>> nestedPaths = new HashMap<>();
+        for (String path : paths) {
+            String trimmed = path.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int dot = trimmed.indexOf('.');
+            if (dot < 0) {
+                fields.add(trimmed);
+            } else {
+                String head = trimmed.substring(0, dot);
+                fields.add(head);
+                nestedPaths.computeIfAbsent(head, key -> new HashSet<>()).add(trimmed.substring(dot + 1));
+            }
+        }
+        if (fields.isEmpty()) {
+            return ALL;
+        }
+        Map<String, FieldSelection> nested = new HashMap<>();
+        nestedPaths.forEach((head, children) -> nested.put(head, doParse(children.toArray(new String[0]))));
+        return new FieldSelection(Set.copyOf(fields), Map.copyOf(nested));
+    }
+
+    /**
+     * Resolve the selection for the current serialization call. An attribute set on the
+     * {@code ObjectWriter} wins, otherwise the {@code fields} parameter of the current request is used.
+     * The result is remembered on the provider so list elements resolve it only once.
+     * @param provider serializer provider of the current call
+     * @return selection to apply to the root object
+     */
+    public static FieldSelection resolve(SerializerProvider provider) {
+        Object attribute = provider.getAttribute(FieldSelection.class);
+        if (attribute instanceof FieldSelection selection) {
+            return selection;
+        }
+        FieldSelection selection = ALL;
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes servletAttributes) {
+            selection = parse(servletAttributes.getRequest().getParameter(PARAMETER));
+        }
+        provider.setAttribute(FieldSelection.class, selection);
+        return selection;
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Selection for the fields of a nested object
+     * @param field name of the nested field
+     * @return the nested selection, all fields if none was given
+     */
+    public FieldSelection nested(String field) {
+        return nested.getOrDefault(field, ALL);
+    }
+
+    /**
+     * Check that every selected field, nested ones included, is one the schema writes
+     * @throws InvalidFieldSelectionException naming the first unknown field
+     */
+    public void validate(Schema schema) {
+        validate(schema, "");
+    }
+
+    private void validate(Schema schema, String prefix) {
+        if (fields == null) {
+            return;
+        }
+        for (String field : new TreeSet<>(fields)) {
+            if (!schema.fields().contains(field)) {
+                throw new InvalidFieldSelectionException("Unknown field: " + prefix + field);
+            }
+        }
+        for (Map.Entry<String, FieldSelection> entry : new TreeMap<>(nested).entrySet()) {
+            Schema nestedSchema = schema.nested().get(entry.getKey());
+            if (nestedSchema == null) {
+                throw new InvalidFieldSelectionException("Field has no nested fields: " + prefix + entry.getKey());
+            }
+            entry.getValue().validate(nestedSchema, prefix + entry.getKey() + ".");
+        }
+    }
+
+    /**
+     * Fields a serializer writes for a type, and the schemas of the fields holding nested objects
+     */
+    public record Schema(Set<String> fields, Map<String, Schema> nested) {
+
+        public static Schema of(String... fields) {
+            return new Schema(Set.of(fields), Map.of());
+        }
+
+        /**
+         * @return this schema plus a field holding an object of the given schema
+         */
+        public Schema with(String field, Schema schema) {
+            Set<String> allFields = new HashSet<>(fields);
+            allFields.add(field);
+            Map<String, Schema> allNested = new HashMap<>(nested);
+            allNested.put(field, schema);
+            return new Schema(Set.copyOf(allFields), Map.copyOf(allNested));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.medipol.javaFinal.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+
+/**
+ * Rejects a {@code fields} parameter with unknown fields before the handler runs. The serializers
+ * stream the response and can no longer turn it into an error, so they never see an invalid selection.
+ */
+public class FieldSelectionInterceptor implements HandlerInterceptor {
+
+    private final Map<Class<?>, FieldSelection.Schema> schemas;
+
+    /**
+     * @param schemas fields of the objects each controller returns, by controller class
+     */
+    public FieldSelectionInterceptor(Map<Class<?>, FieldSelection.Schema> schemas) {
+        this.schemas = Map.copyOf(schemas);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            FieldSelection.Schema schema = schemas.get(handlerMethod.getBeanType());
+            if (schema != null) {
+                FieldSelection.parse(request.getParameter(FieldSelection.PARAMETER)).validate(schema);
+            }
+        }
+        return true;
+    }
+}
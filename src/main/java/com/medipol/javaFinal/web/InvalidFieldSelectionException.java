@@ -0,0 +1,11 @@
+package com.medipol.javaFinal.web;
+
+/**
+ * A {@code fields} parameter naming a field the response object does not have
+ */
+public class InvalidFieldSelectionException extends IllegalArgumentException {
+
+    public InvalidFieldSelectionException(String message) {
+        super(message);
+    }
+}
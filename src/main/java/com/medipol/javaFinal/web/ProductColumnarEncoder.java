@@ -0,0 +1,178 @@
+package com.medipol.javaFinal.web;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes a list of products column by column using protobuf-style varints.
+ * <p>
+ * Layout: magic {@code PCOL}, format version, row count, then one block per column
+ * (id, name, description, price in cents, quantity, category id, created at, updated at)
+ * and finally a table of the distinct categories referenced by the rows.
+ * Nullable columns are preceded by a presence bitmap, integers are zigzag varints and
+ * ids/timestamps are delta encoded against the previous row.
+ */
+public class ProductColumnarEncoder {
+
+    public static final byte[] MAGIC = {'P', 'C', 'O', 'L'};
+    public static final int VERSION = 1;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    private ProductColumnarEncoder(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Write the given products to the stream in the columnar format
+     * @param products products to encode
+     * @param out target stream, left open
+     */
+    public static void encode(List<Product> products, OutputStream out) throws IOException {
+        ProductColumnarEncoder encoder = new ProductColumnarEncoder(out);
+        encoder.writeProducts(products);
+        encoder.flush();
+    }
+
+    private void writeProducts(List<Product> products) throws IOException {
+        writeBytes(MAGIC);
+        writeVarint(VERSION);
+        writeVarint(products.size());
+
+        writeDeltaColumn(products, Product::getId);
+        writeStringColumn(products, Product::getName);
+        writeStringColumn(products, Product::getDescription);
+        writeLongColumn(products, product -> toCents(product.getPrice()));
+        writeLongColumn(products, product -> product.getQuantity() == null ? null : product.getQuantity().longValue());
+        writeLongColumn(products, product -> product.getCategory() == null ? null : product.getCategory().getId());
+        writeDeltaColumn(products, product -> toEpochMillis(product.getCreatedAt()));
+        writeDeltaColumn(products, product -> toEpochMillis(product.getUpdatedAt()));
+
+        Map<Long, Category> categories = new LinkedHashMap<>();
+        for (Product product : products) {
+            Category category = product.getCategory();
+            if (category != null && category.getId() != null) {
+                categories.putIfAbsent(category.getId(), category);
+            }
+        }
+        writeVarint(categories.size());
+        for (Category category : categories.values()) {
+            writeVarint(zigzag(category.getId()));
+            writeString(category.getName());
+        }
+    }
+
+    private void writeDeltaColumn(List<Product> products, Function<Product, Long> getter) throws IOException {
+        writePresence(products, getter);
+        long previous = 0;
+        for (Product product : products) {
+            Long value = getter.apply(product);
+            if (value != null) {
+                writeVarint(zigzag(value - previous));
+                previous = value;
+            }
+        }
+    }
+
+    private void writeLongColumn(List<Product> products, Function<Product, Long> getter) throws IOException {
+        writePresence(products, getter);
+        for (Product product : products) {
+            Long value = getter.apply(product);
+            if (value != null) {
+                writeVarint(zigzag(value));
+            }
+        }
+    }
+
+    private void writeStringColumn(List<Product> products, Function<Product, String> getter) throws IOException {
+        writePresence(products, getter);
+        for (Product product : products) {
+            String value = getter.apply(product);
+            if (value != null) {
+                writeString(value);
+            }
+        }
+    }
+
+    private void writePresence(List<Product> products, Function<Product, ?> getter) throws IOException {
+        int bits = 0;
+        int count = 0;
+        for (Product product : products) {
+            if (getter.apply(product) != null) {
+                bits |= 1 << count;
+            }
+            if (++count == 8) {
+                writeByte(bits);
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            writeByte(bits);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flush();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static Long toCents(BigDecimal price) {
+        return price == null ? null : price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static Long toEpochMillis(LocalDateTime time) {
+        return time == null ? null : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,66 @@
+package com.medipol.javaFinal.web;
+
+import com.medipol.javaFinal.model.Product;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Write-only converter that serves product lists in the columnar format
+ * produced by {@link ProductColumnarEncoder}
+ */
+public class ProductColumnarHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<Product>> {
+
+    public static final MediaType PRODUCT_COLUMNAR = MediaType.valueOf("application/x-product-columnar");
+
+    public ProductColumnarHttpMessageConverter() {
+        super(PRODUCT_COLUMNAR);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, @NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        if (!(type instanceof ParameterizedType parameterizedType)
+                || !List.class.isAssignableFrom(clazz)
+                || !Product.class.equals(parameterizedType.getActualTypeArguments()[0])) {
+            return false;
+        }
+        return canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull List<Product> products, @Nullable Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        ProductColumnarEncoder.encode(products, outputMessage.getBody());
+    }
+
+    @Override
+    @NonNull
+    public List<Product> read(@NonNull Type type, @Nullable Class<?> contextClass, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar product format is write-only", inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected List<Product> readInternal(@NonNull Class<? extends List<Product>> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar product format is write-only", inputMessage);
+    }
+}
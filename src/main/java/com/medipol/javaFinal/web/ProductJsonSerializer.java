@@ -0,0 +1,80 @@
+package com.medipol.javaFinal.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Streaming serializer for {@link Product} that honors the requested {@link FieldSelection}.
+ * The nested category is written without its product list, matching the entity's
+ * {@code @JsonIgnoreProperties} configuration.
+ */
+@JsonComponent
+public class ProductJsonSerializer extends StdSerializer<Product> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString PRICE = new SerializedString("price");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString CATEGORY = new SerializedString("category");
+    private static final SerializedString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+
+    /** Fields of a product nested in a category, which has no category itself */
+    static final FieldSelection.Schema NESTED_FIELDS = FieldSelection.Schema.of(
+            "id", "name", "description", "price", "quantity", "createdAt", "updatedAt");
+
+    /** Fields of a product returned on its own */
+    public static final FieldSelection.Schema FIELDS = NESTED_FIELDS.with("category", CategoryJsonSerializer.NESTED_FIELDS);
+
+    public ProductJsonSerializer() {
+        super(Product.class);
+    }
+
+    @Override
+    public void serialize(Product product, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        writeProduct(product, gen, FieldSelection.resolve(provider), true);
+    }
+
+    static void writeProduct(Product product, JsonGenerator gen, FieldSelection selection, boolean withCategory) throws IOException {
+        gen.writeStartObject(product);
+        if (selection.includes("id")) {
+            StreamingJson.writeLong(gen, ID, product.getId());
+        }
+        if (selection.includes("name")) {
+            StreamingJson.writeString(gen, NAME, product.getName());
+        }
+        if (selection.includes("description")) {
+            StreamingJson.writeString(gen, DESCRIPTION, product.getDescription());
+        }
+        if (selection.includes("price")) {
+            StreamingJson.writeDecimal(gen, PRICE, product.getPrice());
+        }
+        if (selection.includes("quantity")) {
+            StreamingJson.writeInteger(gen, QUANTITY, product.getQuantity());
+        }
+        if (withCategory && selection.includes("category")) {
+            gen.writeFieldName(CATEGORY);
+            Category category = product.getCategory();
+            if (category == null) {
+                gen.writeNull();
+            } else {
+                CategoryJsonSerializer.writeCategory(category, gen, selection.nested("category"), false);
+            }
+        }
+        if (selection.includes("createdAt")) {
+            StreamingJson.writeTimestamp(gen, CREATED_AT, product.getCreatedAt());
+        }
+        if (selection.includes("updatedAt")) {
+            StreamingJson.writeTimestamp(gen, UPDATED_AT, product.getUpdatedAt());
+        }
+        gen.writeEndObject();
+    }
+}
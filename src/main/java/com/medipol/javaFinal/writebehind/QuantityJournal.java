@@ -0,0 +1,139 @@
+package com.medipol.javaFinal.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of buffered quantity updates, forced to disk before an update is acknowledged.
+ * The log is split into numbered segments: a flush starts a new segment and, once the flushed
+ * updates are committed, deletes the older ones. Concurrent appends share one force.
+ * <p>
+ * Not thread safe against {@link #rotate()}, the caller keeps appends and rotation apart.
+ */
+class QuantityJournal implements Closeable {
+
+    /** A journaled update, the time is when it was accepted */
+    record Entry(long id, int quantity, LocalDateTime updatedAt) {
+    }
+
+    private static final String PREFIX = "quantities-";
+    private static final String SUFFIX = ".journal";
+    /** id, quantity, update time in epoch microseconds */
+    private static final int RECORD_SIZE = 8 + 4 + 8;
+
+    private final Path directory;
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+
+    private FileChannel channel;
+    private long segment;
+    private volatile long written;
+    private long forced;
+
+    QuantityJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segments = segments();
+        this.segment = segments.isEmpty() ? 0 : segments.lastKey();
+        open(segment + 1);
+    }
+
+    /**
+     * @return the updates of all segments written before this journal was opened, oldest first;
+     * a record cut short by a crash is skipped
+     */
+    List<Entry> recover() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments().headMap(segment).values()) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.remaining() >= RECORD_SIZE) {
+                entries.add(new Entry(buffer.getLong(), buffer.getInt(),
+                        LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC).plus(buffer.getLong(), ChronoUnit.MICROS)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Write an update and return once it is on disk
+     */
+    void append(long id, int quantity, LocalDateTime updatedAt) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putLong(id)
+                .putInt(quantity)
+                .putLong(ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), updatedAt))
+                .flip();
+        long end;
+        synchronized (writeLock) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            end = channel.position();
+            written = end;
+        }
+        synchronized (forceLock) {
+            // a force started after our write covers it, no need for another
+            if (forced < end) {
+                long target = written;
+                channel.force(false);
+                forced = target;
+            }
+        }
+    }
+
+    /**
+     * Start a new segment, later appends go there
+     * @return number of the new segment, segments before it can be deleted once their updates are stored
+     */
+    long rotate() throws IOException {
+        channel.close();
+        open(segment + 1);
+        return segment;
+    }
+
+    /**
+     * @param segment delete all segments numbered below this one
+     */
+    void deleteBefore(long segment) throws IOException {
+        for (Path path : segments().headMap(segment).values()) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(directory.resolve(PREFIX + number + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        written = channel.position();
+        forced = written;
+    }
+
+    private TreeMap<Long, Path> segments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : paths) {
+                String name = path.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), path);
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,288 @@
+package com.medipol.javaFinal.writebehind;
+
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind for quantity updates: an update is journaled, kept in memory as the latest quantity
+ * of its product and acknowledged; the buffered quantities are written in one statement per batch
+ * every flush interval, or sooner once max entries products are waiting.
+ * <p>
+ * Each buffered quantity carries the time it was accepted and is only written if the row has not
+ * been changed since, so a later full update or batch update always wins. A product archived after
+ * its quantity was buffered is moved back to the products table and written. After a crash the
+ * journal is replayed into the buffer at startup.
+ * <p>
+ * The buffer is split into shards by product id so concurrent updates rarely contend; a flush takes
+ * every shard at once together with a journal rotation. Once max pending products are waiting, because
+ * flushes fall behind or keep failing, updates of further products are refused and the caller writes
+ * them through.
+ * <p>
+ * Buffered quantities are shown by the {@code ProductService} reads through {@link #overlay}. The
+ * analytics snapshot and the reactive reads only see them after the flush.
+ */
+public class QuantityWriteBuffer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuantityWriteBuffer.class);
+
+    /** Latest buffered quantity of a product */
+    record Pending(int quantity, LocalDateTime updatedAt) {
+
+        Pending newer(Pending other) {
+            return other.updatedAt.isAfter(updatedAt) ? other : this;
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final QuantityJournal journal;
+    private final int maxEntries;
+    private final int maxPending;
+
+    private final Map<Long, Pending>[] shards;
+    /** Appends and shard updates share the read side, a flush swaps shards and journal segment under the write side */
+    private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+    private final Object flushLock = new Object();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "quantity-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Quantities taken by the running flush, still visible to reads until they are committed */
+    private volatile Map<Long, Pending> flushing = Map.of();
+
+    @SuppressWarnings("unchecked")
+    public QuantityWriteBuffer(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher, Path journalDirectory, int shards,
+                               int maxEntries, int maxPending) throws IOException {
+        if (Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("Shard count must be a power of two, got " + shards);
+        }
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.maxEntries = maxEntries;
+        this.maxPending = maxPending;
+        this.shards = new Map[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new HashMap<>();
+        }
+        this.journal = new QuantityJournal(journalDirectory);
+        List<QuantityJournal.Entry> recovered = journal.recover();
+        for (QuantityJournal.Entry entry : recovered) {
+            buffer(entry.id(), new Pending(entry.quantity(), entry.updatedAt()));
+        }
+        if (recovered.isEmpty()) {
+            // nothing to flush, so drop the empty segments of earlier runs now
+            journal.deleteBefore(journal.rotate());
+        } else {
+            logger.info("Recovered {} buffered quantity updates from {}", recovered.size(), journalDirectory);
+        }
+    }
+
+    /**
+     * Accept a quantity update, returns once it is journaled
+     * @param id id of an existing product
+     * @param quantity new quantity
+     * @return false if the buffer is full and the update was not taken, the caller has to write it
+     */
+    public boolean put(long id, int quantity) {
+        boolean accepted = size.get() < maxPending || isBuffered(id);
+        if (accepted) {
+            Pending pending = new Pending(quantity, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            generationLock.readLock().lock();
+            try {
+                journal.append(id, quantity, pending.updatedAt());
+                buffer(id, pending);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not journal quantity update of product " + id, e);
+            } finally {
+                generationLock.readLock().unlock();
+            }
+        }
+        if (size.get() >= maxEntries && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+        return accepted;
+    }
+
+    /**
+     * Show a buffered quantity that is newer than the row. The loaded product is left untouched, it
+     * may be managed or shared with other callers.
+     * @return the same product, or a copy with the buffered quantity
+     */
+    public Product overlay(Product product) {
+        if (product == null || product.getId() == null) {
+            return product;
+        }
+        Map<Long, Pending> shard = shard(product.getId());
+        Pending pending;
+        synchronized (shard) {
+            pending = shard.get(product.getId());
+        }
+        if (pending == null) {
+            pending = flushing.get(product.getId());
+        }
+        if (pending != null && (product.getUpdatedAt() == null || pending.updatedAt().isAfter(product.getUpdatedAt()))) {
+            return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                    pending.quantity(), product.getCategory(), product.getCreatedAt(), product.getUpdatedAt(),
+                    product.getVersion());
+        }
+        return product;
+    }
+
+    /**
+     * Write all buffered quantities, in batches of max entries. On failure they go back into the
+     * buffer, their journal segments are kept, and the next flush retries them.
+     */
+    @Scheduled(fixedDelayString = "${app.quantity-write-behind.flush-interval:200ms}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (size.get() == 0) {
+                return;
+            }
+            Map<Long, Pending> batch = new HashMap<>();
+            long segment;
+            generationLock.writeLock().lock();
+            try {
+                segment = journal.rotate();
+                for (int i = 0; i < shards.length; i++) {
+                    batch.putAll(shards[i]);
+                    shards[i] = new HashMap<>();
+                }
+                size.set(0);
+                flushing = batch;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not rotate the quantity journal", e);
+            } finally {
+                generationLock.writeLock().unlock();
+            }
+
+            try {
+                List<Long> updated = write(batch);
+                journal.deleteBefore(segment);
+                if (!updated.isEmpty()) {
+                    eventPublisher.publishEvent(ProductChangedEvent.of(updated));
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Flushing {} buffered quantity updates failed, retrying with the next flush", batch.size(), e);
+                generationLock.readLock().lock();
+                try {
+                    batch.forEach(this::buffer);
+                } finally {
+                    generationLock.readLock().unlock();
+                }
+            } finally {
+                flushing = Map.of();
+            }
+        }
+    }
+
+    /**
+     * Write what is left and close the journal
+     */
+    @Override
+    public void destroy() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private List<Long> write(Map<Long, Pending> batch) {
+        List<Map.Entry<Long, Pending>> entries = new ArrayList<>(batch.entrySet());
+        List<Long> updated = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += maxEntries) {
+            List<Map.Entry<Long, Pending>> chunk = entries.subList(from, Math.min(entries.size(), from + maxEntries));
+            updated.addAll(transactionTemplate.execute(status -> {
+                List<Long> written = new ArrayList<>(update(chunk));
+                if (written.size() < chunk.size()) {
+                    // rows archived since their quantity was buffered, the archiver moves them again if they still qualify
+                    Set<Long> missing = new HashSet<>(chunk.stream().map(Map.Entry::getKey).toList());
+                    written.forEach(missing::remove);
+                    Set<Long> restored = new HashSet<>(productRepository.restoreArchived(missing));
+                    if (!restored.isEmpty()) {
+                        written.addAll(update(chunk.stream().filter(entry -> restored.contains(entry.getKey())).toList()));
+                    }
+                }
+                return written;
+            }));
+        }
+        return updated;
+    }
+
+    private List<Long> update(List<Map.Entry<Long, Pending>> entries) {
+        Long[] ids = new Long[entries.size()];
+        Integer[] quantities = new Integer[entries.size()];
+        LocalDateTime[] updatedAt = new LocalDateTime[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            ids[i] = entries.get(i).getKey();
+            quantities[i] = entries.get(i).getValue().quantity();
+            updatedAt[i] = entries.get(i).getValue().updatedAt();
+        }
+        return productRepository.updateQuantitiesIfUnchangedSince(ids, quantities, updatedAt);
+    }
+
+    private boolean isBuffered(long id) {
+        Map<Long, Pending> shard = shard(id);
+        synchronized (shard) {
+            return shard.containsKey(id);
+        }
+    }
+
+    private void buffer(long id, Pending pending) {
+        Map<Long, Pending> shard = shard(id);
+        synchronized (shard) {
+            Pending previous = shard.get(id);
+            shard.put(id, previous == null ? pending : previous.newer(pending));
+            if (previous == null) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    private Map<Long, Pending> shard(long id) {
+        return shards[Long.hashCode(id * 0x9E3779B97F4A7C15L) & (shards.length - 1)];
+    }
+}
@@ -0,0 +1,18 @@
+-- One index per repository query. Built concurrently so existing tables stay writable.
+
+-- ProductRepository.findByCategoryId, also serves category + price filters
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_category_price ON products (category_id, price);
+
+-- ProductRepository.findByPriceBetween
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_price ON products (price);
+
+-- ProductRepository.findLowStockProducts (quantity < 10)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_low_stock ON products (quantity) WHERE quantity < 10;
+
+-- findByNameContainingIgnoreCase is generated as upper(name) LIKE upper('%term%')
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_name_trgm ON products USING gin (upper(name) gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_categories_name_trgm ON categories USING gin (upper(name) gin_trgm_ops);
+
+-- CategoryRepository.findByEnabledTrue
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_categories_enabled ON categories (id) WHERE enabled;
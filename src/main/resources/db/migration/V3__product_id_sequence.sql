@@ -0,0 +1,11 @@
+-- Product ids come from a pooled sequence instead of an identity column:
+-- Hibernate cannot batch inserts into identity tables, it needs every id back one row at a time.
+-- Hibernate reserves blocks of 50 ids per nextval (allocationSize on Product.id).
+
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE products_seq INCREMENT BY 50 OWNED BY products.id;
+
+SELECT setval('products_seq', GREATEST(COALESCE((SELECT max(id) FROM products), 0), 1));
+
+ALTER TABLE products ALTER COLUMN id SET DEFAULT nextval('products_seq');
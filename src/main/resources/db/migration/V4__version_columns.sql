@@ -0,0 +1,6 @@
+-- Optimistic locking: conditional updates/deletes compare against this column (If-Match / ETag).
+-- Adding a column with a constant default does not rewrite the table.
+
+ALTER TABLE categories ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
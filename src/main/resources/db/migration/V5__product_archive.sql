@@ -0,0 +1,45 @@
+-- Hot/cold split: inactive products move to products_archive, so the products table,
+-- its indexes and every repository query only cover sellable rows.
+
+-- When the quantity last dropped to 0, kept by a trigger so every write path is covered:
+-- entity updates, native updates and the write-behind flush alike.
+ALTER TABLE products ADD COLUMN out_of_stock_since TIMESTAMP(6);
+
+-- The time of the last update is the best guess for rows that are already empty
+UPDATE products SET out_of_stock_since = COALESCE(updated_at, now()) WHERE quantity = 0;
+
+CREATE FUNCTION products_track_out_of_stock() RETURNS trigger AS $$
+BEGIN
+    IF NEW.quantity > 0 THEN
+        NEW.out_of_stock_since := NULL;
+    ELSIF TG_OP = 'INSERT' OR OLD.quantity > 0 THEN
+        -- a restored row keeps the time it had when it was archived
+        NEW.out_of_stock_since := COALESCE(NEW.out_of_stock_since, now());
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_out_of_stock
+    BEFORE INSERT OR UPDATE OF quantity ON products
+    FOR EACH ROW EXECUTE FUNCTION products_track_out_of_stock();
+
+-- Same columns as products plus the time of archival. Ids stay unique across both tables,
+-- both are filled from products_seq. Archived products go with their category when it is deleted.
+CREATE TABLE products_archive (
+    id                 BIGINT PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL,
+    description        VARCHAR(255),
+    price              NUMERIC(38, 2) NOT NULL,
+    quantity           INTEGER NOT NULL,
+    category_id        BIGINT,
+    created_at         TIMESTAMP(6),
+    updated_at         TIMESTAMP(6),
+    version            BIGINT NOT NULL,
+    out_of_stock_since TIMESTAMP(6),
+    archived_at        TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_products_archive_category FOREIGN KEY (category_id) REFERENCES categories (id) ON DELETE CASCADE
+);
+
+-- the cascade above; name searches on the archive are rare and scan it
+CREATE INDEX idx_products_archive_category ON products_archive (category_id);
@@ -0,0 +1,3 @@
+-- ProductRepository.archiveBatch, the out of stock half. Only empty products are indexed.
+-- Built concurrently so the products table stays writable.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_out_of_stock ON products (id, out_of_stock_since) WHERE quantity = 0;
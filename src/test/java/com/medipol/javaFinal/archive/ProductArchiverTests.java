@@ -0,0 +1,194 @@
+package com.medipol.javaFinal.archive;
+
+import com.medipol.javaFinal.dto.BatchItemResult;
+import com.medipol.javaFinal.dto.QuantityUpdate;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.ProductRepository;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Inactive products move to the archive in batches, stay readable on request and come back with stock
+ * or when their category is enabled again
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductArchiverTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String prefix;
+    private Category active;
+    private Category disabled;
+    private Product longEmpty;
+    private Product recentlyEmpty;
+    private Product stocked;
+    private Product discontinued;
+
+    @BeforeEach
+    void setUp() {
+        prefix = "Archived " + UUID.randomUUID();
+        active = categoryService.saveCategory(category(true));
+        disabled = categoryService.saveCategory(category(false));
+        longEmpty = productService.saveProduct(product(active, 0));
+        recentlyEmpty = productService.saveProduct(product(active, 0));
+        stocked = productService.saveProduct(product(active, 5));
+        discontinued = productService.saveProduct(product(disabled, 5));
+        jdbcTemplate.update("UPDATE products SET out_of_stock_since = now() - interval '40 days' WHERE id = ?",
+                longEmpty.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(active.getId(), null);
+        categoryService.deleteCategory(disabled.getId(), null);
+    }
+
+    @Test
+    void inactiveProductsMoveToTheArchiveInBatches() {
+        assertThat(archiver(1).archive()).isGreaterThanOrEqualTo(2);
+
+        assertThat(productService.getProductById(longEmpty.getId())).isEmpty();
+        assertThat(productService.getProductById(discontinued.getId())).isEmpty();
+        assertThat(productService.getProductById(recentlyEmpty.getId())).isPresent();
+        assertThat(productService.getProductById(stocked.getId())).isPresent();
+        assertThat(productService.getProductsByCategory(active.getId())).extracting(Product::getId)
+                .containsExactlyInAnyOrder(recentlyEmpty.getId(), stocked.getId());
+        assertThat(archivedIds()).containsExactlyInAnyOrder(longEmpty.getId(), discontinued.getId());
+    }
+
+    @Test
+    void archivedProductsAreReadOnlyWhenAskedFor() {
+        archiver(100).archive();
+
+        assertThat(productService.getProductById(discontinued.getId(), false)).isEmpty();
+        assertThat(productService.getProductById(discontinued.getId(), true)).get()
+                .satisfies(product -> {
+                    assertThat(product.getName()).isEqualTo(discontinued.getName());
+                    assertThat(product.getCategory().getId()).isEqualTo(disabled.getId());
+                });
+        assertThat(productService.searchProductsByName(prefix, false)).extracting(Product::getId)
+                .containsExactlyInAnyOrder(recentlyEmpty.getId(), stocked.getId());
+        assertThat(productService.searchProductsByName(prefix, true)).extracting(Product::getId)
+                .containsExactlyInAnyOrder(recentlyEmpty.getId(), stocked.getId(), longEmpty.getId(), discontinued.getId());
+        // an archived product read through the archive is not cached as a row of the products table
+        assertThat(productService.getProductById(discontinued.getId())).isEmpty();
+    }
+
+    @Test
+    void archivedProductsAreRestoredWhenTheyGetStock() {
+        archiver(100).archive();
+
+        assertThat(productService.updateProductQuantity(longEmpty.getId(), 0)).isFalse();
+        assertThat(productService.updateProductQuantity(longEmpty.getId(), 3)).isTrue();
+        assertThat(productService.getProductById(longEmpty.getId())).get()
+                .extracting(Product::getQuantity).isEqualTo(3);
+
+        List<BatchItemResult> results = productService.updateProductQuantities(
+                List.of(new QuantityUpdate(discontinued.getId(), 2)));
+        assertThat(results).extracting(BatchItemResult::getStatus).containsExactly(BatchItemResult.Status.UPDATED);
+        assertThat(productService.getProductById(discontinued.getId())).get()
+                .extracting(Product::getQuantity).isEqualTo(2);
+
+        assertThat(archivedIds()).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT out_of_stock_since FROM products WHERE id = ?",
+                Object.class, longEmpty.getId())).isNull();
+    }
+
+    @Test
+    void enablingACategoryRestoresAllItsArchivedProducts() throws Exception {
+        mockMvc.perform(patch("/api/categories/{id}/disable", active.getId())).andExpect(status().isOk());
+        archiver(100).archive();
+        assertThat(archivedIds()).containsExactlyInAnyOrder(
+                longEmpty.getId(), recentlyEmpty.getId(), stocked.getId(), discontinued.getId());
+
+        mockMvc.perform(patch("/api/categories/{id}/enable", active.getId())).andExpect(status().isOk());
+
+        assertThat(archivedIds()).containsExactly(discontinued.getId());
+        assertThat(productService.getProductsByCategory(active.getId())).extracting(Product::getId)
+                .containsExactlyInAnyOrder(longEmpty.getId(), recentlyEmpty.getId(), stocked.getId());
+        // enabling an enabled category leaves the archive alone
+        archiver(100).archive();
+        mockMvc.perform(patch("/api/categories/{id}/enable", active.getId())).andExpect(status().isOk());
+        assertThat(archivedIds()).containsExactlyInAnyOrder(longEmpty.getId(), discontinued.getId());
+    }
+
+    @Test
+    void deletingAnArchivedProductRemovesItFromTheArchive() throws Exception {
+        archiver(100).archive();
+
+        mockMvc.perform(delete("/api/products/{id}", discontinued.getId())).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/products/{id}", discontinued.getId()).param("includeArchived", "true"))
+                .andExpect(status().isNotFound());
+        assertThat(archivedIds()).containsExactly(longEmpty.getId());
+    }
+
+    private ProductArchiver archiver(int batchSize) {
+        return new ProductArchiver(productRepository, transactionManager, eventPublisher, new SimpleMeterRegistry(),
+                30, batchSize, Duration.ZERO, Duration.ofMinutes(1));
+    }
+
+    private List<Long> archivedIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM products_archive WHERE category_id IN (?, ?)", Long.class,
+                active.getId(), disabled.getId());
+    }
+
+    private Category category(boolean enabled) {
+        Category category = new Category();
+        category.setName(prefix + (enabled ? " active" : " disabled"));
+        category.setEnabled(enabled);
+        return category;
+    }
+
+    private Product product(Category category, int quantity) {
+        Product product = new Product();
+        product.setName(prefix + " " + UUID.randomUUID());
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(quantity);
+        product.setCategory(category);
+        return product;
+    }
+}
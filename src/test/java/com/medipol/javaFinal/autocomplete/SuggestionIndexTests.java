@@ -0,0 +1,55 @@
+package com.medipol.javaFinal.autocomplete;
+
+import com.medipol.javaFinal.autocomplete.SuggestionIndex.Entry;
+import com.medipol.javaFinal.autocomplete.SuggestionIndex.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionIndexTests {
+
+    private static final String[] WORDS = {"wireless", "keyboard", "kettle", "key", "lamp", "laptop", "smart", "slim"};
+
+    @Test
+    void anyWordOfANameMatchesCaseInsensitively() {
+        SuggestionIndex index = SuggestionIndex.build(List.of(
+                new Entry(Type.PRODUCT, "Wireless  Keyboard", 1L, 5),
+                new Entry(Type.PRODUCT, "Kettle", 2L, 9),
+                new Entry(Type.CATEGORY, "Kitchen", 3L, 1)), 10);
+
+        assertThat(index.suggest("KE", 10)).extracting(Entry::text).containsExactly("Kettle", "Wireless  Keyboard");
+        assertThat(index.suggest("wireless k", 10)).extracting(Entry::text).containsExactly("Wireless  Keyboard");
+        assertThat(index.suggest("k", 2)).extracting(Entry::text).containsExactly("Kettle", "Wireless  Keyboard");
+        assertThat(index.suggest("less", 10)).isEmpty();
+        assertThat(index.suggest("", 1)).extracting(Entry::text).containsExactly("Kettle");
+    }
+
+    @Test
+    void suggestionsMatchABruteForceRankingOnLargeIndexes() {
+        Random random = new Random(11);
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            entries.add(new Entry(Type.PRODUCT, text, (long) i, random.nextInt(1000)));
+        }
+        SuggestionIndex index = SuggestionIndex.build(entries, 10);
+
+        for (String prefix : new String[]{"", "k", "ke", "key", "keyb", "slim l", "lamp 4", "12", "laptop key", "zzz"}) {
+            assertThat(index.suggest(prefix, 10)).as(prefix).isEqualTo(bruteForce(entries, prefix, 10));
+        }
+    }
+
+    private static List<Entry> bruteForce(List<Entry> entries, String prefix, int limit) {
+        return entries.stream()
+                .filter(entry -> (" " + entry.text().toLowerCase(Locale.ROOT)).contains(" " + prefix))
+                .sorted(Comparator.comparingLong(Entry::weight).reversed().thenComparing(Entry::text))
+                .limit(limit)
+                .toList();
+    }
+}
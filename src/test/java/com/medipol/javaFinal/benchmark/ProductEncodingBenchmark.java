@@ -0,0 +1,158 @@
+package com.medipol.javaFinal.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.web.ProductColumnarEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares payload size and serialization cost of a 10k product response
+ * across JSON, CBOR, Smile and the columnar format.
+ * <p>
+ * Run with {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.medipol.javaFinal.benchmark.ProductEncodingBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductEncodingBenchmark {
+
+    static final int PRODUCT_COUNT = 10_000;
+
+    private List<Product> products;
+    private ObjectMapper json;
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+
+    @Setup
+    public void setUp() {
+        products = sampleProducts(PRODUCT_COUNT);
+        json = Jackson2ObjectMapperBuilder.json().build();
+        cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    }
+
+    @Benchmark
+    public long json() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        json.writeValue(out, products);
+        return out.count;
+    }
+
+    @Benchmark
+    public long cbor() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        cbor.writeValue(out, products);
+        return out.count;
+    }
+
+    @Benchmark
+    public long smile() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        smile.writeValue(out, products);
+        return out.count;
+    }
+
+    @Benchmark
+    public long columnar() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        ProductColumnarEncoder.encode(products, out);
+        return out.count;
+    }
+
+    static List<Product> sampleProducts(int count) {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            Category category = new Category();
+            category.setId((long) i);
+            category.setName("Category " + i);
+            category.setDescription("Description of category " + i);
+            category.setEnabled(true);
+            category.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+            category.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+            categories.add(category);
+        }
+
+        List<Product> products = new ArrayList<>(count);
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        for (int i = 1; i <= count; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setDescription("A reasonably descriptive text for product number " + i);
+            product.setPrice(BigDecimal.valueOf(100 + (i * 37L) % 90_000, 2));
+            product.setQuantity(i % 250);
+            product.setCategory(categories.get(i % categories.size()));
+            product.setCreatedAt(base.plusSeconds(i * 13L));
+            product.setUpdatedAt(base.plusSeconds(i * 17L));
+            products.add(product);
+        }
+        return products;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static void printPayloadSizes() throws IOException {
+        ProductEncodingBenchmark benchmark = new ProductEncodingBenchmark();
+        benchmark.setUp();
+        System.out.printf("%-10s %12s %12s%n", "format", "bytes", "gzip bytes");
+        printSize("json", out -> benchmark.json.writeValue(out, benchmark.products));
+        printSize("cbor", out -> benchmark.cbor.writeValue(out, benchmark.products));
+        printSize("smile", out -> benchmark.smile.writeValue(out, benchmark.products));
+        printSize("columnar", out -> ProductColumnarEncoder.encode(benchmark.products, out));
+    }
+
+    private static void printSize(String format, Encoder encoder) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        encoder.encode(raw);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            raw.writeTo(gzip);
+        }
+        System.out.printf("%-10s %12d %12d%n", format, raw.size(), compressed.size());
+    }
+
+    private interface Encoder {
+        void encode(OutputStream out) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        printPayloadSizes();
+        Options options = new OptionsBuilder()
+                .include(ProductEncodingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
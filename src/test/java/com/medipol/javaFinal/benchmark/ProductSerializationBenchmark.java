@@ -0,0 +1,96 @@
+package com.medipol.javaFinal.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.web.CategoryJsonSerializer;
+import com.medipol.javaFinal.web.FieldSelection;
+import com.medipol.javaFinal.web.ProductJsonSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization throughput and allocation per product: reflection based Jackson
+ * serialization versus the streaming serializers, with and without a sparse fieldset.
+ * Scores are per product; {@code gc.alloc.rate.norm} is bytes allocated per product.
+ * <p>
+ * Run with {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.medipol.javaFinal.benchmark.ProductSerializationBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    private static final int BATCH = 1_000;
+
+    private List<Product> products;
+    private ObjectWriter reflective;
+    private ObjectWriter streaming;
+    private ObjectWriter streamingSparse;
+
+    @Setup
+    public void setUp() {
+        products = ProductEncodingBenchmark.sampleProducts(BATCH);
+        reflective = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writer();
+
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Product.class, new ProductJsonSerializer());
+        module.addSerializer(Category.class, new CategoryJsonSerializer());
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(module)
+                .build();
+        streaming = mapper.writer().withAttribute(FieldSelection.class, FieldSelection.ALL);
+        streamingSparse = mapper.writer().withAttribute(FieldSelection.class, FieldSelection.parse("id,name,price"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long reflective() throws IOException {
+        return write(reflective);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long streaming() throws IOException {
+        return write(streaming);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long streamingSparse() throws IOException {
+        return write(streamingSparse);
+    }
+
+    private long write(ObjectWriter writer) throws IOException {
+        ProductEncodingBenchmark.CountingOutputStream out = new ProductEncodingBenchmark.CountingOutputStream();
+        writer.writeValue(out, products);
+        return out.count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ProductSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
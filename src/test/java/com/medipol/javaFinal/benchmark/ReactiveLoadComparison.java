@@ -0,0 +1,107 @@
+package com.medipol.javaFinal.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives the same catalog read against the blocking and the R2DBC endpoint with a fixed
+ * number of requests in flight and prints latency percentiles, throughput and errors.
+ * Needs a running application with {@code server.tomcat.max-connections} above the concurrency.
+ * <p>
+ * Run with {@code ./mvnw test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-cp %classpath com.medipol.javaFinal.benchmark.ReactiveLoadComparison http://localhost:8080 10000 100000 1"}
+ * (base URL, concurrent requests, total requests, category id)
+ */
+public class ReactiveLoadComparison {
+
+    private final HttpClient client;
+    private final int concurrency;
+    private final int requests;
+
+    ReactiveLoadComparison(int concurrency, int requests) {
+        this.client = HttpClient.newBuilder()
+                .executor(Executors.newCachedThreadPool())
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.concurrency = concurrency;
+        this.requests = requests;
+    }
+
+    Result run(URI uri) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int slot = i;
+            long sent = System.nanoTime();
+            pending[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        latencies[slot] = System.nanoTime() - sent;
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(pending).exceptionally(failure -> null).join();
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new Result(latencies, elapsed, errors.get());
+    }
+
+    record Result(long[] sortedLatencies, long elapsedNanos, int errors) {
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+
+    private static void print(String name, Result result) {
+        System.out.printf("%-9s %9.1f %9.1f %9.1f %9.1f %11.0f %7d%n", name,
+                result.percentileMillis(50), result.percentileMillis(95), result.percentileMillis(99),
+                result.percentileMillis(100), result.throughput(), result.errors());
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        String categoryId = args.length > 3 ? args[3] : "1";
+
+        ReactiveLoadComparison comparison = new ReactiveLoadComparison(concurrency, requests);
+        URI blocking = URI.create(baseUrl + "/api/products/category/" + categoryId);
+        URI reactive = URI.create(baseUrl + "/api/reactive/products/category/" + categoryId);
+
+        // warm up both paths before measuring
+        new ReactiveLoadComparison(Math.min(concurrency, 100), Math.min(requests, 2_000)).run(blocking);
+        new ReactiveLoadComparison(Math.min(concurrency, 100), Math.min(requests, 2_000)).run(reactive);
+
+        System.out.printf("%d requests, %d in flight%n", requests, concurrency);
+        System.out.printf("%-9s %9s %9s %9s %9s %11s %7s%n", "endpoint", "p50 ms", "p95 ms", "p99 ms", "max ms",
+                "req/s", "errors");
+        print("blocking", comparison.run(blocking));
+        print("reactive", comparison.run(reactive));
+    }
+}
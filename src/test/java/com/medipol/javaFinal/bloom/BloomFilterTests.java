@@ -0,0 +1,53 @@
+package com.medipol.javaFinal.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BloomFilterTests {
+
+    @Test
+    void addedKeysAreAlwaysFound() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (long id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+        for (long id = 1; id <= 10_000; id++) {
+            assertThat(filter.mightContain(id)).isTrue();
+        }
+        assertThat(filter.mightContain(BloomFilter.key("Books"))).isFalse();
+        filter.add(BloomFilter.key("Books"));
+        assertThat(filter.mightContain(BloomFilter.key("Books"))).isTrue();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTargetAtCapacity() {
+        BloomFilter filter = BloomFilter.create(50_000, 0.01);
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add(random.nextLong());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(BloomFilter.key(UUID.randomUUID().toString()))) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isCloseTo(0.01, within(0.003));
+    }
+
+    @Test
+    void emptyFilterExpectsNoFalsePositives() {
+        BloomFilter filter = BloomFilter.create(0, 0.01);
+
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+        assertThat(filter.mightContain(42)).isFalse();
+    }
+}
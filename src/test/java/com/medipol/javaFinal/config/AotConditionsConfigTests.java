@@ -0,0 +1,41 @@
+package com.medipol.javaFinal.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A toggle whose runtime value no longer matches the beans built for it is reported
+ */
+@SpringBootTest
+class AotConditionsConfigTests {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void togglesMatchTheBeansOfTheContext() {
+        assertThat(AotConditionsConfig.changedToggles(context, environment)).isEmpty();
+    }
+
+    @Test
+    void changedTogglesAreReported() {
+        MockEnvironment changed = new MockEnvironment();
+        AotConditionsConfig.TOGGLES.keySet().forEach(key ->
+                changed.setProperty(key, environment.getProperty(key, "false")));
+        boolean writeBehind = environment.getProperty("app.quantity-write-behind.enabled", Boolean.class, false);
+        changed.setProperty("app.quantity-write-behind.enabled", String.valueOf(!writeBehind));
+        changed.setProperty("app.reactive.enabled", "TRUE");
+
+        assertThat(AotConditionsConfig.changedToggles(context, changed))
+                .containsExactly("app.quantity-write-behind.enabled");
+    }
+}
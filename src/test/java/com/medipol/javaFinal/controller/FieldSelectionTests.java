@@ -0,0 +1,138 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The {@code fields} parameter trims product and category responses, nested objects included,
+ * and names outside the returned type are rejected
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class FieldSelectionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Fields test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+        product = productService.saveProduct(product("Field lamp"));
+        productService.saveProduct(product("Field chair"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void productFieldsAreSelected() throws Exception {
+        mockMvc.perform(get("/api/products/{id}", product.getId()).param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", aMapWithSize(2)))
+                .andExpect(jsonPath("$.id").value(product.getId()))
+                .andExpect(jsonPath("$.name").value("Field lamp"));
+    }
+
+    @Test
+    void nestedCategoryFieldsAreSelected() throws Exception {
+        mockMvc.perform(get("/api/products/{id}", product.getId()).param("fields", "price,category.name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", aMapWithSize(2)))
+                .andExpect(jsonPath("$.price").value(10.0))
+                .andExpect(jsonPath("$.category", aMapWithSize(1)))
+                .andExpect(jsonPath("$.category.name").value(category.getName()));
+    }
+
+    @Test
+    void everyElementOfACollectionIsTrimmed() throws Exception {
+        mockMvc.perform(get("/api/products/category/{id}", category.getId()).param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*]", everyItem(aMapWithSize(1))))
+                .andExpect(jsonPath("$[*]", everyItem(hasKey("name"))));
+        mockMvc.perform(get("/api/products/query")
+                        .param("filter", "category=" + category.getId())
+                        .param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[*]", everyItem(aMapWithSize(1))))
+                .andExpect(jsonPath("$.content[*]", everyItem(hasKey("id"))));
+    }
+
+    @Test
+    void categoryFieldsAndNestedProductFieldsAreSelected() throws Exception {
+        mockMvc.perform(get("/api/categories/{id}", category.getId()).param("fields", "name,products.name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", aMapWithSize(2)))
+                .andExpect(jsonPath("$.name").value(category.getName()))
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.products[*]", everyItem(aMapWithSize(1))));
+        mockMvc.perform(get("/api/categories/search").param("name", category.getName()).param("fields", "id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", aMapWithSize(1)))
+                .andExpect(jsonPath("$[0].id").value(category.getId()));
+    }
+
+    @Test
+    void unknownFieldsAreRejected() throws Exception {
+        mockMvc.perform(get("/api/products/{id}", product.getId()).param("fields", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", containsString("bogus")));
+        mockMvc.perform(get("/api/products/{id}", product.getId()).param("fields", "id,category.bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", containsString("category.bogus")));
+        mockMvc.perform(get("/api/products/{id}", product.getId()).param("fields", "name.first"))
+                .andExpect(status().isBadRequest());
+        // a product nested in a category has no category of its own
+        mockMvc.perform(get("/api/categories/{id}", category.getId()).param("fields", "products.category"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/categories").param("fields", "price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is(400)));
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(5);
+        product.setCategory(category);
+        return product;
+    }
+}
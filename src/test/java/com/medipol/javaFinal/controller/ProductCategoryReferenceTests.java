@@ -0,0 +1,109 @@
+package com.medipol.javaFinal.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.service.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Products written with a category given only by its id, as clients send them
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductCategoryReferenceTests {
+
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private Category other;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryService.saveCategory(category("Reference test "));
+        other = categoryService.saveCategory(category("Reference other "));
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+        categoryService.deleteCategory(other.getId(), null);
+    }
+
+    @Test
+    void createAttachesTheCategoryById() throws Exception {
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(category.getId())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.category.id").value(category.getId()))
+                .andExpect(jsonPath("$.category.name").value(category.getName()));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM products WHERE category_id = ?",
+                Long.class, category.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void updateMovesTheProductToTheCategoryWithTheId() throws Exception {
+        String created = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(category.getId())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = JsonPath.parse(created).read("$.id", Long.class);
+
+        mockMvc.perform(put("/api/products/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(other.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.category.id").value(other.getId()));
+    }
+
+    @Test
+    void unknownCategoriesAreRejected() throws Exception {
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(UNKNOWN_ID)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", containsString(String.valueOf(UNKNOWN_ID))));
+        mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Lamp\",\"price\":10,\"quantity\":1,\"category\":{}}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String body(long categoryId) {
+        return "{\"name\":\"Lamp\",\"price\":10.50,\"quantity\":4,\"category\":{\"id\":" + categoryId + "}}";
+    }
+
+    private static Category category(String prefix) {
+        Category category = new Category();
+        category.setName(prefix + UUID.randomUUID());
+        return category;
+    }
+}
@@ -0,0 +1,116 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Filter expressions of {@code /api/products/query}, run in the database
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductQueryTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Query test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+        productService.saveProduct(product("Desk lamp", "25.00", 4));
+        productService.saveProduct(product("Floor lamp", "120.00", 2));
+        productService.saveProduct(product("Desk chair", "150.00", 30));
+        productService.saveProduct(product("Bookshelf", "80.00", 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void filterRunsInTheDatabaseWithPagingAndSort() throws Exception {
+        mockMvc.perform(get("/api/products/query")
+                        .param("filter", "category=" + category.getId() + " and (price>100 or quantity<3)")
+                        .param("sort", "-price")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].name").value(contains("Desk chair", "Floor lamp")))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalPages").value(2));
+
+        mockMvc.perform(get("/api/products/query")
+                        .param("filter", "category=" + category.getId() + " and name:LAMP")
+                        .param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].name").value(contains("Desk lamp", "Floor lamp")));
+    }
+
+    @Test
+    void regularExpressionsRunInTheDatabase() throws Exception {
+        mockMvc.perform(get("/api/products/query")
+                        .param("filter", "category=" + category.getId() + " and name~'^Desk'")
+                        .param("sort", "price")
+                        .param("size", "1")
+                        .param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].name").value(contains("Desk chair")))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.totalElements").value(2));
+
+        mockMvc.perform(get("/api/products/query")
+                        .param("filter", "category=" + category.getId() + " and (name~'lamp$' or quantity=0)")
+                        .param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].name").value(contains("Bookshelf", "Desk lamp", "Floor lamp")));
+    }
+
+    @Test
+    void invalidFilterIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/products/query").param("filter", "price>>1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(containsString("position")));
+        mockMvc.perform(get("/api/products/query").param("sort", "weight"))
+                .andExpect(status().isBadRequest());
+        // valid for java.util.regex, rejected by PostgreSQL
+        mockMvc.perform(get("/api/products/query").param("filter", "name~'a++'"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value(containsString("regular expression")));
+    }
+
+    private Product product(String name, String price, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,57 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.querycount.QueryCountFilter;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement, row and entity budgets of a request, checked against the counts
+ * {@link QueryCountFilter} returns in its headers
+ */
+final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    static ResultMatcher statements(long expected) {
+        return result -> assertThat(count(result, QueryCountFilter.STATEMENTS_HEADER))
+                .as("SQL statements").isEqualTo(expected);
+    }
+
+    static ResultMatcher statementsAtMost(long budget) {
+        return result -> assertThat(count(result, QueryCountFilter.STATEMENTS_HEADER))
+                .as("SQL statements").isLessThanOrEqualTo(budget);
+    }
+
+    /**
+     * Statements that grow with the loaded entities only in batches, not one per entity
+     * @param fixed statements independent of the number of entities
+     * @param batchSize entities loaded per additional statement
+     */
+    static ResultMatcher batchedStatements(long fixed, int batchSize) {
+        return result -> {
+            long entities = count(result, QueryCountFilter.ENTITIES_HEADER);
+            assertThat(count(result, QueryCountFilter.STATEMENTS_HEADER))
+                    .as("SQL statements for %d entities", entities)
+                    .isLessThanOrEqualTo(fixed + (entities + batchSize - 1) / batchSize);
+        };
+    }
+
+    static ResultMatcher rowsAtMost(long budget) {
+        return result -> assertThat(count(result, QueryCountFilter.ROWS_HEADER))
+                .as("rows fetched").isLessThanOrEqualTo(budget);
+    }
+
+    static ResultMatcher entitiesAtMost(long budget) {
+        return result -> assertThat(count(result, QueryCountFilter.ENTITIES_HEADER))
+                .as("entities loaded").isLessThanOrEqualTo(budget);
+    }
+
+    private static long count(MvcResult result, String header) {
+        String value = result.getResponse().getHeader(header);
+        assertThat(value).as(header + " header").isNotNull();
+        return Long.parseLong(value);
+    }
+}
@@ -0,0 +1,168 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.medipol.javaFinal.controller.QueryBudget.batchedStatements;
+import static com.medipol.javaFinal.controller.QueryBudget.entitiesAtMost;
+import static com.medipol.javaFinal.controller.QueryBudget.rowsAtMost;
+import static com.medipol.javaFinal.controller.QueryBudget.statements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of every product and category endpoint, counted over the whole request including
+ * serialization and after-commit listeners. Reads run against warm second-level caches. Endpoints over
+ * whole tables are checked for batched loading, the others against a category of their own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class QueryBudgetTests {
+
+    private static final int PRODUCTS = 3;
+    private static final int BATCH_FETCH_SIZE = 100;
+    private static final String PRICE = "987654.32";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+    private String word;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        word = "budget" + UUID.randomUUID().toString().replace("-", "");
+        Category created = new Category();
+        created.setName(word);
+        category = categoryService.saveCategory(created);
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName(word + " " + i);
+            product.setPrice(new BigDecimal(PRICE));
+            product.setQuantity(50);
+            product.setCategory(category);
+            products.add(productService.saveProduct(product));
+        }
+        // warm the second-level cache the way earlier reads would have
+        perform(get("/api/categories/{id}", category.getId()), status().isOk());
+        for (Product product : products) {
+            perform(get("/api/products/{id}", product.getId()), status().isOk());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void productReads() throws Exception {
+        Long id = products.get(0).getId();
+        perform(get("/api/products/{id}", id), status().isOk(), statements(0), entitiesAtMost(2), rowsAtMost(0));
+        perform(get("/api/products/{id}", Long.MAX_VALUE), status().isNotFound(), statements(0));
+        perform(get("/api/products").param("ids", String.valueOf(id)), status().isOk(), statements(1));
+        perform(get("/api/products/query").param("filter", "category=" + category.getId()), status().isOk(),
+                statements(1), rowsAtMost(PRODUCTS));
+        perform(get("/api/products/category/{id}", category.getId()), status().isOk(),
+                statements(1), rowsAtMost(PRODUCTS));
+        perform(get("/api/products/search").param("name", word), status().isOk(),
+                statements(1), rowsAtMost(PRODUCTS));
+        perform(get("/api/products/price-range").param("minPrice", PRICE).param("maxPrice", PRICE),
+                status().isOk(), statements(1));
+    }
+
+    @Test
+    void productListsLoadInBatches() throws Exception {
+        perform(get("/api/products"), status().isOk(), batchedStatements(1, BATCH_FETCH_SIZE));
+        perform(get("/api/products/low-stock"), status().isOk(), batchedStatements(1, BATCH_FETCH_SIZE));
+    }
+
+    @Test
+    void productWrites() throws Exception {
+        Long id = products.get(0).getId();
+        perform(post("/api/products").content("{\"name\":\"" + word + " new\",\"price\":1,\"quantity\":1}"),
+                status().isCreated(), statements(2));
+        perform(post("/api/products/batch").content("[" + productJson("batched") + "]"),
+                status().isOk(), statements(3));
+        perform(put("/api/products/{id}", id).content(productJson("renamed")), status().isOk(), statements(2));
+        perform(patch("/api/products/{id}/quantity", id).param("quantity", "7"), status().isNoContent(),
+                statements(2));
+        perform(patch("/api/products/quantities").content("[{\"id\":" + id + ",\"quantity\":8}]"),
+                status().isOk(), statements(3));
+        perform(delete("/api/products/{id}", id), status().isNoContent(), statements(2));
+    }
+
+    @Test
+    void categoryReads() throws Exception {
+        perform(get("/api/categories/{id}", category.getId()), status().isOk(), statements(0),
+                entitiesAtMost(1 + PRODUCTS));
+        perform(get("/api/categories/search").param("name", word), status().isOk(), statements(1),
+                entitiesAtMost(1 + PRODUCTS));
+    }
+
+    /**
+     * Without their products: Hibernate assembles a cached product list one product at a time, so products
+     * evicted from their region are loaded one by one, as many as the rest of the database holds
+     */
+    @Test
+    void categoryListsAreOneQuery() throws Exception {
+        perform(get("/api/categories").param("fields", "id,name"), status().isOk(), statements(1));
+        perform(get("/api/categories/enabled").param("fields", "id,name"), status().isOk(), statements(1));
+    }
+
+    @Test
+    void categoryWrites() throws Exception {
+        perform(post("/api/categories").content("{\"name\":\"" + word + " created\"}"),
+                status().isCreated(), statements(2));
+        perform(put("/api/categories/{id}", category.getId()).content("{\"name\":\"" + word + "\"}"),
+                status().isOk(), statements(2));
+        // the flag is set without reading the category first, enabling also restores its archived products
+        perform(patch("/api/categories/{id}/disable", category.getId()), status().isOk(), statements(2));
+        perform(patch("/api/categories/{id}/enable", category.getId()), status().isOk(), statements(3));
+        perform(delete("/api/categories/{id}", category.getId()), status().isNoContent(), statements(1));
+        category = categoryService.saveCategory(recreated());
+    }
+
+    private void perform(MockHttpServletRequestBuilder request, ResultMatcher... matchers) throws Exception {
+        mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON)).andExpectAll(matchers);
+    }
+
+    private String productJson(String name) {
+        return "{\"id\":" + products.get(1).getId() + ",\"name\":\"" + word + " " + name
+                + "\",\"price\":2.50,\"quantity\":4,\"category\":{\"id\":" + category.getId() + "}}";
+    }
+
+    private Category recreated() {
+        Category again = new Category();
+        again.setName(word);
+        return again;
+    }
+}
@@ -0,0 +1,117 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The R2DBC endpoints answer with the same JSON as their blocking counterparts
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveProductControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Reactive " + UUID.randomUUID());
+        created.setDescription("streamed");
+        category = categoryService.saveCategory(created);
+        for (int i = 0; i < 3; i++) {
+            Product newProduct = new Product();
+            newProduct.setName("Reactive product " + i);
+            newProduct.setPrice(new BigDecimal("9.99"));
+            newProduct.setQuantity(i);
+            newProduct.setCategory(category);
+            product = productService.saveProduct(newProduct);
+        }
+        // the cached entities still carry the in-memory timestamps, compare against what was stored
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void categoryListMatchesBlockingEndpoint() throws Exception {
+        String blocking = mockMvc.perform(get("/api/products/category/{id}", category.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String reactive = perform(get("/api/reactive/products/category/{id}", category.getId())
+                .accept(MediaType.APPLICATION_JSON));
+
+        assertThat(reactive).isEqualTo(blocking);
+    }
+
+    @Test
+    void productByIdMatchesBlockingEndpoint() throws Exception {
+        String blocking = mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(perform(get("/api/reactive/products/{id}", product.getId()))).isEqualTo(blocking);
+    }
+
+    @Test
+    void unknownProductIsNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/reactive/products/{id}", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void ndjsonStreamsOneProductPerLine() throws Exception {
+        String body = perform(get("/api/reactive/products/category/{id}", category.getId())
+                .accept(MediaType.APPLICATION_NDJSON));
+
+        assertThat(body.lines()).hasSize(3).allSatisfy(line -> assertThat(line).startsWith("{\"id\":"));
+    }
+
+    private String perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,158 @@
+package com.medipol.javaFinal.controller;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Number of SQL statements each write endpoint needs, so the single round-trip
+ * update and delete paths do not regress into select-then-write again.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class WriteStatementCountTests {
+
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category created = new Category();
+        created.setName("Statement count " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+        Product newProduct = new Product();
+        newProduct.setName("Counted");
+        newProduct.setPrice(BigDecimal.ONE);
+        newProduct.setQuantity(3);
+        newProduct.setCategory(category);
+        product = productService.saveProduct(newProduct);
+        // warm the second-level cache the way earlier reads would have
+        mockMvc.perform(get("/api/categories/{id}", category.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/{id}", product.getId())).andExpect(status().isOk());
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void updateProductIsOneStatement() throws Exception {
+        assertStatements(1, put("/api/products/{id}", product.getId()).content(productJson("Renamed")),
+                status().isOk(), header().string(HttpHeaders.ETAG, "\"1\""));
+        assertThat(productService.getProductById(product.getId()))
+                .hasValueSatisfying(updated -> assertThat(updated.getCreatedAt())
+                        .isCloseTo(product.getCreatedAt(), within(1, ChronoUnit.MILLIS)));
+    }
+
+    @Test
+    void updateProductWithMatchingVersionIsOneStatement() throws Exception {
+        assertStatements(1, put("/api/products/{id}", product.getId()).content(productJson("Renamed"))
+                .header(HttpHeaders.IF_MATCH, "\"0\""), status().isOk());
+    }
+
+    @Test
+    void updateProductWithStaleVersionChecksExistenceOnlyAfterFailing() throws Exception {
+        assertStatements(2, put("/api/products/{id}", product.getId()).content(productJson("Renamed"))
+                .header(HttpHeaders.IF_MATCH, "\"7\""), status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateUnknownProductIsOneStatement() throws Exception {
+        assertStatements(1, put("/api/products/{id}", UNKNOWN_ID).content(productJson("Missing")),
+                status().isNotFound());
+    }
+
+    @Test
+    void deleteProductIsOneStatement() throws Exception {
+        assertStatements(1, delete("/api/products/{id}", product.getId()), status().isNoContent());
+        assertThat(productService.getProductById(product.getId())).isEmpty();
+    }
+
+    @Test
+    void deleteProductWithStaleVersionIsRejected() throws Exception {
+        assertStatements(2, delete("/api/products/{id}", product.getId()).header(HttpHeaders.IF_MATCH, "\"3\""),
+                status().isPreconditionFailed());
+        assertThat(productService.getProductById(product.getId())).isPresent();
+    }
+
+    @Test
+    void updateCategoryIsOneStatement() throws Exception {
+        assertStatements(1, put("/api/categories/{id}", category.getId())
+                        .content("{\"name\":\"" + category.getName() + "\",\"description\":\"changed\"}"),
+                status().isOk(), header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    void deleteCategoryRemovesProductsInOneStatement() throws Exception {
+        assertStatements(1, delete("/api/categories/{id}", category.getId()), status().isNoContent());
+        assertThat(categoryService.getCategoryById(category.getId())).isEmpty();
+        assertThat(productService.getProductById(product.getId())).isEmpty();
+        category = categoryService.saveCategory(recreated());
+    }
+
+    @Test
+    void deleteUnknownCategoryIsOneStatement() throws Exception {
+        assertStatements(1, delete("/api/categories/{id}", UNKNOWN_ID), status().isNotFound());
+    }
+
+    private void assertStatements(long expected, MockHttpServletRequestBuilder request, ResultMatcher... matchers)
+            throws Exception {
+        statistics.clear();
+        mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON)).andExpectAll(matchers);
+        assertThat(statistics.getPrepareStatementCount()).as("statements").isEqualTo(expected);
+    }
+
+    private String productJson(String name) {
+        return "{\"name\":\"" + name + "\",\"price\":2.50,\"quantity\":4,\"category\":{\"id\":" + category.getId() + "}}";
+    }
+
+    private Category recreated() {
+        Category again = new Category();
+        again.setName(category.getName());
+        return again;
+    }
+}
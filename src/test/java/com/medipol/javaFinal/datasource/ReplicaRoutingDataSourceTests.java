@@ -0,0 +1,93 @@
+package com.medipol.javaFinal.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setActualTransactionActive;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+class ReplicaRoutingDataSourceTests {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection firstReplicaConnection = mock(Connection.class);
+    private final Connection secondReplicaConnection = mock(Connection.class);
+
+    private HikariDataSource firstReplica;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        HikariDataSource primary = mock(HikariDataSource.class);
+        firstReplica = mock(HikariDataSource.class);
+        HikariDataSource secondReplica = mock(HikariDataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(firstReplica, secondReplica), Duration.ofSeconds(10));
+        setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        setActualTransactionActive(false);
+        setCurrentTransactionReadOnly(false);
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    void writeTransactionsUsePrimaryAndAreRecorded() throws SQLException {
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(ReplicaRoutingContext.hasWritten()).isTrue();
+    }
+
+    @Test
+    void readOnlyTransactionsAlternateBetweenReplicas() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+
+        assertThat(List.of(dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactlyInAnyOrder(firstReplicaConnection, secondReplicaConnection);
+        assertThat(ReplicaRoutingContext.hasWritten()).isFalse();
+    }
+
+    @Test
+    void unreachableReplicaIsSkippedUntilHealthy() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(dataSource.getConnection()).isIn(primaryConnection, secondReplicaConnection);
+        }
+        assertThat(dataSource.healthyReplicaCount()).isEqualTo(1);
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithoutHealthyReplicas() throws SQLException {
+        HikariDataSource primary = mock(HikariDataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("connection refused"));
+        ReplicaRoutingDataSource single = new ReplicaRoutingDataSource(primary, List.of(firstReplica), Duration.ofSeconds(10));
+        setCurrentTransactionReadOnly(true);
+
+        assertThat(single.getConnection()).isSameAs(primaryConnection);
+        assertThat(single.getConnection()).isSameAs(primaryConnection);
+        assertThat(single.healthyReplicaCount()).isZero();
+    }
+
+    @Test
+    void readYourWritesPinsReadsToPrimary() throws SQLException {
+        setCurrentTransactionReadOnly(true);
+        ReplicaRoutingContext.requirePrimary();
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+}
@@ -0,0 +1,138 @@
+package com.medipol.javaFinal.datasource;
+
+import com.medipol.javaFinal.service.ProductService;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setCurrentTransactionReadOnly;
+
+/**
+ * Routing over real pools. Both point at the test database, the {@code ApplicationName} of each
+ * connection tells which pool it came from.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.primary.jdbc-url=${spring.datasource.url}?ApplicationName=primary",
+        "app.datasource.routing.replicas[0].jdbc-url=${spring.datasource.url}?ApplicationName=replica-0",
+        "app.datasource.routing.read-your-writes-window=0s"})
+class ReplicaRoutingIntegrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @AfterEach
+    void tearDown() {
+        setCurrentTransactionReadOnly(false);
+        ReplicaRoutingContext.clear();
+    }
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplica() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String readOnlyName = readOnly.execute(status -> applicationName());
+        String readWriteName = new TransactionTemplate(transactionManager).execute(status -> applicationName());
+
+        assertThat(readOnlyName).isEqualTo("replica-0");
+        assertThat(readWriteName).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyServiceCallsUseTheReplicaPool() {
+        long replicaUses = connectionUses("replica-0");
+
+        productService.getProductsByPriceRange(BigDecimal.ZERO, BigDecimal.ONE);
+
+        assertThat(connectionUses("replica-0")).isGreaterThan(replicaUses);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() throws SQLException {
+        try (HikariDataSource primary = pool(dataSourceProperties.determineUrl() + "?ApplicationName=primary");
+             HikariDataSource down = pool("jdbc:postgresql://localhost:1/inventorydb")) {
+            ReplicaRoutingDataSource routing =
+                    new ReplicaRoutingDataSource(primary, List.of(down), Duration.ofSeconds(10));
+            setCurrentTransactionReadOnly(true);
+
+            assertThat(applicationName(routing)).isEqualTo("primary");
+            routing.checkReplicas();
+            assertThat(routing.healthyReplicaCount()).isZero();
+        }
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheReplicaLags() throws SQLException {
+        try (HikariDataSource primary = pool(dataSourceProperties.determineUrl() + "?ApplicationName=primary");
+             HikariDataSource replica = pool(dataSourceProperties.determineUrl() + "?ApplicationName=replica-0")) {
+            // the test database reports no lag, a negative maximum makes even that too much
+            ReplicaRoutingDataSource routing =
+                    new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofMillis(-1));
+            setCurrentTransactionReadOnly(true);
+            assertThat(applicationName(routing)).isEqualTo("replica-0");
+
+            routing.checkReplicas();
+
+            assertThat(routing.healthyReplicaCount()).isZero();
+            assertThat(applicationName(routing)).isEqualTo("primary");
+        }
+    }
+
+    private String applicationName() {
+        return jdbcTemplate.queryForObject("SELECT current_setting('application_name')", String.class);
+    }
+
+    private static String applicationName(ReplicaRoutingDataSource routing) throws SQLException {
+        try (Connection connection = routing.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT current_setting('application_name')")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private long connectionUses(String pool) {
+        return meterRegistry.get("hikaricp.connections.usage").tag("pool", pool).timer().count();
+    }
+
+    private HikariDataSource pool(String url) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(dataSourceProperties.determineUsername());
+        config.setPassword(dataSourceProperties.determinePassword());
+        config.setMaximumPoolSize(1);
+        config.setConnectionTimeout(250);
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+}
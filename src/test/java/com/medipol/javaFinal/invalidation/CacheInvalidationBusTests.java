@@ -0,0 +1,144 @@
+package com.medipol.javaFinal.invalidation;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Invalidations between instances, simulated by messages with a foreign origin on the in-memory transport
+ */
+@SpringBootTest(properties = {
+        "app.cache-invalidation.enabled=true",
+        "app.cache-invalidation.transport=in-memory",
+        "app.cache-invalidation.coalesce-window=500ms"})
+class CacheInvalidationBusTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    private InvalidationTransport transport;
+
+    @Autowired
+    private CacheInvalidationBus bus;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Invalidation test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+        Product values = new Product();
+        values.setName("Invalidated");
+        values.setPrice(new BigDecimal("5.00"));
+        values.setQuantity(1);
+        values.setCategory(category);
+        product = productService.saveProduct(values);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void remoteMessageEvictsTheCachedEntity() {
+        productService.getProductById(product.getId());
+        assertThat(entityManagerFactory.getCache().contains(Product.class, product.getId())).isTrue();
+
+        transport.publish(new InvalidationMessage("other-instance", Set.of(product.getId()), Set.of(), Set.of())
+                .encode().get(0));
+
+        assertThat(entityManagerFactory.getCache().contains(Product.class, product.getId())).isFalse();
+    }
+
+    @Test
+    void burstOfWritesToOneProductIsCoalesced() {
+        InMemoryInvalidationTransport inMemory = (InMemoryInvalidationTransport) transport;
+        await().atMost(TIMEOUT).until(() -> sentFor(inMemory, product.getId()) == 1);
+
+        for (int quantity = 2; quantity < 12; quantity++) {
+            productService.updateProductQuantity(product.getId(), quantity);
+        }
+
+        await().atMost(TIMEOUT).until(() -> sentFor(inMemory, product.getId()) > 1);
+        // the burst may straddle a window boundary, but is never sent once per write
+        assertThat(sentFor(inMemory, product.getId())).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void postgresTransportDeliversNotificationsOfOtherConnections() {
+        String channel = "cache_invalidation_test";
+        List<String> received = new CopyOnWriteArrayList<>();
+        PostgresInvalidationTransport listener = transport(channel);
+        PostgresInvalidationTransport publisher = transport(channel);
+        try {
+            listener.subscribe(new InvalidationTransport.Listener() {
+                @Override
+                public void onMessage(String payload) {
+                    received.add(payload);
+                }
+
+                @Override
+                public void onMessagesLost() {
+                }
+            });
+            // the listening connection is opened in the background, keep sending until it is up
+            await().atMost(TIMEOUT).until(() -> {
+                publisher.publish("ping");
+                return received.contains("ping");
+            });
+        } finally {
+            listener.close();
+        }
+    }
+
+    private PostgresInvalidationTransport transport(String channel) {
+        return new PostgresInvalidationTransport(jdbcTemplate, dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword(), channel,
+                Duration.ofMillis(100));
+    }
+
+    private long sentFor(InMemoryInvalidationTransport inMemory, Long productId) {
+        return inMemory.published().stream()
+                .map(InvalidationMessage::decode)
+                .filter(message -> message.origin().equals(bus.origin()))
+                .filter(message -> message.productIds().contains(productId))
+                .count();
+    }
+}
@@ -0,0 +1,56 @@
+package com.medipol.javaFinal.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InvalidationMessageTests {
+
+    @Test
+    void messageSurvivesEncoding() {
+        InvalidationMessage message = new InvalidationMessage("node-1", Set.of(1L, 50L), Set.of(7L), Set.of(9L));
+
+        List<String> payloads = message.encode();
+
+        assertThat(payloads).hasSize(1);
+        assertThat(InvalidationMessage.decode(payloads.get(0))).isEqualTo(message);
+        assertThat(InvalidationMessage.decode(new InvalidationMessage("node-1", Set.of(), Set.of(), Set.of())
+                .encode().get(0)).productIds()).isEmpty();
+    }
+
+    @Test
+    void largeMessagesAreSplitBelowThePayloadLimit() {
+        Set<Long> products = new HashSet<>();
+        LongStream.range(0, 1000).forEach(i -> products.add(Long.MAX_VALUE - i));
+        InvalidationMessage message = new InvalidationMessage("node-1", products, Set.of(3L), Set.of(4L));
+
+        List<String> payloads = message.encode();
+
+        assertThat(payloads).hasSizeGreaterThan(1)
+                .allSatisfy(payload -> assertThat(payload.length()).isLessThanOrEqualTo(InvalidationTransport.MAX_PAYLOAD_LENGTH));
+        Set<Long> decodedProducts = new HashSet<>();
+        Set<Long> decodedCategories = new HashSet<>();
+        Set<Long> decodedDeleted = new HashSet<>();
+        for (String payload : payloads) {
+            InvalidationMessage part = InvalidationMessage.decode(payload);
+            decodedProducts.addAll(part.productIds());
+            decodedCategories.addAll(part.categoryIds());
+            decodedDeleted.addAll(part.deletedCategoryIds());
+        }
+        assertThat(decodedProducts).isEqualTo(products);
+        assertThat(decodedCategories).containsExactly(3L);
+        assertThat(decodedDeleted).containsExactly(4L);
+    }
+
+    @Test
+    void malformedPayloadsAreRejected() {
+        assertThatThrownBy(() -> InvalidationMessage.decode("node-1|x1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> InvalidationMessage.decode("node-1|p1,a")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,178 @@
+package com.medipol.javaFinal.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Writes a synthetic catalog with COPY, replacing the one of an earlier run. Rows are
+ * recognised by the category name prefix, other data in the database is left alone.
+ * Seed before starting the application, the second-level cache does not see these writes.
+ */
+class CatalogSeeder {
+
+    static final String CATEGORY_PREFIX = "Load test category ";
+    static final String[] ADJECTIVES = {
+            "Compact", "Wireless", "Portable", "Smart", "Classic", "Premium", "Rugged", "Silent",
+            "Digital", "Ergonomic", "Modular", "Solar", "Heavy", "Slim", "Foldable", "Vintage"};
+    static final String[] NOUNS = {
+            "Keyboard", "Monitor", "Speaker", "Lamp", "Router", "Drill", "Kettle", "Backpack",
+            "Camera", "Charger", "Mouse", "Heater", "Blender", "Tripod", "Scanner", "Printer"};
+    /** Products are named "adjective noun n" with n below this, searches use "noun n" */
+    static final int NAME_SUFFIXES = 997;
+    static final int MAX_PRICE_CENTS = 100_000;
+
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+    private static final int FETCH_SIZE = 10_000;
+
+    /**
+     * Ids of the seeded rows. Product ids are loaded rather than derived, the sequence steps by its allocation size.
+     */
+    record Catalog(long[] categoryIds, long[] productIds) {
+
+        long randomCategoryId(Random random) {
+            return categoryIds[random.nextInt(categoryIds.length)];
+        }
+
+        long randomProductId(Random random) {
+            return productIds[random.nextInt(productIds.length)];
+        }
+    }
+
+    private final Connection connection;
+
+    CatalogSeeder(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * @param categories number of categories to create
+     * @param products number of products, spread randomly over the categories
+     * @param seed random seed, the same seed gives the same catalog
+     */
+    void seed(int categories, int products, long seed) throws SQLException {
+        Random random = new Random(seed);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM products WHERE category_id IN "
+                    + "(SELECT id FROM categories WHERE name LIKE '" + CATEGORY_PREFIX + "%')");
+            statement.executeUpdate("DELETE FROM categories WHERE name LIKE '" + CATEGORY_PREFIX + "%'");
+
+            String now = LocalDateTime.now().toString();
+            CopyRows categoryRows = new CopyRows(
+                    "COPY categories (name, description, enabled, created_at, updated_at) FROM STDIN");
+            for (int i = 0; i < categories; i++) {
+                categoryRows.row(CATEGORY_PREFIX + i, "Synthetic category " + i, "t", now, now);
+            }
+            categoryRows.end();
+
+            long[] categoryIds = load().categoryIds();
+            CopyRows productRows = new CopyRows(
+                    "COPY products (name, description, price, quantity, category_id, created_at, updated_at) FROM STDIN");
+            for (int i = 0; i < products; i++) {
+                String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                        + NOUNS[random.nextInt(NOUNS.length)] + " " + random.nextInt(NAME_SUFFIXES);
+                productRows.row(name, "Synthetic product " + i,
+                        String.valueOf(BigDecimal.valueOf(1 + random.nextInt(MAX_PRICE_CENTS), 2)),
+                        String.valueOf(random.nextInt(500)),
+                        String.valueOf(categoryIds[random.nextInt(categoryIds.length)]), now, now);
+            }
+            productRows.end();
+            connection.commit();
+
+            connection.setAutoCommit(true);
+            statement.execute("ANALYZE categories");
+            statement.execute("ANALYZE products");
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return ids of the catalog seeded by an earlier run
+     * @throws IllegalStateException if there is none
+     */
+    Catalog load() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM categories WHERE name LIKE ? ORDER BY id")) {
+            statement.setString(1, CATEGORY_PREFIX + "%");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getLong(1));
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No load test catalog in the database, run with --seed first");
+        }
+        long[] categoryIds = ids.stream().mapToLong(Long::longValue).toArray();
+
+        // the driver only streams with a fetch size inside a transaction
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM products WHERE category_id = ANY(?)")) {
+            Array array = connection.createArrayOf("bigint", ids.toArray());
+            statement.setArray(1, array);
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                LongStream.Builder productIds = LongStream.builder();
+                while (resultSet.next()) {
+                    productIds.add(resultSet.getLong(1));
+                }
+                return new Catalog(categoryIds, productIds.build().toArray());
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Text format COPY, values are generated here and never contain tabs, newlines or backslashes
+     */
+    private final class CopyRows {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+
+        CopyRows(String sql) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        void row(String... values) throws SQLException {
+            buffer.append(String.join("\t", values)).append('\n');
+            if (buffer.length() >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void end() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
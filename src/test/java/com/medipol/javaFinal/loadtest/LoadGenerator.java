@@ -0,0 +1,122 @@
+package com.medipol.javaFinal.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are scheduled at a fixed rate regardless of how fast responses come back,
+ * and latency is measured from the scheduled send time. A stalled server therefore shows up as
+ * queueing delay in the percentiles instead of silently lowering the request rate.
+ */
+class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HISTOGRAM_PRECISION = 3;
+
+    /**
+     * Measurements of one operation, latencies in microseconds
+     */
+    static final class Stats {
+        final Histogram latencies = new ConcurrentHistogram(HISTOGRAM_PRECISION);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+    }
+
+    private final LoadTestOptions options;
+    private final CatalogSeeder.Catalog catalog;
+    private final HttpClient client;
+
+    LoadGenerator(LoadTestOptions options, CatalogSeeder.Catalog catalog) {
+        this.options = options;
+        this.catalog = catalog;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Send requests for the warmup and measurement period, only the latter is recorded
+     * @return statistics per operation of the mix
+     */
+    Map<Operation, Stats> run() throws InterruptedException {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        Operation[] schedule = weightedSchedule(options.mix());
+        for (Operation operation : options.mix().keySet()) {
+            stats.put(operation, new Stats());
+        }
+
+        Random random = new Random(options.randomSeed());
+        AtomicInteger inFlight = new AtomicInteger();
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * interval;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            Stats operationStats = stats.get(operation);
+            boolean measured = scheduled >= measureFrom;
+            if (inFlight.get() >= options.maxInFlight()) {
+                // the client is saturated, sending more would measure the load generator
+                if (measured) {
+                    operationStats.dropped.increment();
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            client.sendAsync(operation.build(options.baseUrl(), catalog, random, REQUEST_TIMEOUT),
+                            HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.decrementAndGet();
+                        if (!measured) {
+                            return;
+                        }
+                        operationStats.latencies.recordValue(
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+                        if (failure != null || response.statusCode() >= 400) {
+                            operationStats.errors.increment();
+                        }
+                    });
+        }
+
+        long drainUntil = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+        return stats;
+    }
+
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        Operation[] schedule = new Operation[total];
+        int index = 0;
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                schedule[index++] = entry.getKey();
+            }
+        }
+        return schedule;
+    }
+}
@@ -0,0 +1,76 @@
+package com.medipol.javaFinal.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Map;
+
+/**
+ * Release load test for the product and category API: seeds a synthetic catalog into the local
+ * database, drives a weighted mix of reads, searches, price-range queries and quantity updates at a
+ * fixed arrival rate and reports HdrHistogram percentiles and throughput per operation.
+ * Full percentile distributions are written to {@code <report-dir>/<operation>.hgrm}.
+ * <p>
+ * Run against a started application with {@code ./mvnw test-compile exec:exec -Dexec.executable=java
+ * -Dexec.classpathScope=test -Dexec.args="-cp %classpath com.medipol.javaFinal.loadtest.LoadTest --seed --rate=1000"}
+ * <p>
+ * Options (defaults): {@code --base-url} (http://localhost:8080), {@code --jdbc-url}
+ * (jdbc:postgresql://localhost:5432/inventorydb), {@code --username}, {@code --password} (postgres),
+ * {@code --seed} (off, reuse the last catalog), {@code --products} (1000000), {@code --categories} (1000),
+ * {@code --random-seed} (42), {@code --rate} requests per second (500), {@code --warmup} seconds (10),
+ * {@code --duration} seconds (60), {@code --max-in-flight} (5000), {@code --mix}
+ * ({@value LoadTestOptions#DEFAULT_MIX}), {@code --report-dir} (target/loadtest)
+ */
+public class LoadTest {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        CatalogSeeder.Catalog catalog;
+        try (Connection connection = DriverManager.getConnection(
+                options.jdbcUrl(), options.username(), options.password())) {
+            CatalogSeeder seeder = new CatalogSeeder(connection);
+            if (options.seed()) {
+                long started = System.nanoTime();
+                seeder.seed(options.categories(), options.products(), options.randomSeed());
+                System.out.printf("Seeded %d products in %d categories in %.1f s%n", options.products(),
+                        options.categories(), (System.nanoTime() - started) / 1e9);
+            }
+            catalog = seeder.load();
+        }
+
+        System.out.printf("%d req/s for %d s after %d s warmup, mix %s%n", options.rate(),
+                options.duration().toSeconds(), options.warmup().toSeconds(), options.mix());
+        Map<Operation, LoadGenerator.Stats> stats = new LoadGenerator(options, catalog).run();
+        report(options, stats);
+    }
+
+    private static void report(LoadTestOptions options, Map<Operation, LoadGenerator.Stats> stats) throws IOException {
+        double seconds = options.duration().toMillis() / 1000.0;
+        System.out.printf("%-12s %9s %9s %7s %7s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s",
+                "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Files.createDirectories(options.reportDirectory());
+        for (Map.Entry<Operation, LoadGenerator.Stats> entry : stats.entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            System.out.printf("%-12s %9d %9.1f %7d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().key(),
+                    latencies.getTotalCount(), latencies.getTotalCount() / seconds,
+                    entry.getValue().errors.sum(), entry.getValue().dropped.sum(),
+                    millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+                    latencies.getMaxValue() / MICROS_PER_MILLI);
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(options.reportDirectory().resolve(entry.getKey().key() + ".hgrm")))) {
+                latencies.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
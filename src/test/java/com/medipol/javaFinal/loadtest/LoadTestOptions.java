@@ -0,0 +1,81 @@
+package com.medipol.javaFinal.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of {@link LoadTest}, given as {@code --name=value}
+ */
+record LoadTestOptions(
+        String baseUrl,
+        String jdbcUrl,
+        String username,
+        String password,
+        boolean seed,
+        int products,
+        int categories,
+        long randomSeed,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        int maxInFlight,
+        Map<Operation, Integer> mix,
+        Path reportDirectory) {
+
+    static final String DEFAULT_MIX = "product:40,category:10,search:20,price-range:20,quantity:10";
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                values.put(arg.substring(2), "true");
+            } else {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new LoadTestOptions(
+                values.getOrDefault("base-url", "http://localhost:8080"),
+                values.getOrDefault("jdbc-url", "jdbc:postgresql://localhost:5432/inventorydb"),
+                values.getOrDefault("username", "postgres"),
+                values.getOrDefault("password", "postgres"),
+                Boolean.parseBoolean(values.getOrDefault("seed", "false")),
+                Integer.parseInt(values.getOrDefault("products", "1000000")),
+                Integer.parseInt(values.getOrDefault("categories", "1000")),
+                Long.parseLong(values.getOrDefault("random-seed", "42")),
+                Integer.parseInt(values.getOrDefault("rate", "500")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "5000")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                Path.of(values.getOrDefault("report-dir", "target/loadtest")));
+    }
+
+    /**
+     * @param mix weights per operation, e.g. {@code product:40,search:20}
+     * @return weight of each listed operation
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,93 @@
+package com.medipol.javaFinal.loadtest;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Requests the load test sends, each against a random part of the seeded catalog
+ */
+enum Operation {
+
+    PRODUCT("product") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random) {
+            return get(baseUrl + "/api/products/" + catalog.randomProductId(random));
+        }
+    },
+    CATEGORY("category") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random) {
+            return get(baseUrl + "/api/categories/" + catalog.randomCategoryId(random));
+        }
+    },
+    SEARCH("search") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random) {
+            String term = CatalogSeeder.NOUNS[random.nextInt(CatalogSeeder.NOUNS.length)]
+                    + " " + random.nextInt(CatalogSeeder.NAME_SUFFIXES);
+            return get(baseUrl + "/api/products/search?name=" + URLEncoder.encode(term, StandardCharsets.UTF_8));
+        }
+    },
+    PRICE_RANGE("price-range") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random) {
+            BigDecimal min = BigDecimal.valueOf(random.nextInt(CatalogSeeder.MAX_PRICE_CENTS), 2);
+            BigDecimal max = min.add(PRICE_RANGE_WIDTH);
+            return get(baseUrl + "/api/products/price-range?minPrice=" + min + "&maxPrice=" + max);
+        }
+    },
+    QUANTITY("quantity") {
+        @Override
+        HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + catalog.randomProductId(random)
+                            + "/quantity?quantity=" + random.nextInt(500)))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody());
+        }
+    };
+
+    /** Selects about 0.1% of the seeded products */
+    private static final BigDecimal PRICE_RANGE_WIDTH = BigDecimal.ONE;
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    /**
+     * @param baseUrl application URL without trailing slash
+     * @param catalog ids of the seeded rows
+     * @param random source of the request parameters
+     * @return the request, without timeout
+     */
+    abstract HttpRequest.Builder request(String baseUrl, CatalogSeeder.Catalog catalog, Random random);
+
+    HttpRequest build(String baseUrl, CatalogSeeder.Catalog catalog, Random random, Duration timeout) {
+        return request(baseUrl, catalog, random)
+                .header("Accept", "application/json")
+                .timeout(timeout)
+                .build();
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+
+    private static HttpRequest.Builder get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET();
+    }
+}
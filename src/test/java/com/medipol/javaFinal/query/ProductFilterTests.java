@@ -0,0 +1,74 @@
+package com.medipol.javaFinal.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductFilterTests {
+
+    @Test
+    void precedenceAndParenthesesFollowTheGrammar() {
+        ProductFilter.Node node = new ProductFilterParser("price>100 or quantity<10 and not (category=5)").parse();
+
+        assertThat(node).isInstanceOf(ProductFilter.Or.class);
+        ProductFilter.Node and = ((ProductFilter.Or) node).children().get(1);
+        assertThat(and).isInstanceOf(ProductFilter.And.class);
+        assertThat(((ProductFilter.And) and).children().get(1)).isEqualTo(new ProductFilter.Not(
+                new ProductFilter.Comparison(ProductField.CATEGORY, ProductFilter.Operator.EQ, 5L)));
+    }
+
+    @Test
+    void valuesAreParsedByFieldType() {
+        assertThat(new ProductFilterParser("price >= 10.5").parse()).isEqualTo(
+                new ProductFilter.Comparison(ProductField.PRICE, ProductFilter.Operator.GE, new BigDecimal("10.5")));
+        assertThat(new ProductFilterParser("name = 'Tom''s lamp'").parse()).isEqualTo(
+                new ProductFilter.Comparison(ProductField.NAME, ProductFilter.Operator.EQ, "Tom's lamp"));
+        assertThat(new ProductFilterParser("category.name:GARDEN").parse()).isEqualTo(
+                new ProductFilter.Comparison(ProductField.CATEGORY_NAME, ProductFilter.Operator.CONTAINS, "GARDEN"));
+        assertThat(new ProductFilterParser("category = NULL").parse()).isEqualTo(
+                new ProductFilter.Comparison(ProductField.CATEGORY, ProductFilter.Operator.EQ, null));
+    }
+
+    @Test
+    void malformedFiltersAreRejected() {
+        assertThatThrownBy(() -> ProductFilter.parse("weight>1")).isInstanceOf(InvalidFilterException.class)
+                .hasMessageContaining("Unknown field 'weight'");
+        assertThatThrownBy(() -> ProductFilter.parse("price>cheap")).isInstanceOf(InvalidFilterException.class);
+        assertThatThrownBy(() -> ProductFilter.parse("name>a")).isInstanceOf(InvalidFilterException.class);
+        assertThatThrownBy(() -> ProductFilter.parse("quantity~1")).isInstanceOf(InvalidFilterException.class);
+        assertThatThrownBy(() -> ProductFilter.parse("(price>1")).isInstanceOf(InvalidFilterException.class)
+                .hasMessageContaining("Expected ')'");
+        assertThatThrownBy(() -> ProductFilter.parse("price>1 quantity<2")).isInstanceOf(InvalidFilterException.class);
+        assertThatThrownBy(() -> ProductFilter.parse("(".repeat(100) + "id=1" + ")".repeat(100)))
+                .isInstanceOf(InvalidFilterException.class);
+    }
+
+    @Test
+    void parsedFiltersAreCached() {
+        assertThat(ProductFilter.parse("quantity < 3")).isSameAs(ProductFilter.parse("quantity < 3"));
+        assertThat(ProductFilter.parse(" ")).isSameAs(ProductFilter.ALL);
+    }
+
+    @Test
+    void regularExpressionsAreBoundedInComplexity() {
+        assertThat(new ProductFilterParser("name~'^(Desk|Floor) (lamp|chair)s?$'").parse()).isEqualTo(
+                new ProductFilter.Comparison(ProductField.NAME, ProductFilter.Operator.MATCHES,
+                        "^(Desk|Floor) (lamp|chair)s?$"));
+        assertThat(ProductFilter.parse("name~'(?i)[a-z]+\\d{2,4}' or price>1")).isNotNull();
+
+        assertThatThrownBy(() -> ProductFilter.parse("name~'(a+)+$' or price>1"))
+                .isInstanceOf(InvalidFilterException.class).hasMessageContaining("Quantified group");
+        assertThatThrownBy(() -> ProductFilter.parse("name~'((a*)b)*'"))
+                .isInstanceOf(InvalidFilterException.class).hasMessageContaining("Quantified group");
+        assertThatThrownBy(() -> ProductFilter.parse("name~'(a)\\1'"))
+                .isInstanceOf(InvalidFilterException.class).hasMessageContaining("Backreferences");
+        assertThatThrownBy(() -> ProductFilter.parse("name~'" + "a*".repeat(11) + "'"))
+                .isInstanceOf(InvalidFilterException.class).hasMessageContaining("quantifiers");
+        assertThatThrownBy(() -> ProductFilter.parse("name~'" + "a".repeat(101) + "'"))
+                .isInstanceOf(InvalidFilterException.class).hasMessageContaining("longer than");
+        assertThatThrownBy(() -> ProductFilter.parse("name~'[a-'")).isInstanceOf(InvalidFilterException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.medipol.javaFinal.repository;
+
+import com.medipol.javaFinal.query.ProductFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that every repository query is answered by one of the indexes from the
+ * Flyway migrations. Runs the repository method, captures the SQL Hibernate generated
+ * and inspects its generic plan with sequential scans discouraged, so the outcome
+ * does not depend on how much data the local database holds.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.medipol.javaFinal.repository.CapturingStatementInspector")
+@Transactional
+class RepositoryQueryPlanTests {
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void discourageSequentialScans() {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+    }
+
+    @Test
+    void findByCategoryIdUsesCategoryIndex() {
+        assertThat(planOf(() -> productRepository.findByCategoryId(1L))).contains("idx_products_category_price");
+    }
+
+    @Test
+    void findByPriceBetweenUsesPriceIndex() {
+        assertThat(planOf(() -> productRepository.findByPriceBetween(BigDecimal.ONE, BigDecimal.TEN)))
+                .contains("idx_products_price");
+    }
+
+    @Test
+    void findLowStockProductsUsesPartialIndex() {
+        assertThat(planOf(() -> productRepository.findLowStockProducts())).contains("idx_products_low_stock");
+    }
+
+    @Test
+    void productNameSearchUsesTrigramIndex() {
+        assertThat(planOf(() -> productRepository.findByNameContainingIgnoreCase("ham")))
+                .contains("idx_products_name_trgm");
+    }
+
+    @Test
+    void categoryNameSearchUsesTrigramIndex() {
+        assertThat(planOf(() -> categoryRepository.findByNameContainingIgnoreCase("too")))
+                .contains("idx_categories_name_trgm");
+    }
+
+    @Test
+    void filterSubstringSearchUsesTrigramIndex() {
+        assertThat(planOf(() -> productRepository.findAll(ProductFilter.parse("name:ham").specification())))
+                .contains("idx_products_name_trgm");
+    }
+
+    @Test
+    void findByNameUsesUniqueConstraint() {
+        assertThat(planOf(() -> categoryRepository.findByName("Tools"))).containsPattern("Index (Only )?Scan");
+    }
+
+    @Test
+    void findByEnabledTrueUsesPartialIndex() {
+        assertThat(planOf(() -> categoryRepository.findByEnabledTrue())).contains("idx_categories_enabled");
+    }
+
+    private String planOf(Runnable query) {
+        CapturingStatementInspector.clear();
+        query.run();
+        List<String> statements = CapturingStatementInspector.statements();
+        assertThat(statements).isNotEmpty();
+
+        // the first statement is the query itself, later ones load eager associations
+        Matcher matcher = PARAMETER.matcher(statements.get(0));
+        StringBuilder numbered = new StringBuilder();
+        int parameters = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++parameters);
+        }
+        matcher.appendTail(numbered);
+
+        jdbcTemplate.execute("PREPARE plan_check AS " + numbered);
+        try {
+            String arguments = parameters == 0 ? "" : "(" + String.join(",", Collections.nCopies(parameters, "NULL")) + ")";
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check" + arguments, String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+}
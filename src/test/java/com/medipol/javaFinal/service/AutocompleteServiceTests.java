@@ -0,0 +1,98 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.autocomplete.SuggestionIndex.Type;
+import com.medipol.javaFinal.dto.Suggestion;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.service.impl.AutocompleteServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * The autocomplete index picks up products and categories on its next rebuild, which change events
+ * schedule after a short delay here
+ */
+@SpringBootTest(properties = "app.autocomplete.rebuild-delay=100ms")
+class AutocompleteServiceTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private AutocompleteServiceImpl autocompleteService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    private Category category;
+    private String word;
+
+    @BeforeEach
+    void setUp() {
+        word = "zq" + UUID.randomUUID().toString().replace("-", "");
+        Category created = new Category();
+        created.setName(word + " category");
+        category = categoryService.saveCategory(created);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void namesAreSuggestedByStockAfterRebuild() {
+        Product single = productService.saveProduct(product("Lamp " + word, 3));
+        productService.saveProduct(product(word + " kettle", 4));
+        productService.saveProduct(product(word + " kettle", 5));
+
+        autocompleteService.rebuild();
+
+        assertThat(autocompleteService.suggest(word.toUpperCase(), 10))
+                .extracting(Suggestion::getType, Suggestion::getText, Suggestion::getId)
+                .containsExactly(
+                        tuple(Type.CATEGORY, word + " category", category.getId()),
+                        tuple(Type.PRODUCT, word + " kettle", null),
+                        tuple(Type.PRODUCT, "Lamp " + word, single.getId()));
+        assertThat(autocompleteService.suggest(word + " k", 10))
+                .extracting(Suggestion::getText)
+                .containsExactly(word + " kettle");
+    }
+
+    @Test
+    void changesAreSuggestedAfterTheRebuildDelay() {
+        productService.saveProduct(product(word + " heater", 2));
+
+        await().atMost(TIMEOUT).until(() -> autocompleteService.suggest(word + " h", 10).size() == 1);
+    }
+
+    @Test
+    void suggestionsAreNotReadyBeforeTheFirstBuild() {
+        AutocompleteServiceImpl unbuilt = new AutocompleteServiceImpl(null, null, 10, Duration.ZERO, Duration.ZERO);
+
+        assertThatThrownBy(() -> unbuilt.suggest("lamp", 10)).isInstanceOf(NotReadyException.class);
+    }
+
+    private Product product(String name, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(quantity);
+        product.setCategory(category);
+        return product;
+    }
+}
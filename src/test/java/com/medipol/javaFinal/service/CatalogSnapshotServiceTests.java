@@ -0,0 +1,144 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.dto.InventorySummary;
+import com.medipol.javaFinal.dto.PriceDistributionSummary;
+import com.medipol.javaFinal.dto.ProductSummary;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * The catalog snapshot follows writes made through the services and agrees with SQL aggregates
+ */
+@SpringBootTest
+class CatalogSnapshotServiceTests {
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Snapshot test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void categoryInventoryFollowsProductWrites() {
+        Product lamp = productService.saveProduct(product("Lamp", "19.99", 3));
+        Product kettle = productService.saveProduct(product("Kettle", "45.50", 2));
+        assertThat(categoryInventory()).contains(new InventorySummary(category.getId(), 2, 5, new BigDecimal("150.97")));
+
+        productService.updateProductQuantity(lamp.getId(), 10);
+        productService.deleteProduct(kettle.getId(), null);
+        assertThat(categoryInventory()).contains(new InventorySummary(category.getId(), 1, 10, new BigDecimal("199.90")));
+
+        categoryService.deleteCategory(category.getId(), null);
+        assertThat(categoryInventory()).isEmpty();
+    }
+
+    @Test
+    void rankingIsFilteredByCategory() {
+        productService.saveProduct(product("Cheap", "1.00", 1));
+        Product expensive = productService.saveProduct(product("Expensive", "99.00", 1));
+
+        assertThat(catalogSnapshotService.getProductsRankedByPrice(true, 5, category.getId()))
+                .extracting(ProductSummary::getId, ProductSummary::getName)
+                .first()
+                .isEqualTo(tuple(expensive.getId(), "Expensive"));
+        assertThat(catalogSnapshotService.getProductsRankedByPrice(false, 5, category.getId()))
+                .extracting(ProductSummary::getName)
+                .containsExactly("Cheap", "Expensive");
+    }
+
+    @Test
+    void totalsMatchTheDatabase() {
+        productService.saveProduct(product("Counted", "12.34", 7));
+
+        InventorySummary summary = catalogSnapshotService.getInventorySummary();
+        assertThat(summary.getProductCount())
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT count(*) FROM products", Long.class));
+        assertThat(summary.getInventoryValue())
+                .isEqualByComparingTo(jdbcTemplate.queryForObject(
+                        "SELECT coalesce(sum(price * quantity), 0) FROM products", BigDecimal.class));
+        assertThat(catalogSnapshotService.countProductsWithPriceHigherThan(new BigDecimal("12.33")))
+                .isEqualTo(jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM products WHERE price > 12.33", Long.class));
+    }
+
+    @Test
+    void priceDistributionFollowsProductWrites() {
+        Product lamp = productService.saveProduct(product("Lamp", "19.99", 3));
+        productService.saveProduct(product("Kettle", "45.50", 2));
+        productService.saveProduct(product("Heater", "120.00", 1));
+
+        PriceDistributionSummary distribution = priceDistribution();
+        assertThat(distribution.getProductCount()).isEqualTo(3);
+        assertThat(distribution.getPercentiles().get("50")).isCloseTo(new BigDecimal("45.50"), within(new BigDecimal("0.46")));
+        assertThat(distribution.getHistogram())
+                .extracting(PriceDistributionSummary.PriceBucket::getCount)
+                .containsExactly(0L, 1L, 1L, 0L, 1L, 0L, 0L, 0L);
+
+        Product update = product("Lamp", "600.00", 3);
+        productService.updateProduct(lamp.getId(), update, null);
+        distribution = priceDistribution();
+        assertThat(distribution.getProductCount()).isEqualTo(3);
+        assertThat(distribution.getHistogram())
+                .extracting(PriceDistributionSummary.PriceBucket::getCount)
+                .containsExactly(0L, 0L, 1L, 0L, 1L, 0L, 1L, 0L);
+
+        categoryService.deleteCategory(category.getId(), null);
+        assertThat(catalogSnapshotService.getPriceDistribution(category.getId(), List.of(50.0))).isEmpty();
+        assertThat(catalogSnapshotService.getPriceDistribution(null, List.of(50.0)).orElseThrow().getProductCount())
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT count(*) FROM products", Long.class));
+    }
+
+    private PriceDistributionSummary priceDistribution() {
+        return catalogSnapshotService.getPriceDistribution(category.getId(), List.of(50.0, 99.0)).orElseThrow();
+    }
+
+    private Optional<InventorySummary> categoryInventory() {
+        return catalogSnapshotService.getInventoryByCategory().stream()
+                .filter(summary -> category.getId().equals(summary.getCategoryId()))
+                .findFirst();
+    }
+
+    private Product product(String name, String price, int quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setQuantity(quantity);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,161 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Second-level and query cache behaviour of the category reads, and invalidation
+ * through {@link CategoryService#saveCategory} and {@link CategoryService#deleteCategory}.
+ * Every service call runs in its own transaction, as it would from a controller.
+ */
+@SpringBootTest
+class CategoryCacheTests {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category created = new Category();
+        created.setName("Cache test " + UUID.randomUUID());
+        created.setDescription("before");
+        category = categoryService.saveCategory(created);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (categoryRepository.existsById(category.getId())) {
+            categoryService.deleteCategory(category.getId(), null);
+        }
+    }
+
+    @Test
+    void findByIdIsServedFromTheEntityRegion() {
+        categoryService.getCategoryById(category.getId());
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(categoryService.getCategoryById(category.getId())).isPresent();
+        }
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics("categories");
+        assertThat(region.getHitCount()).isEqualTo(10);
+        assertThat(region.getMissCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void finderQueriesAreServedFromTheQueryCache() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(categoryService.findEnabledCategories()).extracting(Category::getId).contains(category.getId());
+            assertThat(categoryService.getCategoryByName(category.getName())).isPresent();
+            assertThat(categoryService.existsByName(category.getName())).isTrue();
+        }
+
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(3);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(12);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void saveCategoryInvalidatesCachedEntityAndQueries() {
+        categoryService.findEnabledCategories();
+        categoryService.getCategoryByName(category.getName());
+
+        Category changed = categoryService.getCategoryById(category.getId()).orElseThrow();
+        changed.setDescription("after");
+        changed.setEnabled(false);
+        categoryService.saveCategory(changed);
+        statistics.clear();
+
+        assertThat(categoryService.getCategoryById(category.getId()))
+                .hasValueSatisfying(cached -> assertThat(cached.getDescription()).isEqualTo("after"));
+        assertThat(categoryService.findEnabledCategories()).extracting(Category::getId).doesNotContain(category.getId());
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    @Test
+    void deleteCategoryEvictsEntityAndQueries() {
+        categoryService.getCategoryById(category.getId());
+        categoryService.getCategoryByName(category.getName());
+        categoryService.existsByName(category.getName());
+
+        categoryService.deleteCategory(category.getId(), null);
+        statistics.clear();
+
+        assertThat(categoryService.getCategoryById(category.getId())).isEmpty();
+        assertThat(categoryService.getCategoryByName(category.getName())).isEmpty();
+        assertThat(categoryService.existsByName(category.getName())).isFalse();
+        assertThat(statistics.getDomainDataRegionStatistics("categories").getHitCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+    }
+
+    @Test
+    void productsCollectionIsCachedAndEvictedWhenAProductChanges() {
+        Product first = productService.saveProduct(product("first"));
+        assertThat(productNames()).containsExactly("first");
+        statistics.clear();
+
+        assertThat(productNames()).containsExactly("first");
+        assertThat(statistics.getDomainDataRegionStatistics("categories.products").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        productService.saveProduct(product("second"));
+        assertThat(productNames()).containsExactlyInAnyOrder("first", "second");
+
+        productService.deleteProduct(first.getId(), null);
+        assertThat(productNames()).containsExactly("second");
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(5);
+        product.setCategory(category);
+        return product;
+    }
+
+    private List<String> productNames() {
+        return transactionTemplate.execute(status -> categoryService.getCategoryById(category.getId())
+                .orElseThrow()
+                .getProducts()
+                .stream()
+                .map(Product::getName)
+                .toList());
+    }
+}
@@ -0,0 +1,132 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.bloom.NegativeLookupGuard;
+import com.medipol.javaFinal.event.CategoryChangedEvent;
+import com.medipol.javaFinal.event.InvalidationsLostEvent;
+import com.medipol.javaFinal.event.ProductChangedEvent;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Missing ids and names are answered by the filters, rows written through any path are found
+ */
+@SpringBootTest
+class NegativeLookupGuardTests {
+
+    @Autowired
+    private NegativeLookupGuard guard;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        guard.rebuild();
+        Category created = new Category();
+        created.setName("Guarded " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void missingKeysAreRejectedWithoutAQuery() {
+        Long missingId = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) + 1000000 FROM products", Long.class);
+        double rejected = lookups(NegativeLookupGuard.PRODUCTS, "rejected");
+
+        assertThat(productService.getProductById(missingId)).isEmpty();
+        assertThat(categoryService.existsByName("Missing " + UUID.randomUUID())).isFalse();
+        assertThat(categoryService.getCategoryByName("Missing " + UUID.randomUUID())).isEmpty();
+
+        assertThat(lookups(NegativeLookupGuard.PRODUCTS, "rejected")).isEqualTo(rejected + 1);
+        assertThat(meterRegistry.get("app.negative-lookup.false-positive-rate")
+                .tag("filter", NegativeLookupGuard.PRODUCTS).gauge().value()).isBetween(0.0, 0.01);
+    }
+
+    @Test
+    void insertedRowsAreFoundWhicheverPathWroteThem() {
+        Product saved = productService.saveProduct(product("Service insert"));
+        Product direct = productRepository.save(product("Repository insert"));
+        Long nativeId = jdbcTemplate.queryForObject("""
+                INSERT INTO products (name, price, quantity, category_id, created_at, updated_at, version)
+                VALUES ('Native insert', 1, 1, ?, ?, ?, 0) RETURNING id
+                """, Long.class, category.getId(), LocalDateTime.now(), LocalDateTime.now());
+        eventPublisher.publishEvent(ProductChangedEvent.remote(List.of(nativeId), null));
+
+        assertThat(productService.getProductById(saved.getId())).isPresent();
+        assertThat(productService.getProductById(direct.getId())).isPresent();
+        assertThat(productService.getProductById(nativeId)).isPresent();
+        assertThat(categoryService.existsByName(category.getName())).isTrue();
+    }
+
+    @Test
+    void renamedCategoriesAreFoundByTheirNewName() {
+        String renamed = "Renamed " + UUID.randomUUID();
+        jdbcTemplate.update("UPDATE categories SET name = ? WHERE id = ?", renamed, category.getId());
+        eventPublisher.publishEvent(CategoryChangedEvent.remote(category.getId()));
+
+        assertThat(categoryService.getCategoryByName(renamed)).isPresent();
+    }
+
+    @Test
+    void lostInvalidationsRebuildTheFilters() {
+        Long missedId = jdbcTemplate.queryForObject("""
+                INSERT INTO products (name, price, quantity, category_id, created_at, updated_at, version)
+                VALUES ('Missed insert', 1, 1, ?, ?, ?, 0) RETURNING id
+                """, Long.class, category.getId(), LocalDateTime.now(), LocalDateTime.now());
+
+        eventPublisher.publishEvent(new InvalidationsLostEvent());
+
+        assertThat(guard.mightHaveProduct(missedId)).isTrue();
+    }
+
+    private double lookups(String filter, String result) {
+        return meterRegistry.get("app.negative-lookup.lookups").tag("filter", filter).tag("result", result)
+                .counter().count();
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("4.50"));
+        product.setQuantity(2);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,133 @@
+package com.medipol.javaFinal.service;
+
+import com.medipol.javaFinal.dto.BatchItemResult;
+import com.medipol.javaFinal.dto.BatchItemResult.Status;
+import com.medipol.javaFinal.dto.QuantityUpdate;
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch reads and writes of {@link ProductService}: per-item results and JDBC batching
+ */
+@SpringBootTest
+class ProductBatchTests {
+
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Category created = new Category();
+        created.setName("Batch test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+    }
+
+    @AfterEach
+    void tearDown() {
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void getProductsByIdsKeepsRequestOrderAndSkipsUnknownIds() {
+        Product first = productService.saveProduct(product("first", category));
+        Product second = productService.saveProduct(product("second", category));
+
+        List<Product> found = productService.getProductsByIds(List.of(second.getId(), UNKNOWN_ID, first.getId()));
+
+        assertThat(found).extracting(Product::getName).containsExactly("second", "first");
+    }
+
+    @Test
+    void saveProductsReportsEachItemAndKeepsTheValidOnes() {
+        Product existing = productService.saveProduct(product("existing", category));
+        Product update = product("renamed", category);
+        update.setId(existing.getId());
+        Product missing = product("missing", category);
+        missing.setId(UNKNOWN_ID);
+        Category unknownCategory = new Category();
+        unknownCategory.setId(UNKNOWN_ID);
+
+        List<BatchItemResult> results = productService.saveProducts(List.of(
+                product("created", category),
+                product("", category),
+                product("orphan", unknownCategory),
+                update,
+                missing));
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(Status.CREATED, Status.INVALID, Status.INVALID, Status.UPDATED, Status.NOT_FOUND);
+        assertThat(results.get(1).getMessage()).isEqualTo("Product name is required");
+        assertThat(productService.getProductsByIds(List.of(results.get(0).getId(), existing.getId())))
+                .extracting(Product::getName)
+                .containsExactly("created", "renamed");
+        assertThat(productService.getProductsByCategory(category.getId())).hasSize(2);
+    }
+
+    @Test
+    void saveProductsBatchesInserts() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            products.add(product("bulk " + i, category));
+        }
+        statistics.clear();
+
+        List<BatchItemResult> results = productService.saveProducts(products);
+
+        assertThat(results).extracting(BatchItemResult::getStatus).containsOnly(Status.CREATED);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+    }
+
+    @Test
+    void updateProductQuantitiesReportsEachItem() {
+        Product first = productService.saveProduct(product("first", category));
+        Product second = productService.saveProduct(product("second", category));
+
+        List<BatchItemResult> results = productService.updateProductQuantities(List.of(
+                new QuantityUpdate(first.getId(), 42),
+                new QuantityUpdate(second.getId(), -1),
+                new QuantityUpdate(UNKNOWN_ID, 3)));
+
+        assertThat(results).extracting(BatchItemResult::getStatus)
+                .containsExactly(Status.UPDATED, Status.INVALID, Status.NOT_FOUND);
+        assertThat(productService.getProductsByIds(List.of(first.getId(), second.getId())))
+                .extracting(Product::getQuantity)
+                .containsExactly(42, 5);
+    }
+
+    private static Product product(String name, Category category) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(5);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,100 @@
+package com.medipol.javaFinal.snapshot;
+
+import com.medipol.javaFinal.snapshot.CatalogSnapshot.Fingerprint;
+import com.medipol.javaFinal.snapshot.CatalogSnapshot.Row;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogSnapshotTests {
+
+    private static final Fingerprint FINGERPRINT = new Fingerprint(3, 30, 7, 1_700_000_000_000_000L);
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("catalog.snapshot");
+        snapshot = CatalogSnapshot.create(file, 4, 256);
+        CatalogSnapshot.Loader loader = snapshot.loader();
+        assertThat(loader.add(new Row(10, 1999, 5, 1, "Lamp"))).isTrue();
+        assertThat(loader.add(new Row(20, 4999, 0, 2, "Kettle"))).isTrue();
+        assertThat(loader.add(new Row(30, 999, 12, 1, "Lamp"))).isTrue();
+        loader.finish();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        snapshot.close();
+    }
+
+    @Test
+    void loadedRowsAreScannedInIdOrder() {
+        assertThat(rows(snapshot)).containsExactly(
+                new Row(10, 1999, 5, 1, "Lamp"),
+                new Row(20, 4999, 0, 2, "Kettle"),
+                new Row(30, 999, 12, 1, "Lamp"));
+    }
+
+    @Test
+    void upsertReplacesAndInsertsInIdOrderUntilFull() {
+        assertThat(snapshot.upsert(new Row(20, 5499, 3, 2, "Electric kettle"))).isTrue();
+        assertThat(snapshot.upsert(new Row(15, 2500, 1, 2, "Router"))).isTrue();
+
+        assertThat(rows(snapshot)).extracting(Row::id).containsExactly(10L, 15L, 20L, 30L);
+        assertThat(rows(snapshot)).contains(new Row(20, 5499, 3, 2, "Electric kettle"));
+        assertThat(snapshot.upsert(new Row(40, 100, 1, 1, "Mouse"))).isFalse();
+    }
+
+    @Test
+    void deletedRowsAreSkippedAndComeBackOnUpsert() {
+        snapshot.delete(20);
+        snapshot.deleteByCategory(1);
+        assertThat(rows(snapshot)).isEmpty();
+
+        snapshot.upsert(new Row(30, 999, 11, 1, "Lamp"));
+        assertThat(rows(snapshot)).containsExactly(new Row(30, 999, 11, 1, "Lamp"));
+        assertThat(snapshot.size()).isEqualTo(3);
+    }
+
+    @Test
+    void topByPriceRanksFilteredRows() {
+        assertThat(snapshot.topByPrice(2, true, row -> true)).extracting(Row::id).containsExactly(20L, 10L);
+        assertThat(snapshot.topByPrice(5, false, row -> true)).extracting(Row::id).containsExactly(30L, 10L, 20L);
+        assertThat(snapshot.topByPrice(1, true, row -> snapshot.categoryId(row) == 1))
+                .extracting(Row::id).containsExactly(10L);
+    }
+
+    @Test
+    void cleanlyClosedSnapshotIsReusedForTheSameFingerprintOnly() throws IOException {
+        snapshot.close(FINGERPRINT);
+
+        snapshot = CatalogSnapshot.open(file);
+        assertThat(snapshot.isReusableFor(FINGERPRINT)).isTrue();
+        assertThat(snapshot.isReusableFor(new Fingerprint(3, 30, 8, FINGERPRINT.maxUpdatedAtMicros()))).isFalse();
+        assertThat(rows(snapshot)).hasSize(3);
+
+        snapshot.markInUse();
+        snapshot.close();
+        snapshot = CatalogSnapshot.open(file);
+        assertThat(snapshot.isReusableFor(FINGERPRINT)).isFalse();
+    }
+
+    private static List<Row> rows(CatalogSnapshot snapshot) {
+        List<Row> rows = new ArrayList<>();
+        snapshot.scan(row -> rows.add(snapshot.row(row)));
+        return rows;
+    }
+}
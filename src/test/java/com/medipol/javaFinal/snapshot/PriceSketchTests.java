@@ -0,0 +1,67 @@
+package com.medipol.javaFinal.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PriceSketchTests {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        Random random = new Random(7);
+        long[] prices = new long[100_000];
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        for (int i = 0; i < prices.length; i++) {
+            // long tailed, like real catalogs
+            prices[i] = 1 + (long) Math.exp(random.nextDouble() * 14);
+            sketch.add(prices[i]);
+        }
+        Arrays.sort(prices);
+
+        for (double quantile : new double[]{0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1}) {
+            long exact = prices[(int) (quantile * (prices.length - 1))];
+            assertThat((double) sketch.quantile(quantile)).isCloseTo(exact, within(exact * ACCURACY + 1));
+        }
+        assertThat(sketch.count()).isEqualTo(prices.length);
+    }
+
+    @Test
+    void removedPricesNoLongerCount() {
+        PriceSketch sketch = new PriceSketch(ACCURACY);
+        for (long cents = 100; cents <= 1000; cents += 100) {
+            sketch.add(cents);
+        }
+        sketch.add(0);
+        sketch.remove(1000);
+        sketch.remove(0);
+
+        assertThat(sketch.count()).isEqualTo(9);
+        assertThat((double) sketch.quantile(0)).isCloseTo(100, within(1.0));
+        assertThat((double) sketch.quantile(1)).isCloseTo(900, within(9.0));
+    }
+
+    @Test
+    void sketchesAddAndSubtract() {
+        PriceSketch cheap = new PriceSketch(ACCURACY);
+        PriceSketch expensive = new PriceSketch(ACCURACY);
+        PriceSketch all = new PriceSketch(ACCURACY);
+        for (int i = 1; i <= 50; i++) {
+            cheap.add(i);
+            expensive.add(100_000L * i);
+        }
+        all.addAll(expensive);
+        all.addAll(cheap);
+        assertThat(all.count()).isEqualTo(100);
+        assertThat((double) all.quantile(1)).isCloseTo(5_000_000, within(50_000.0));
+
+        all.removeAll(expensive);
+        assertThat(all.count()).isEqualTo(50);
+        assertThat((double) all.quantile(1)).isCloseTo(50, within(1.0));
+    }
+}
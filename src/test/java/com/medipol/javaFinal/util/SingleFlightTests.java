@@ -0,0 +1,135 @@
+package com.medipol.javaFinal.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.setActualTransactionActive;
+
+class SingleFlightTests {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        setActualTransactionActive(false);
+    }
+
+    @Test
+    void concurrentIdenticalCallsShareOneLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("load", List.of(1L), () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "result";
+            })));
+        }
+        waitForCallers(singleFlight, "load", CALLERS);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(count("load", "collapsed")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void differentArgumentsAreNotCollapsed() {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10), meterRegistry);
+
+        assertThat(singleFlight.execute("load", List.of(1L),
+                () -> singleFlight.execute("load", List.of(2L), () -> "inner"))).isEqualTo("inner");
+        assertThat(count("load", "executed")).isEqualTo(2);
+    }
+
+    @Test
+    void waitingCallersShareTheException() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Object> leader = executor.submit(() -> singleFlight.execute("fail", List.of(), () -> {
+            await(release);
+            throw new IllegalArgumentException("broken");
+        }));
+        waitForCallers(singleFlight, "fail", 1);
+        Future<Object> follower = executor.submit(() -> singleFlight.execute("fail", List.of(), () -> "own"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> follower.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void callerRunsItsOwnLoadAfterTheMaximumWait() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> slow = executor.submit(() -> singleFlight.execute("slow", List.of(), () -> {
+            await(release);
+            return "slow";
+        }));
+        waitForCallers(singleFlight, "slow", 1);
+
+        assertThat(singleFlight.execute("slow", List.of(), () -> "own")).isEqualTo("own");
+        assertThat(count("slow", "timed-out")).isEqualTo(1);
+        release.countDown();
+        assertThat(slow.get(10, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void callsInsideATransactionAreNotCollapsed() {
+        SingleFlight singleFlight = new SingleFlight(true, Duration.ofSeconds(10), meterRegistry);
+        setActualTransactionActive(true);
+
+        assertThat(singleFlight.execute("load", List.of(), () -> "own")).isEqualTo("own");
+        assertThat(count("load", "bypassed")).isEqualTo(1);
+    }
+
+    private double count(String name, String outcome) {
+        return meterRegistry.counter(SingleFlight.METRIC, "name", name, "outcome", outcome).count();
+    }
+
+    /**
+     * The leader is counted when it starts loading; the others are assumed waiting shortly after submission
+     */
+    private void waitForCallers(SingleFlight singleFlight, String name, int callers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count(name, "executed") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        if (callers > 1) {
+            Thread.sleep(200);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.medipol.javaFinal.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void callsOverTheLimitAreRejected() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsSteadyAndTheLimitIsUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(FAST, limiter.getLimit());
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void limitDoesNotGrowWhenMostOfItIsUnused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50);
+
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(FAST, 1);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 2, 50);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(FAST, limiter.getLimit());
+        }
+
+        for (int i = 0; i < 30; i++) {
+            limiter.onSample(SLOW, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isLessThan(10);
+
+        for (int i = 0; i < 300; i++) {
+            limiter.onSample(FAST, limiter.getLimit());
+        }
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+}
@@ -0,0 +1,51 @@
+package com.medipol.javaFinal.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void requestsAreGroupedByCost() {
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/products/42")))
+                .isEqualTo(ConcurrencyLimitFilter.LOOKUP);
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("PATCH", "/api/categories/7/enable")))
+                .isEqualTo(ConcurrencyLimitFilter.LOOKUP);
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("POST", "/api/products")))
+                .isEqualTo(ConcurrencyLimitFilter.LOOKUP);
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/products")))
+                .isEqualTo(ConcurrencyLimitFilter.LIST);
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("GET", "/api/products/search")))
+                .isEqualTo(ConcurrencyLimitFilter.LIST);
+        assertThat(ConcurrencyLimitFilter.group(new MockHttpServletRequest("POST", "/api/products/batch")))
+                .isEqualTo(ConcurrencyLimitFilter.LIST);
+    }
+
+    @Test
+    void saturatedGroupIsShedWithRetryAfterWhileTheOtherGroupIsServed() throws Exception {
+        AdaptiveConcurrencyLimiter list = new AdaptiveConcurrencyLimiter(1, 1, 1);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                new AdaptiveConcurrencyLimiter(1, 1, 1), list, Duration.ofSeconds(2), meterRegistry);
+        assertThat(list.tryAcquire()).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products"), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(meterRegistry.counter("app.concurrency.rejected", "group", "list").count()).isEqualTo(1);
+
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), served, new MockFilterChain());
+        assertThat(served.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("app.concurrency.in-flight").tag("group", "lookup").gauge().value()).isZero();
+    }
+}
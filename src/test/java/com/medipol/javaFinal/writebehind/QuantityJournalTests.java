@@ -0,0 +1,65 @@
+package com.medipol.javaFinal.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantityJournalTests {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedEntriesAreRecoveredByTheNextJournal() throws IOException {
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            assertThat(journal.recover()).isEmpty();
+            journal.append(1, 10, TIME);
+            journal.append(2, 20, TIME.plusSeconds(1));
+        }
+
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            assertThat(journal.recover()).containsExactly(
+                    new QuantityJournal.Entry(1, 10, TIME),
+                    new QuantityJournal.Entry(2, 20, TIME.plusSeconds(1)));
+        }
+    }
+
+    @Test
+    void recordCutShortByACrashIsSkipped() throws IOException {
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            journal.append(1, 10, TIME);
+        }
+        try (Stream<Path> segments = Files.list(directory)) {
+            Path segment = segments.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            assertThat(journal.recover()).containsExactly(new QuantityJournal.Entry(1, 10, TIME));
+        }
+    }
+
+    @Test
+    void segmentsBeforeARotationCanBeDeleted() throws IOException {
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            journal.append(1, 10, TIME);
+            long segment = journal.rotate();
+            journal.append(2, 20, TIME);
+            journal.deleteBefore(segment);
+        }
+
+        try (QuantityJournal journal = new QuantityJournal(directory)) {
+            assertThat(journal.recover()).containsExactly(new QuantityJournal.Entry(2, 20, TIME));
+        }
+    }
+}
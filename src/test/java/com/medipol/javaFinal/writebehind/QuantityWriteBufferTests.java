@@ -0,0 +1,176 @@
+package com.medipol.javaFinal.writebehind;
+
+import com.medipol.javaFinal.model.Category;
+import com.medipol.javaFinal.model.Product;
+import com.medipol.javaFinal.repository.ProductRepository;
+import com.medipol.javaFinal.service.CategoryService;
+import com.medipol.javaFinal.service.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Quantity updates through {@link ProductService} with write-behind enabled; the scheduled flush
+ * is pushed out of the way and flushes are triggered by the tests. The buffer holds one product.
+ */
+@SpringBootTest(properties = {
+        "app.quantity-write-behind.enabled=true",
+        "app.quantity-write-behind.flush-interval=1h",
+        "app.quantity-write-behind.max-pending=1",
+        "app.quantity-write-behind.journal-directory=target/quantity-journal-tests"})
+class QuantityWriteBufferTests {
+
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private QuantityWriteBuffer quantityWriteBuffer;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category created = new Category();
+        created.setName("Write-behind test " + UUID.randomUUID());
+        category = categoryService.saveCategory(created);
+        Product values = new Product();
+        values.setName("Buffered");
+        values.setPrice(new BigDecimal("9.99"));
+        values.setQuantity(1);
+        values.setCategory(category);
+        product = productService.saveProduct(values);
+    }
+
+    @AfterEach
+    void tearDown() {
+        quantityWriteBuffer.flush();
+        categoryService.deleteCategory(category.getId(), null);
+    }
+
+    @Test
+    void bufferedQuantityIsReadBeforeItIsWritten() {
+        assertThat(productService.updateProductQuantity(product.getId(), 7)).isTrue();
+
+        assertThat(storedQuantity()).isEqualTo(1);
+        assertThat(productService.getProductById(product.getId())).get().extracting(Product::getQuantity).isEqualTo(7);
+
+        quantityWriteBuffer.flush();
+
+        assertThat(quantityWriteBuffer.size()).isZero();
+        assertThat(storedQuantity()).isEqualTo(7);
+        assertThat(productService.getProductById(product.getId())).get().extracting(Product::getQuantity).isEqualTo(7);
+    }
+
+    @Test
+    void bufferedQuantityIsShownOnACopy() {
+        productService.updateProductQuantity(product.getId(), 7);
+
+        Product shown = quantityWriteBuffer.overlay(product);
+
+        assertThat(shown).isNotSameAs(product);
+        assertThat(shown.getQuantity()).isEqualTo(7);
+        assertThat(product.getQuantity()).isEqualTo(1);
+        assertThat(productService.getProductsByCategory(category.getId()))
+                .singleElement().extracting(Product::getQuantity).isEqualTo(7);
+    }
+
+    @Test
+    void onlyTheLatestBufferedQuantityIsWritten() {
+        productService.updateProductQuantity(product.getId(), 3);
+        productService.updateProductQuantity(product.getId(), 4);
+
+        assertThat(quantityWriteBuffer.size()).isEqualTo(1);
+        quantityWriteBuffer.flush();
+
+        assertThat(storedQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void laterFullUpdateWinsOverBufferedQuantity() {
+        productService.updateProductQuantity(product.getId(), 3);
+        Product values = new Product();
+        values.setName("Replaced");
+        values.setPrice(new BigDecimal("9.99"));
+        values.setQuantity(50);
+        values.setCategory(category);
+        productService.updateProduct(product.getId(), values, null);
+
+        assertThat(productService.getProductById(product.getId())).get().extracting(Product::getQuantity).isEqualTo(50);
+        quantityWriteBuffer.flush();
+
+        assertThat(storedQuantity()).isEqualTo(50);
+    }
+
+    @Test
+    void fullBufferWritesThrough() {
+        Product values = new Product();
+        values.setName("Written through");
+        values.setPrice(new BigDecimal("9.99"));
+        values.setQuantity(1);
+        values.setCategory(category);
+        Product other = productService.saveProduct(values);
+
+        productService.updateProductQuantity(product.getId(), 3);
+        assertThat(productService.updateProductQuantity(other.getId(), 8)).isTrue();
+
+        assertThat(quantityWriteBuffer.size()).isEqualTo(1);
+        assertThat(storedQuantity(other.getId())).isEqualTo(8);
+        productService.updateProductQuantity(product.getId(), 4);
+        assertThat(storedQuantity(product.getId())).isEqualTo(1);
+        assertThat(productService.getProductById(product.getId())).get().extracting(Product::getQuantity).isEqualTo(4);
+    }
+
+    @Test
+    void productArchivedBeforeTheFlushGetsItsBufferedQuantity() {
+        productService.updateProductQuantity(product.getId(), 7);
+        jdbcTemplate.update("UPDATE categories SET enabled = false WHERE id = ?", category.getId());
+        List<Long> archived = new TransactionTemplate(transactionManager).execute(status ->
+                productRepository.archiveBatch(product.getId() - 1, LocalDateTime.now(), 1));
+        assertThat(archived).containsExactly(product.getId());
+
+        quantityWriteBuffer.flush();
+
+        assertThat(storedQuantity()).isEqualTo(7);
+    }
+
+    @Test
+    void unknownProductIsNotBuffered() {
+        assertThat(productService.updateProductQuantity(UNKNOWN_ID, 5)).isFalse();
+        assertThat(quantityWriteBuffer.size()).isZero();
+    }
+
+    private int storedQuantity() {
+        return storedQuantity(product.getId());
+    }
+
+    private int storedQuantity(long id) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM products WHERE id = ?", Integer.class, id);
+    }
+}